@@ -12,6 +12,7 @@ import org.springframework.core.env.Environment;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.TimeZone;
 
 @SpringBootApplication
 @EnableConfigurationProperties({ ApplicationProperties.class })
@@ -22,6 +23,9 @@ public class EthHotWalletApplication
 
     public static void main(String[] args)
     {
+        // created_date columns are timestamp without time zone and partitioned by month, so every writer
+        // (hibernate, jdbc templates, partition maintenance) has to agree on UTC.
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
         SpringApplication app = new SpringApplication(EthHotWalletApplication.class);
         DefaultProfileUtil.addDefaultProfile(app);
         Environment env = app.run(args).getEnvironment();
@@ -0,0 +1,179 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.config;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.acrosafe.wallet.hot.eth.web.rest.response.ErrorResponse;
+import io.acrosafe.wallet.hot.eth.web.rest.response.Result;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Admission control in front of the node bound endpoints, see {@link AdmissionControlled}. Every request is admitted
+ * by the {@link AdmissionController}, or rejected with 429 before it reaches the handler. An asynchronous request
+ * holds its slots until it completes.
+ */
+@Component
+@Profile("!reactive")
+public class AdmissionControlInterceptor implements AsyncHandlerInterceptor
+{
+    private static final String PERMIT_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".permit";
+
+    private static final String WALLET_ID = "walletId";
+
+    @Autowired
+    private AdmissionController admissionController;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException
+    {
+        // async dispatches of an admitted request already hold their permit.
+        if (!this.admissionController.isEnabled() || request.getDispatcherType() != DispatcherType.REQUEST
+                || !(handler instanceof HandlerMethod))
+        {
+            return true;
+        }
+
+        AdmissionControlled admission = ((HandlerMethod) handler).getMethodAnnotation(AdmissionControlled.class);
+        if (admission == null)
+        {
+            return true;
+        }
+
+        final AdmissionController.Permit permit =
+                this.admissionController.tryAcquire(admission.value(), getWalletId(request));
+        if (!permit.isAdmitted())
+        {
+            return reject(response, permit.getWaitNanos());
+        }
+
+        request.setAttribute(PERMIT_ATTRIBUTE, permit);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler)
+    {
+        final AdmissionController.Permit permit = (AdmissionController.Permit) request.getAttribute(PERMIT_ATTRIBUTE);
+        if (permit != null)
+        {
+            // held until the async request completes, whether by result, timeout or error.
+            request.getAsyncContext().addListener(new PermitListener(permit));
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex)
+    {
+        final AdmissionController.Permit permit = (AdmissionController.Permit) request.getAttribute(PERMIT_ATTRIBUTE);
+        if (permit != null && request.getDispatcherType() == DispatcherType.REQUEST)
+        {
+            permit.release();
+        }
+    }
+
+    private boolean reject(HttpServletResponse response, long waitNanos) throws IOException
+    {
+        ErrorResponse body = new ErrorResponse();
+        body.setResultCode(Result.TOO_MANY_REQUESTS.getCode());
+        body.setResult(Result.TOO_MANY_REQUESTS);
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        if (waitNanos > 0)
+        {
+            // whole seconds, rounded up.
+            final long retryAfter = TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1);
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        this.objectMapper.writeValue(response.getOutputStream(), body);
+
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String getWalletId(HttpServletRequest request)
+    {
+        Map<String, String> variables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        return variables == null ? null : variables.get(WALLET_ID);
+    }
+
+    /**
+     * Releases the permit of an asynchronous request once it completes.
+     */
+    private static final class PermitListener implements AsyncListener
+    {
+        private final AdmissionController.Permit permit;
+
+        private PermitListener(AdmissionController.Permit permit)
+        {
+            this.permit = permit;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event)
+        {
+            this.permit.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event)
+        {
+        }
+
+        @Override
+        public void onError(AsyncEvent event)
+        {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event)
+        {
+        }
+    }
+}
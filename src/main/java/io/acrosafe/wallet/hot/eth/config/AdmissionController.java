@@ -0,0 +1,316 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+
+import io.acrosafe.wallet.hot.eth.service.AccountCacheService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rate and concurrency limits of the node bound endpoints, shared by the REST interceptor and the gRPC service. A
+ * request takes a token from its endpoint's bucket first and from its wallet's bucket second, then a slot of both
+ * concurrency limits. Wallet limits only apply to wallets loaded in the account cache, so made-up wallet ids never
+ * create limiters and are left to the global limit. The hot path is lock-free, limiters of idle wallets are evicted
+ * by a sweeper.
+ */
+@Component
+public class AdmissionController
+{
+    // Logger
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionController.class);
+
+    private static final String WALLET_SCOPE = "wallet";
+
+    private static final String GLOBAL_SCOPE = "global";
+
+    // admits everything while admission control is disabled.
+    private static final Permit UNLIMITED = new Permit(null, null, null, 0L);
+
+    private final ConcurrentMap<String, Limiter> walletLimiters = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Limiter> globalLimiters = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private AccountCacheService accountCacheService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PostConstruct
+    public void initialize()
+    {
+        Gauge.builder("wallet.admission.limiters", this.walletLimiters, Map::size)
+                .description("number of wallets with an active admission limiter").register(this.meterRegistry);
+    }
+
+    public boolean isEnabled()
+    {
+        return this.applicationProperties.getAdmission().isEnabled();
+    }
+
+    /**
+     * Admits a request to given endpoint for given wallet, or rejects it. An admitted request holds its slots until
+     * the returned permit is released.
+     *
+     * @param endpoint
+     * @param walletId may be null.
+     * @return
+     */
+    public Permit tryAcquire(String endpoint, String walletId)
+    {
+        if (!isEnabled())
+        {
+            return UNLIMITED;
+        }
+
+        final long now = System.nanoTime();
+        final Limiter global = getLimiter(this.globalLimiters, endpoint, endpoint, GLOBAL_SCOPE);
+
+        // rates first, a request rejected for its rate never holds a concurrency slot. The global bucket is checked
+        // before the wallet is even looked at.
+        long wait = global.tryAcquireToken(now);
+        if (wait > 0)
+        {
+            return reject(endpoint, GLOBAL_SCOPE, "rate", wait);
+        }
+
+        final Limiter wallet = walletId == null || !this.accountCacheService.isCached(walletId) ? null
+                : getLimiter(this.walletLimiters, endpoint + '/' + walletId, endpoint, WALLET_SCOPE);
+        wait = wallet == null ? 0L : wallet.tryAcquireToken(now);
+        if (wait > 0)
+        {
+            return reject(endpoint, WALLET_SCOPE, "rate", wait);
+        }
+
+        if (!global.tryEnter())
+        {
+            return reject(endpoint, GLOBAL_SCOPE, "concurrency", 0L);
+        }
+        if (wallet != null && !wallet.tryEnter())
+        {
+            global.exit();
+            return reject(endpoint, WALLET_SCOPE, "concurrency", 0L);
+        }
+
+        return new Permit(wallet, global, null, 0L);
+    }
+
+    @Scheduled(fixedDelay = 60000L)
+    public void evictIdleLimiters()
+    {
+        final long now = System.nanoTime();
+        final long idleTimeout =
+                TimeUnit.MILLISECONDS.toNanos(this.applicationProperties.getAdmission().getIdleTimeout());
+        int evicted = 0;
+        for (Map.Entry<String, Limiter> entry : this.walletLimiters.entrySet())
+        {
+            // a full bucket and no request in flight, dropping it loses nothing.
+            if (entry.getValue().isIdle(now, idleTimeout)
+                    && this.walletLimiters.remove(entry.getKey(), entry.getValue()))
+            {
+                evicted++;
+            }
+        }
+        logger.debug("evicted {} idle wallet admission limiters.", evicted);
+    }
+
+    private Limiter getLimiter(ConcurrentMap<String, Limiter> limiters, String key, String endpoint, String scope)
+    {
+        // get first, computeIfAbsent locks the bin even if the key is present on Java 8.
+        Limiter limiter = limiters.get(key);
+        if (limiter == null)
+        {
+            limiter = limiters.computeIfAbsent(key, ignored -> createLimiter(endpoint, scope));
+        }
+        return limiter;
+    }
+
+    private Limiter createLimiter(String endpoint, String scope)
+    {
+        final ApplicationProperties.Admission admission = this.applicationProperties.getAdmission();
+        final ApplicationProperties.AdmissionLimit limit =
+                admission.getEndpoints().getOrDefault(endpoint, new ApplicationProperties.AdmissionLimit());
+
+        Limiter limiter;
+        if (WALLET_SCOPE.equals(scope))
+        {
+            limiter = new Limiter(valueOf(limit.getWalletRate(), admission.getWalletRate()),
+                    valueOf(limit.getWalletBurst(), admission.getWalletBurst()),
+                    valueOf(limit.getWalletConcurrency(), admission.getWalletConcurrency()));
+        }
+        else
+        {
+            limiter = new Limiter(valueOf(limit.getGlobalRate(), admission.getGlobalRate()),
+                    valueOf(limit.getGlobalBurst(), admission.getGlobalBurst()),
+                    valueOf(limit.getGlobalConcurrency(), admission.getGlobalConcurrency()));
+            Gauge.builder("wallet.admission.in.flight", limiter, Limiter::getInFlight)
+                    .description("number of admitted requests in flight").tag("endpoint", endpoint)
+                    .register(this.meterRegistry);
+        }
+        return limiter;
+    }
+
+    private Permit reject(String endpoint, String scope, String reason, long waitNanos)
+    {
+        Counter.builder("wallet.admission.rejected").description("number of requests rejected by admission control")
+                .tag("endpoint", endpoint).tag("scope", scope).tag("reason", reason).register(this.meterRegistry)
+                .increment();
+        return new Permit(null, null, scope, waitNanos);
+    }
+
+    private static <T> T valueOf(T value, T defaultValue)
+    {
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Rate and concurrency limit of one wallet or endpoint. Requests in flight are counted even without a
+     * concurrency limit, for the metrics.
+     */
+    private static final class Limiter
+    {
+        private final TokenBucket bucket;
+
+        private final int maxConcurrency;
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private volatile long lastUsed = System.nanoTime();
+
+        private Limiter(double rate, int burst, int maxConcurrency)
+        {
+            this.bucket = rate > 0 ? new TokenBucket(rate, burst, System.nanoTime()) : null;
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        private long tryAcquireToken(long now)
+        {
+            this.lastUsed = now;
+            return this.bucket == null ? 0L : this.bucket.tryAcquire(now);
+        }
+
+        private boolean tryEnter()
+        {
+            while (true)
+            {
+                final int current = this.inFlight.get();
+                if (this.maxConcurrency > 0 && current >= this.maxConcurrency)
+                {
+                    return false;
+                }
+                if (this.inFlight.compareAndSet(current, current + 1))
+                {
+                    return true;
+                }
+            }
+        }
+
+        private void exit()
+        {
+            this.inFlight.decrementAndGet();
+        }
+
+        private int getInFlight()
+        {
+            return this.inFlight.get();
+        }
+
+        private boolean isIdle(long now, long idleTimeout)
+        {
+            return this.inFlight.get() == 0 && now - this.lastUsed > idleTimeout
+                    && (this.bucket == null || this.bucket.isFull(now));
+        }
+    }
+
+    /**
+     * Outcome of an admission. The slots of an admitted request are released exactly once, releasing a rejected one
+     * or one admitted while admission control is disabled does nothing.
+     */
+    public static final class Permit
+    {
+        private final Limiter wallet;
+
+        private final Limiter global;
+
+        // null if admitted
+        private final String rejectedScope;
+
+        private final long waitNanos;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Limiter wallet, Limiter global, String rejectedScope, long waitNanos)
+        {
+            this.wallet = wallet;
+            this.global = global;
+            this.rejectedScope = rejectedScope;
+            this.waitNanos = waitNanos;
+        }
+
+        public boolean isAdmitted()
+        {
+            return this.rejectedScope == null;
+        }
+
+        /**
+         * Returns how long the client should wait before retrying, 0 if it was not rejected for its rate.
+         *
+         * @return
+         */
+        public long getWaitNanos()
+        {
+            return waitNanos;
+        }
+
+        public void release()
+        {
+            if (this.global != null && this.released.compareAndSet(false, true))
+            {
+                if (this.wallet != null)
+                {
+                    this.wallet.exit();
+                }
+                this.global.exit();
+            }
+        }
+    }
+}
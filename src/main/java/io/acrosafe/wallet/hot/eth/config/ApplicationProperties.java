@@ -23,6 +23,9 @@
  */
 package io.acrosafe.wallet.hot.eth.config;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import io.acrosafe.wallet.core.eth.Passphrase;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
@@ -36,6 +39,59 @@ public class ApplicationProperties
     private Long serviceTimeout = 600L;
     private int entropyBits = 256;
     private int securityStrength = 256;
+    private int restoreParallelism = Runtime.getRuntime().availableProcessors();
+    private int restorePageSize = 500;
+    private Long accountEventPollInterval = 250L;
+    private Long accountEventPollOverlap = 10000L;
+    private Long accountEventRetention = 24L;
+    private int unknownAddressCacheSize = 100000;
+    private Long unknownAddressCacheTtl = 60000L;
+    private int addressPoolSize = 0;
+    private Long addressPoolRefillInterval = 60000L;
+    private String forwarderFactoryAddress;
+    private String forwarderInitCodeHash;
+    private String forwarderContractCode;
+    // token symbol -> ERC-20 contract address
+    private final Map<String, String> tokenContracts = new HashMap<>();
+    private Boolean forwarderEagerDeployment = false;
+    private int deploymentBatchSize = 100;
+    private int maxBulkAddressCount = 1000;
+    private int deploymentMaxAttempts = 5;
+    private Long deploymentRetryInterval = 60000L;
+    private Long deploymentTimeout = 30L;
+    // wei, the node's gas price when not set.
+    private Long deploymentGasPrice;
+    private int maxPageSize = 500;
+    private int maxSummaryDays = 366;
+    private int transactionPartitionsAhead = 3;
+    private Long transactionPartitionCheckInterval = 21600000L;
+    private Long archiveRetention = 0L;
+    private int archiveBatchSize = 1000;
+    private Long archiveInterval = 3600000L;
+    private Long deploymentSubmitInterval = 1000L;
+    private Long deploymentReceiptInterval = 5000L;
+    private Long nodeCallTimeout = 30000L;
+    private int nodeCallPoolSize = 16;
+    private int nodeCallQueueCapacity = 1000;
+    private int eventBufferSize = 256;
+    private Long eventStreamTimeout = 3600000L;
+    private int eventDispatchPoolSize = 4;
+    private Long eventSendTimeLimit = 10000L;
+    private int eventSendBufferLimit = 524288;
+    private long changePollInterval = 1000L;
+    private long changePollOverlap = 60000L;
+    private long blockPollInterval = 5000L;
+    private Boolean virtualThreads = false;
+    private Boolean grpcEnabled = false;
+    private int grpcPort = 7101;
+    private int grpcPoolSize = 32;
+    private String grpcCertChain;
+    private String grpcPrivateKey;
+    private String grpcTrustCertCollection;
+    private int schedulerPoolSize = 4;
+    private final Cache cache = new Cache();
+    private final Webhook webhook = new Webhook();
+    private final Admission admission = new Admission();
 
     public Long getServiceTimeout()
     {
@@ -106,4 +162,889 @@ public class ApplicationProperties
     {
         this.securityStrength = securityStrength;
     }
+
+    public int getRestoreParallelism()
+    {
+        return restoreParallelism;
+    }
+
+    public void setRestoreParallelism(int restoreParallelism)
+    {
+        this.restoreParallelism = restoreParallelism;
+    }
+
+    public int getRestorePageSize()
+    {
+        return restorePageSize;
+    }
+
+    public void setRestorePageSize(int restorePageSize)
+    {
+        this.restorePageSize = restorePageSize;
+    }
+
+    public Long getAccountEventPollInterval()
+    {
+        return accountEventPollInterval;
+    }
+
+    public void setAccountEventPollInterval(Long accountEventPollInterval)
+    {
+        this.accountEventPollInterval = accountEventPollInterval;
+    }
+
+    public Long getAccountEventRetention()
+    {
+        return accountEventRetention;
+    }
+
+    public void setAccountEventRetention(Long accountEventRetention)
+    {
+        this.accountEventRetention = accountEventRetention;
+    }
+
+    public int getAddressPoolSize()
+    {
+        return addressPoolSize;
+    }
+
+    public void setAddressPoolSize(int addressPoolSize)
+    {
+        this.addressPoolSize = addressPoolSize;
+    }
+
+    public Long getAddressPoolRefillInterval()
+    {
+        return addressPoolRefillInterval;
+    }
+
+    public void setAddressPoolRefillInterval(Long addressPoolRefillInterval)
+    {
+        this.addressPoolRefillInterval = addressPoolRefillInterval;
+    }
+
+    public String getForwarderFactoryAddress()
+    {
+        return forwarderFactoryAddress;
+    }
+
+    public void setForwarderFactoryAddress(String forwarderFactoryAddress)
+    {
+        this.forwarderFactoryAddress = forwarderFactoryAddress;
+    }
+
+    public String getForwarderInitCodeHash()
+    {
+        return forwarderInitCodeHash;
+    }
+
+    public void setForwarderInitCodeHash(String forwarderInitCodeHash)
+    {
+        this.forwarderInitCodeHash = forwarderInitCodeHash;
+    }
+
+    public String getForwarderContractCode()
+    {
+        return forwarderContractCode;
+    }
+
+    public void setForwarderContractCode(String forwarderContractCode)
+    {
+        this.forwarderContractCode = forwarderContractCode;
+    }
+
+    public Map<String, String> getTokenContracts()
+    {
+        return tokenContracts;
+    }
+
+    public int getDeploymentBatchSize()
+    {
+        return deploymentBatchSize;
+    }
+
+    public void setDeploymentBatchSize(int deploymentBatchSize)
+    {
+        this.deploymentBatchSize = deploymentBatchSize;
+    }
+
+    public Long getDeploymentSubmitInterval()
+    {
+        return deploymentSubmitInterval;
+    }
+
+    public void setDeploymentSubmitInterval(Long deploymentSubmitInterval)
+    {
+        this.deploymentSubmitInterval = deploymentSubmitInterval;
+    }
+
+    public Long getDeploymentReceiptInterval()
+    {
+        return deploymentReceiptInterval;
+    }
+
+    public void setDeploymentReceiptInterval(Long deploymentReceiptInterval)
+    {
+        this.deploymentReceiptInterval = deploymentReceiptInterval;
+    }
+
+    public Boolean getForwarderEagerDeployment()
+    {
+        return forwarderEagerDeployment;
+    }
+
+    public void setForwarderEagerDeployment(Boolean forwarderEagerDeployment)
+    {
+        this.forwarderEagerDeployment = forwarderEagerDeployment;
+    }
+
+    public int getMaxBulkAddressCount()
+    {
+        return maxBulkAddressCount;
+    }
+
+    public void setMaxBulkAddressCount(int maxBulkAddressCount)
+    {
+        this.maxBulkAddressCount = maxBulkAddressCount;
+    }
+
+    public int getDeploymentMaxAttempts()
+    {
+        return deploymentMaxAttempts;
+    }
+
+    public void setDeploymentMaxAttempts(int deploymentMaxAttempts)
+    {
+        this.deploymentMaxAttempts = deploymentMaxAttempts;
+    }
+
+    public Long getDeploymentRetryInterval()
+    {
+        return deploymentRetryInterval;
+    }
+
+    public void setDeploymentRetryInterval(Long deploymentRetryInterval)
+    {
+        this.deploymentRetryInterval = deploymentRetryInterval;
+    }
+
+    public Long getDeploymentTimeout()
+    {
+        return deploymentTimeout;
+    }
+
+    public void setDeploymentTimeout(Long deploymentTimeout)
+    {
+        this.deploymentTimeout = deploymentTimeout;
+    }
+
+    public int getMaxPageSize()
+    {
+        return maxPageSize;
+    }
+
+    public void setMaxPageSize(int maxPageSize)
+    {
+        this.maxPageSize = maxPageSize;
+    }
+
+    public int getMaxSummaryDays()
+    {
+        return maxSummaryDays;
+    }
+
+    public void setMaxSummaryDays(int maxSummaryDays)
+    {
+        this.maxSummaryDays = maxSummaryDays;
+    }
+
+    public int getTransactionPartitionsAhead()
+    {
+        return transactionPartitionsAhead;
+    }
+
+    public void setTransactionPartitionsAhead(int transactionPartitionsAhead)
+    {
+        this.transactionPartitionsAhead = transactionPartitionsAhead;
+    }
+
+    public Long getTransactionPartitionCheckInterval()
+    {
+        return transactionPartitionCheckInterval;
+    }
+
+    public void setTransactionPartitionCheckInterval(Long transactionPartitionCheckInterval)
+    {
+        this.transactionPartitionCheckInterval = transactionPartitionCheckInterval;
+    }
+
+    public Long getArchiveRetention()
+    {
+        return archiveRetention;
+    }
+
+    public void setArchiveRetention(Long archiveRetention)
+    {
+        this.archiveRetention = archiveRetention;
+    }
+
+    public int getArchiveBatchSize()
+    {
+        return archiveBatchSize;
+    }
+
+    public void setArchiveBatchSize(int archiveBatchSize)
+    {
+        this.archiveBatchSize = archiveBatchSize;
+    }
+
+    public Long getArchiveInterval()
+    {
+        return archiveInterval;
+    }
+
+    public void setArchiveInterval(Long archiveInterval)
+    {
+        this.archiveInterval = archiveInterval;
+    }
+
+    public Long getNodeCallTimeout()
+    {
+        return nodeCallTimeout;
+    }
+
+    public void setNodeCallTimeout(Long nodeCallTimeout)
+    {
+        this.nodeCallTimeout = nodeCallTimeout;
+    }
+
+    public int getNodeCallPoolSize()
+    {
+        return nodeCallPoolSize;
+    }
+
+    public void setNodeCallPoolSize(int nodeCallPoolSize)
+    {
+        this.nodeCallPoolSize = nodeCallPoolSize;
+    }
+
+    public int getNodeCallQueueCapacity()
+    {
+        return nodeCallQueueCapacity;
+    }
+
+    public void setNodeCallQueueCapacity(int nodeCallQueueCapacity)
+    {
+        this.nodeCallQueueCapacity = nodeCallQueueCapacity;
+    }
+
+    public int getEventBufferSize()
+    {
+        return eventBufferSize;
+    }
+
+    public void setEventBufferSize(int eventBufferSize)
+    {
+        this.eventBufferSize = eventBufferSize;
+    }
+
+    public Long getEventStreamTimeout()
+    {
+        return eventStreamTimeout;
+    }
+
+    public void setEventStreamTimeout(Long eventStreamTimeout)
+    {
+        this.eventStreamTimeout = eventStreamTimeout;
+    }
+
+    public int getEventDispatchPoolSize()
+    {
+        return eventDispatchPoolSize;
+    }
+
+    public void setEventDispatchPoolSize(int eventDispatchPoolSize)
+    {
+        this.eventDispatchPoolSize = eventDispatchPoolSize;
+    }
+
+    public Long getEventSendTimeLimit()
+    {
+        return eventSendTimeLimit;
+    }
+
+    public void setEventSendTimeLimit(Long eventSendTimeLimit)
+    {
+        this.eventSendTimeLimit = eventSendTimeLimit;
+    }
+
+    public int getEventSendBufferLimit()
+    {
+        return eventSendBufferLimit;
+    }
+
+    public void setEventSendBufferLimit(int eventSendBufferLimit)
+    {
+        this.eventSendBufferLimit = eventSendBufferLimit;
+    }
+
+    public long getChangePollInterval()
+    {
+        return changePollInterval;
+    }
+
+    public void setChangePollInterval(long changePollInterval)
+    {
+        this.changePollInterval = changePollInterval;
+    }
+
+    public long getChangePollOverlap()
+    {
+        return changePollOverlap;
+    }
+
+    public void setChangePollOverlap(long changePollOverlap)
+    {
+        this.changePollOverlap = changePollOverlap;
+    }
+
+    public long getBlockPollInterval()
+    {
+        return blockPollInterval;
+    }
+
+    public void setBlockPollInterval(long blockPollInterval)
+    {
+        this.blockPollInterval = blockPollInterval;
+    }
+
+    public Boolean getVirtualThreads()
+    {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(Boolean virtualThreads)
+    {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public Boolean getGrpcEnabled()
+    {
+        return grpcEnabled;
+    }
+
+    public void setGrpcEnabled(Boolean grpcEnabled)
+    {
+        this.grpcEnabled = grpcEnabled;
+    }
+
+    public int getGrpcPort()
+    {
+        return grpcPort;
+    }
+
+    public void setGrpcPort(int grpcPort)
+    {
+        this.grpcPort = grpcPort;
+    }
+
+    public int getGrpcPoolSize()
+    {
+        return grpcPoolSize;
+    }
+
+    public void setGrpcPoolSize(int grpcPoolSize)
+    {
+        this.grpcPoolSize = grpcPoolSize;
+    }
+
+    public String getGrpcCertChain()
+    {
+        return grpcCertChain;
+    }
+
+    public void setGrpcCertChain(String grpcCertChain)
+    {
+        this.grpcCertChain = grpcCertChain;
+    }
+
+    public String getGrpcPrivateKey()
+    {
+        return grpcPrivateKey;
+    }
+
+    public void setGrpcPrivateKey(String grpcPrivateKey)
+    {
+        this.grpcPrivateKey = grpcPrivateKey;
+    }
+
+    public String getGrpcTrustCertCollection()
+    {
+        return grpcTrustCertCollection;
+    }
+
+    public void setGrpcTrustCertCollection(String grpcTrustCertCollection)
+    {
+        this.grpcTrustCertCollection = grpcTrustCertCollection;
+    }
+
+    public Long getAccountEventPollOverlap()
+    {
+        return accountEventPollOverlap;
+    }
+
+    public void setAccountEventPollOverlap(Long accountEventPollOverlap)
+    {
+        this.accountEventPollOverlap = accountEventPollOverlap;
+    }
+
+    public int getSchedulerPoolSize()
+    {
+        return schedulerPoolSize;
+    }
+
+    public void setSchedulerPoolSize(int schedulerPoolSize)
+    {
+        this.schedulerPoolSize = schedulerPoolSize;
+    }
+
+    public int getUnknownAddressCacheSize()
+    {
+        return unknownAddressCacheSize;
+    }
+
+    public void setUnknownAddressCacheSize(int unknownAddressCacheSize)
+    {
+        this.unknownAddressCacheSize = unknownAddressCacheSize;
+    }
+
+    public Long getUnknownAddressCacheTtl()
+    {
+        return unknownAddressCacheTtl;
+    }
+
+    public void setUnknownAddressCacheTtl(Long unknownAddressCacheTtl)
+    {
+        this.unknownAddressCacheTtl = unknownAddressCacheTtl;
+    }
+
+    public Long getDeploymentGasPrice()
+    {
+        return deploymentGasPrice;
+    }
+
+    public void setDeploymentGasPrice(Long deploymentGasPrice)
+    {
+        this.deploymentGasPrice = deploymentGasPrice;
+    }
+
+    public Cache getCache()
+    {
+        return cache;
+    }
+
+    public Webhook getWebhook()
+    {
+        return webhook;
+    }
+
+    public Admission getAdmission()
+    {
+        return admission;
+    }
+
+    /**
+     * Hibernate second-level cache settings. Regions not listed use the default size and time to live.
+     */
+    public static class Cache
+    {
+        private long maxEntries = 10000;
+        private long timeToLiveSeconds = 3600;
+        private final Map<String, Region> regions = new HashMap<>();
+
+        public long getMaxEntries()
+        {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries)
+        {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getTimeToLiveSeconds()
+        {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(long timeToLiveSeconds)
+        {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public Map<String, Region> getRegions()
+        {
+            return regions;
+        }
+    }
+
+    public static class Region
+    {
+        private Long maxEntries;
+        private Long timeToLiveSeconds;
+
+        public Long getMaxEntries()
+        {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(Long maxEntries)
+        {
+            this.maxEntries = maxEntries;
+        }
+
+        public Long getTimeToLiveSeconds()
+        {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(Long timeToLiveSeconds)
+        {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+    }
+
+    /**
+     * Webhook delivery settings. Endpoints are keyed by a stable name, the name is stored with every queued delivery.
+     * Backoff values are in milliseconds.
+     */
+    public static class Webhook
+    {
+        private int batchSize = 50;
+        private int maxAttempts = 15;
+        private long initialBackoff = 1000;
+        private long maxBackoff = 3600000;
+        private long dispatchInterval = 1000;
+        private long leaseTimeout = 60000;
+        private int connectTimeout = 5000;
+        private int readTimeout = 10000;
+        private long retentionDays = 7;
+        private final Map<String, WebhookEndpoint> endpoints = new HashMap<>();
+
+        public int getBatchSize()
+        {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize)
+        {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxAttempts()
+        {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts)
+        {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getInitialBackoff()
+        {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(long initialBackoff)
+        {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public long getMaxBackoff()
+        {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(long maxBackoff)
+        {
+            this.maxBackoff = maxBackoff;
+        }
+
+        public long getDispatchInterval()
+        {
+            return dispatchInterval;
+        }
+
+        public void setDispatchInterval(long dispatchInterval)
+        {
+            this.dispatchInterval = dispatchInterval;
+        }
+
+        public long getLeaseTimeout()
+        {
+            return leaseTimeout;
+        }
+
+        public void setLeaseTimeout(long leaseTimeout)
+        {
+            this.leaseTimeout = leaseTimeout;
+        }
+
+        public int getConnectTimeout()
+        {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(int connectTimeout)
+        {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public int getReadTimeout()
+        {
+            return readTimeout;
+        }
+
+        public void setReadTimeout(int readTimeout)
+        {
+            this.readTimeout = readTimeout;
+        }
+
+        public long getRetentionDays()
+        {
+            return retentionDays;
+        }
+
+        public void setRetentionDays(long retentionDays)
+        {
+            this.retentionDays = retentionDays;
+        }
+
+        public Map<String, WebhookEndpoint> getEndpoints()
+        {
+            return endpoints;
+        }
+    }
+
+    public static class WebhookEndpoint
+    {
+        private String url;
+        private String secret;
+        private int maxConcurrency = 2;
+        private boolean enabled = true;
+
+        public String getUrl()
+        {
+            return url;
+        }
+
+        public void setUrl(String url)
+        {
+            this.url = url;
+        }
+
+        public String getSecret()
+        {
+            return secret;
+        }
+
+        public void setSecret(String secret)
+        {
+            this.secret = secret;
+        }
+
+        public int getMaxConcurrency()
+        {
+            return maxConcurrency;
+        }
+
+        public void setMaxConcurrency(int maxConcurrency)
+        {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        public boolean isEnabled()
+        {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled)
+        {
+            this.enabled = enabled;
+        }
+    }
+
+    /**
+     * Admission control of node bound endpoints. Rates are requests per second, burst is the bucket size and
+     * concurrency the number of requests in flight; 0 disables a limit. Wallet limits apply per wallet and endpoint,
+     * global limits per endpoint across all wallets. Endpoints not listed use the defaults.
+     */
+    public static class Admission
+    {
+        private boolean enabled = true;
+        private long idleTimeout = 600000;
+        private double walletRate = 10;
+        private int walletBurst = 20;
+        private int walletConcurrency = 4;
+        private double globalRate = 0;
+        private int globalBurst = 0;
+        private int globalConcurrency = 0;
+        private final Map<String, AdmissionLimit> endpoints = new HashMap<>();
+
+        public boolean isEnabled()
+        {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled)
+        {
+            this.enabled = enabled;
+        }
+
+        public long getIdleTimeout()
+        {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(long idleTimeout)
+        {
+            this.idleTimeout = idleTimeout;
+        }
+
+        public double getWalletRate()
+        {
+            return walletRate;
+        }
+
+        public void setWalletRate(double walletRate)
+        {
+            this.walletRate = walletRate;
+        }
+
+        public int getWalletBurst()
+        {
+            return walletBurst;
+        }
+
+        public void setWalletBurst(int walletBurst)
+        {
+            this.walletBurst = walletBurst;
+        }
+
+        public int getWalletConcurrency()
+        {
+            return walletConcurrency;
+        }
+
+        public void setWalletConcurrency(int walletConcurrency)
+        {
+            this.walletConcurrency = walletConcurrency;
+        }
+
+        public double getGlobalRate()
+        {
+            return globalRate;
+        }
+
+        public void setGlobalRate(double globalRate)
+        {
+            this.globalRate = globalRate;
+        }
+
+        public int getGlobalBurst()
+        {
+            return globalBurst;
+        }
+
+        public void setGlobalBurst(int globalBurst)
+        {
+            this.globalBurst = globalBurst;
+        }
+
+        public int getGlobalConcurrency()
+        {
+            return globalConcurrency;
+        }
+
+        public void setGlobalConcurrency(int globalConcurrency)
+        {
+            this.globalConcurrency = globalConcurrency;
+        }
+
+        public Map<String, AdmissionLimit> getEndpoints()
+        {
+            return endpoints;
+        }
+    }
+
+    public static class AdmissionLimit
+    {
+        private Double walletRate;
+        private Integer walletBurst;
+        private Integer walletConcurrency;
+        private Double globalRate;
+        private Integer globalBurst;
+        private Integer globalConcurrency;
+
+        public Double getWalletRate()
+        {
+            return walletRate;
+        }
+
+        public void setWalletRate(Double walletRate)
+        {
+            this.walletRate = walletRate;
+        }
+
+        public Integer getWalletBurst()
+        {
+            return walletBurst;
+        }
+
+        public void setWalletBurst(Integer walletBurst)
+        {
+            this.walletBurst = walletBurst;
+        }
+
+        public Integer getWalletConcurrency()
+        {
+            return walletConcurrency;
+        }
+
+        public void setWalletConcurrency(Integer walletConcurrency)
+        {
+            this.walletConcurrency = walletConcurrency;
+        }
+
+        public Double getGlobalRate()
+        {
+            return globalRate;
+        }
+
+        public void setGlobalRate(Double globalRate)
+        {
+            this.globalRate = globalRate;
+        }
+
+        public Integer getGlobalBurst()
+        {
+            return globalBurst;
+        }
+
+        public void setGlobalBurst(Integer globalBurst)
+        {
+            this.globalBurst = globalBurst;
+        }
+
+        public Integer getGlobalConcurrency()
+        {
+            return globalConcurrency;
+        }
+
+        public void setGlobalConcurrency(Integer globalConcurrency)
+        {
+            this.globalConcurrency = globalConcurrency;
+        }
+    }
 }
@@ -34,6 +34,7 @@ import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 import java.util.concurrent.Executor;
 
@@ -45,17 +46,56 @@ public class AsyncConfiguration implements AsyncConfigurer
 
     private static final Logger logger = LoggerFactory.getLogger(AsyncConfiguration.class);
 
+    public static final String NODE_CALL_EXECUTOR = "nodeCallExecutor";
+
+    public static final String WALLET_EVENT_EXECUTOR = "walletEventExecutor";
+
+    public static final String WEBHOOK_EXECUTOR = "webhookExecutor";
+
     private final TaskExecutionProperties taskExecutionProperties;
 
-    public AsyncConfiguration(TaskExecutionProperties taskExecutionProperties)
+    private final ApplicationProperties applicationProperties;
+
+    public AsyncConfiguration(TaskExecutionProperties taskExecutionProperties,
+            ApplicationProperties applicationProperties)
     {
         this.taskExecutionProperties = taskExecutionProperties;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Returns true if application.virtual-threads is set and the JVM supports virtual threads.
+     *
+     * @param applicationProperties
+     * @return
+     */
+    public static boolean isVirtualThreadsEnabled(ApplicationProperties applicationProperties)
+    {
+        if (!Boolean.TRUE.equals(applicationProperties.getVirtualThreads()))
+        {
+            return false;
+        }
+        if (!VirtualThreads.isSupported())
+        {
+            logger.warn("virtual threads are enabled but not supported by Java {}, using platform threads.",
+                    System.getProperty("java.version"));
+            return false;
+        }
+        return true;
     }
 
     @Override
     @Bean(name = "taskExecutor")
     public Executor getAsyncExecutor()
     {
+        if (isVirtualThreadsEnabled(this.applicationProperties))
+        {
+            // one virtual thread per task, tasks blocked on the node no longer queue behind each other.
+            final String threadNamePrefix = taskExecutionProperties.getThreadNamePrefix();
+            logger.debug("async Task Executor created on virtual threads, threadNamePrefix = {}", threadNamePrefix);
+            return new ExceptionHandlingAsyncTaskExecutor(VirtualThreads.newExecutor(threadNamePrefix));
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         final TaskExecutionProperties.Pool pool = taskExecutionProperties.getPool();
         final int coreSize = pool.getCoreSize();
@@ -73,6 +113,89 @@ public class AsyncConfiguration implements AsyncConfigurer
         return new ExceptionHandlingAsyncTaskExecutor(executor);
     }
 
+    /**
+     * Bounded executor of the asynchronous REST handlers that wait for the node, e.g. signing and sending a transaction.
+     * Requests beyond the queue capacity are rejected instead of piling up.
+     *
+     * @param applicationProperties
+     * @return
+     */
+    @Bean(name = NODE_CALL_EXECUTOR)
+    public ThreadPoolTaskExecutor nodeCallExecutor(ApplicationProperties applicationProperties)
+    {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(applicationProperties.getNodeCallPoolSize());
+        executor.setMaxPoolSize(applicationProperties.getNodeCallPoolSize());
+        executor.setQueueCapacity(applicationProperties.getNodeCallQueueCapacity());
+        executor.setThreadNamePrefix("node-call-");
+
+        logger.debug("node call executor created, poolSize = {}, queueCapacity = {}",
+                applicationProperties.getNodeCallPoolSize(), applicationProperties.getNodeCallQueueCapacity());
+        return executor;
+    }
+
+    /**
+     * Executor delivering wallet events to push subscribers. Each subscription has at most one task in flight, so the
+     * queue never holds more tasks than there are subscribers.
+     *
+     * @param applicationProperties
+     * @return
+     */
+    @Bean(name = WALLET_EVENT_EXECUTOR)
+    public ThreadPoolTaskExecutor walletEventExecutor(ApplicationProperties applicationProperties)
+    {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(applicationProperties.getEventDispatchPoolSize());
+        executor.setMaxPoolSize(applicationProperties.getEventDispatchPoolSize());
+        executor.setThreadNamePrefix("wallet-event-");
+
+        logger.debug("wallet event executor created, poolSize = {}", applicationProperties.getEventDispatchPoolSize());
+        return executor;
+    }
+
+    /**
+     * Executor sending webhook batches. The dispatcher never submits more batches than the endpoints' concurrency
+     * limits allow, so the pool is sized to their sum.
+     *
+     * @param applicationProperties
+     * @return
+     */
+    @Bean(name = WEBHOOK_EXECUTOR)
+    public ThreadPoolTaskExecutor webhookExecutor(ApplicationProperties applicationProperties)
+    {
+        int poolSize = 0;
+        for (ApplicationProperties.WebhookEndpoint endpoint : applicationProperties.getWebhook().getEndpoints().values())
+        {
+            poolSize += endpoint.isEnabled() ? endpoint.getMaxConcurrency() : 0;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, poolSize));
+        executor.setMaxPoolSize(Math.max(1, poolSize));
+        executor.setThreadNamePrefix("webhook-");
+
+        logger.debug("webhook executor created, poolSize = {}", poolSize);
+        return executor;
+    }
+
+    /**
+     * Scheduler of the @Scheduled jobs. The default scheduler has a single thread, so a slow job, e.g. the transaction
+     * archive, would delay the account event poll behind it.
+     *
+     * @param applicationProperties
+     * @return
+     */
+    @Bean(name = "taskScheduler")
+    public ThreadPoolTaskScheduler taskScheduler(ApplicationProperties applicationProperties)
+    {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(Math.max(1, applicationProperties.getSchedulerPoolSize()));
+        scheduler.setThreadNamePrefix("scheduler-");
+
+        logger.debug("task scheduler created, poolSize = {}", applicationProperties.getSchedulerPoolSize());
+        return scheduler;
+    }
+
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler()
     {
@@ -28,6 +28,12 @@ import io.acrosafe.wallet.core.eth.SeedGenerator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.http.HttpService;
+import org.web3j.protocol.websocket.WebSocketService;
+
+import java.net.ConnectException;
 
 @Configuration
 public class BlockChainConfiguration
@@ -55,4 +61,29 @@ public class BlockChainConfiguration
         BlockChainNetwork blockChainNetwork = new BlockChainNetwork(serviceUrl, serviceTimeout);
         return blockChainNetwork;
     }
+
+    /**
+     * Web3j client used for raw contract calls that are not covered by {@link BlockChainNetwork}, e.g. forwarder
+     * factory transactions.
+     *
+     * @return
+     * @throws ConnectException
+     */
+    @Bean(destroyMethod = "shutdown")
+    public Web3j web3j() throws ConnectException
+    {
+        String serviceUrl = env.getProperty("application.service-url");
+        Web3jService service;
+        if (serviceUrl.startsWith("ws"))
+        {
+            WebSocketService webSocketService = new WebSocketService(serviceUrl, false);
+            webSocketService.connect();
+            service = webSocketService;
+        }
+        else
+        {
+            service = new HttpService(serviceUrl);
+        }
+        return Web3j.build(service);
+    }
 }
@@ -0,0 +1,101 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.config;
+
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+import javax.cache.CacheManager;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+
+import io.acrosafe.wallet.hot.eth.domain.TransactionRecord;
+
+/**
+ * Backs the Hibernate second-level cache with in-process Caffeine caches. Every region is created up front with its
+ * own size limit and time to live, and registered with the Spring cache manager so hit/miss statistics are published
+ * as cache metrics.
+ * <p>
+ * The caches are not shared between instances, so only entities that no other instance changes while they are cached
+ * belong here. There is no query cache for the same reason, its invalidation is local as well.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfiguration
+{
+    private static final Logger logger = LoggerFactory.getLogger(CacheConfiguration.class);
+
+    private final ApplicationProperties.Cache properties;
+
+    public CacheConfiguration(ApplicationProperties applicationProperties)
+    {
+        this.properties = applicationProperties.getCache();
+    }
+
+    @Bean
+    public JCacheManagerCustomizer cacheManagerCustomizer()
+    {
+        return cacheManager -> {
+            createCache(cacheManager, "transaction-record", TransactionRecord.class.getName());
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernatePropertiesCustomizer(CacheManager cacheManager)
+    {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+    }
+
+    private void createCache(CacheManager cacheManager, String alias, String region)
+    {
+        ApplicationProperties.Region settings = this.properties.getRegions().get(alias);
+        long maxEntries = this.properties.getMaxEntries();
+        long timeToLive = this.properties.getTimeToLiveSeconds();
+        if (settings != null && settings.getMaxEntries() != null)
+        {
+            maxEntries = settings.getMaxEntries();
+        }
+        if (settings != null && settings.getTimeToLiveSeconds() != null)
+        {
+            timeToLive = settings.getTimeToLiveSeconds();
+        }
+
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(timeToLive)));
+        configuration.setStatisticsEnabled(true);
+        cacheManager.createCache(region, configuration);
+
+        logger.debug("cache region {} created, maxEntries = {}, timeToLive = {}s", region, maxEntries, timeToLive);
+    }
+}
@@ -0,0 +1,188 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Splits database traffic into one Hikari pool per workload, so a slow workload cannot take the connections another
+ * one depends on:
+ * <ul>
+ * <li>write - default pool for everything without a workload, e.g. liquibase and schedulers.</li>
+ * <li>ingestion - deposit detection, see {@link WorkloadType#INGESTION}.</li>
+ * <li>signing - withdrawals and contract deployments, see {@link WorkloadType#SIGNING}.</li>
+ * <li>read - API reads, used by read-only transactions (a replica in production).</li>
+ * <li>lock - sessions holding a blocking advisory lock, see
+ * {@link io.acrosafe.wallet.hot.eth.service.AdvisoryLockService#lock(int, String)}. Not routed, so a lock holder
+ * never waits for a connection of the workload it is serializing.</li>
+ * </ul>
+ * Each pool is configured under spring.datasource.{name} and falls back to the primary url when it has none.
+ */
+@Configuration
+public class DatabaseConfiguration
+{
+    public static final String WRITE_POOL = "write";
+
+    public static final String LOCK_POOL = "lock";
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties writeDataSourceProperties()
+    {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.read")
+    public DataSourceProperties readDataSourceProperties()
+    {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.ingestion")
+    public DataSourceProperties ingestionDataSourceProperties()
+    {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.signing")
+    public DataSourceProperties signingDataSourceProperties()
+    {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.lock")
+    public DataSourceProperties lockDataSourceProperties()
+    {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource writeDataSource(@Qualifier("writeDataSourceProperties") DataSourceProperties properties)
+    {
+        return createPool(properties, properties, WRITE_POOL);
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.read.hikari")
+    public HikariDataSource readDataSource(@Qualifier("writeDataSourceProperties") DataSourceProperties writeProperties,
+            @Qualifier("readDataSourceProperties") DataSourceProperties properties)
+    {
+        return createPool(writeProperties, properties, WorkloadType.READ.getPoolName());
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.ingestion.hikari")
+    public HikariDataSource ingestionDataSource(
+            @Qualifier("writeDataSourceProperties") DataSourceProperties writeProperties,
+            @Qualifier("ingestionDataSourceProperties") DataSourceProperties properties)
+    {
+        return createPool(writeProperties, properties, WorkloadType.INGESTION.getPoolName());
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.signing.hikari")
+    public HikariDataSource signingDataSource(
+            @Qualifier("writeDataSourceProperties") DataSourceProperties writeProperties,
+            @Qualifier("signingDataSourceProperties") DataSourceProperties properties)
+    {
+        return createPool(writeProperties, properties, WorkloadType.SIGNING.getPoolName());
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.lock.hikari")
+    public HikariDataSource lockDataSource(@Qualifier("writeDataSourceProperties") DataSourceProperties writeProperties,
+            @Qualifier("lockDataSourceProperties") DataSourceProperties properties)
+    {
+        return createPool(writeProperties, properties, LOCK_POOL);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("writeDataSource") DataSource writeDataSource,
+            @Qualifier("readDataSource") DataSource readDataSource,
+            @Qualifier("ingestionDataSource") DataSource ingestionDataSource,
+            @Qualifier("signingDataSource") DataSource signingDataSource)
+    {
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(WRITE_POOL, writeDataSource);
+        targetDataSources.put(WorkloadType.READ.getPoolName(), readDataSource);
+        targetDataSources.put(WorkloadType.INGESTION.getPoolName(), ingestionDataSource);
+        targetDataSources.put(WorkloadType.SIGNING.getPoolName(), signingDataSource);
+
+        AbstractRoutingDataSource routingDataSource = new AbstractRoutingDataSource()
+        {
+            @Override
+            protected Object determineCurrentLookupKey()
+            {
+                WorkloadType workload = WorkloadContext.get();
+                if (workload != null)
+                {
+                    return workload.getPoolName();
+                }
+
+                return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                        ? WorkloadType.READ.getPoolName() : WRITE_POOL;
+            }
+        };
+        routingDataSource.setTargetDataSources(targetDataSources);
+        routingDataSource.setDefaultTargetDataSource(writeDataSource);
+        routingDataSource.afterPropertiesSet();
+
+        // the transaction manager opens the connection before the read-only flag is bound to the thread, the lazy
+        // proxy defers the pool lookup until the first statement.
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    private static HikariDataSource createPool(DataSourceProperties writeProperties, DataSourceProperties properties,
+            String poolName)
+    {
+        // without its own url the pool connects to the primary, it still keeps its own connections.
+        DataSourceProperties source = StringUtils.isEmpty(properties.getUrl()) ? writeProperties : properties;
+        HikariDataSource dataSource = source.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(poolName);
+        return dataSource;
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. It is kept as the time at which the bucket is full again (generic cell rate algorithm), so
+ * taking a token is a single compare-and-set and an idle bucket needs no refill.
+ */
+final class TokenBucket
+{
+    private final long interval;
+
+    private final long capacity;
+
+    private final AtomicLong fullAt;
+
+    /**
+     * @param rate tokens per second.
+     * @param burst bucket size, the number of tokens a full bucket hands out at once.
+     * @param now current {@link System#nanoTime()}, the bucket starts full.
+     */
+    TokenBucket(double rate, int burst, long now)
+    {
+        this.interval = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / rate));
+        this.capacity = Math.max(1, burst) * this.interval;
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * Takes one token.
+     *
+     * @param now current {@link System#nanoTime()}.
+     * @return 0 if a token was taken, otherwise the nanoseconds until the next token is available.
+     */
+    long tryAcquire(long now)
+    {
+        while (true)
+        {
+            final long current = this.fullAt.get();
+            final long next = Math.max(current, now) + this.interval;
+            final long excess = next - now - this.capacity;
+            if (excess > 0)
+            {
+                return excess;
+            }
+            if (this.fullAt.compareAndSet(current, next))
+            {
+                return 0L;
+            }
+        }
+    }
+
+    boolean isFull(long now)
+    {
+        return this.fullAt.get() - now <= 0;
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+/**
+ * Access to virtual threads (Java 21 and later) through reflection, the code base still compiles for Java 8. Blocking
+ * node and database calls on a virtual thread release its carrier, so one thread per request or task costs no pool.
+ */
+public final class VirtualThreads
+{
+    private static final String BUILDER_CLASS = "java.lang.Thread$Builder";
+
+    private static final Method OF_VIRTUAL = findMethod(Thread.class.getName(), "ofVirtual");
+
+    private static final Method NAME = findMethod(BUILDER_CLASS, "name", String.class, long.class);
+
+    private static final Method FACTORY = findMethod(BUILDER_CLASS, "factory");
+
+    private static final Method IS_VIRTUAL = findMethod(Thread.class.getName(), "isVirtual");
+
+    private static final long PROBE_TIMEOUT_MILLIS = 5000;
+
+    private static final boolean SUPPORTED = probe();
+
+    private VirtualThreads()
+    {
+    }
+
+    /**
+     * Returns true if this JVM starts virtual threads. The API is present but throws on Java 19 and 20 without
+     * --enable-preview, so support is probed by starting one.
+     *
+     * @return
+     */
+    public static boolean isSupported()
+    {
+        return SUPPORTED;
+    }
+
+    /**
+     * Returns true if given thread is a virtual thread.
+     *
+     * @param thread
+     * @return
+     */
+    public static boolean isVirtual(Thread thread)
+    {
+        if (IS_VIRTUAL == null)
+        {
+            return false;
+        }
+
+        try
+        {
+            return (Boolean) IS_VIRTUAL.invoke(thread);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Returns a factory of virtual threads named prefix0, prefix1, ...
+     *
+     * @param prefix
+     * @return
+     */
+    public static ThreadFactory newThreadFactory(String prefix)
+    {
+        if (!isSupported())
+        {
+            throw new IllegalStateException("virtual threads are not supported by this JVM.");
+        }
+
+        try
+        {
+            return createThreadFactory(prefix);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new IllegalStateException("failed to create virtual thread factory.", e);
+        }
+    }
+
+    /**
+     * Returns an executor starting one virtual thread per task.
+     *
+     * @param prefix
+     * @return
+     */
+    public static SimpleAsyncTaskExecutor newExecutor(String prefix)
+    {
+        return new SimpleAsyncTaskExecutor(newThreadFactory(prefix));
+    }
+
+    private static ThreadFactory createThreadFactory(String prefix) throws ReflectiveOperationException
+    {
+        Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 0L);
+        return (ThreadFactory) FACTORY.invoke(builder);
+    }
+
+    private static boolean probe()
+    {
+        if (OF_VIRTUAL == null || NAME == null || FACTORY == null || IS_VIRTUAL == null)
+        {
+            return false;
+        }
+
+        try
+        {
+            final AtomicBoolean virtual = new AtomicBoolean();
+            Thread thread = createThreadFactory("probe-").newThread(() -> virtual.set(isVirtual(Thread.currentThread())));
+            thread.start();
+            thread.join(PROBE_TIMEOUT_MILLIS);
+            return virtual.get();
+        }
+        catch (Throwable t)
+        {
+            return false;
+        }
+    }
+
+    private static Method findMethod(String className, String name, Class<?>... parameterTypes)
+    {
+        try
+        {
+            return Class.forName(className).getMethod(name, parameterTypes);
+        }
+        catch (ClassNotFoundException | NoSuchMethodException e)
+        {
+            return null;
+        }
+    }
+}
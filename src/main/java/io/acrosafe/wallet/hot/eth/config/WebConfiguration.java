@@ -33,8 +33,11 @@ import org.springframework.boot.web.servlet.ServletContextInitializer;
 import org.springframework.boot.web.servlet.server.ConfigurableServletWebServerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.core.env.Environment;
 import org.springframework.http.MediaType;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import javax.servlet.DispatcherType;
 import javax.servlet.ServletContext;
@@ -43,16 +46,24 @@ import java.nio.charset.StandardCharsets;
 import java.util.EnumSet;
 
 @Configuration
-
-public class WebConfiguration implements ServletContextInitializer, WebServerFactoryCustomizer<WebServerFactory>
+@Profile("!reactive")
+public class WebConfiguration
+        implements ServletContextInitializer, WebServerFactoryCustomizer<WebServerFactory>, WebMvcConfigurer
 {
     private final Logger logger = LoggerFactory.getLogger(WebConfiguration.class);
 
     private final Environment env;
 
-    public WebConfiguration(Environment env)
+    private final AdmissionControlInterceptor admissionControlInterceptor;
+
+    private final ApplicationProperties applicationProperties;
+
+    public WebConfiguration(Environment env, AdmissionControlInterceptor admissionControlInterceptor,
+            ApplicationProperties applicationProperties)
     {
         this.env = env;
+        this.admissionControlInterceptor = admissionControlInterceptor;
+        this.applicationProperties = applicationProperties;
     }
 
     @Override
@@ -79,10 +90,23 @@ public class WebConfiguration implements ServletContextInitializer, WebServerFac
         }
     }
 
+    @Override
+    public void addInterceptors(InterceptorRegistry registry)
+    {
+        registry.addInterceptor(this.admissionControlInterceptor).addPathPatterns("/api/**");
+    }
+
     @Bean
     public TomcatServletWebServerFactory tomcatServletWebServerFactory()
     {
         TomcatServletWebServerFactory tomcatContainer = new TomcatServletWebServerFactory();
+        if (AsyncConfiguration.isVirtualThreadsEnabled(this.applicationProperties))
+        {
+            // requests run on virtual threads, server.tomcat.max-threads no longer caps blocked requests.
+            tomcatContainer.addProtocolHandlerCustomizers(
+                    protocolHandler -> protocolHandler.setExecutor(VirtualThreads.newExecutor("http-")));
+            logger.info("Tomcat request handling runs on virtual threads");
+        }
         return tomcatContainer;
     }
 }
@@ -0,0 +1,83 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.config;
+
+/**
+ * Holds the workload of the current thread, read by the routing datasource when a connection is opened.
+ */
+public final class WorkloadContext
+{
+    private static final ThreadLocal<WorkloadType> CURRENT = new ThreadLocal<>();
+
+    private WorkloadContext()
+    {
+    }
+
+    /**
+     * Returns the workload of the current thread, or null if none is set.
+     *
+     * @return
+     */
+    public static WorkloadType get()
+    {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs given task with the workload set, restoring the previous one afterwards.
+     *
+     * @param workload
+     * @param task
+     */
+    public static void run(WorkloadType workload, Runnable task)
+    {
+        final WorkloadType previous = CURRENT.get();
+        CURRENT.set(workload);
+        try
+        {
+            task.run();
+        }
+        finally
+        {
+            restore(previous);
+        }
+    }
+
+    static void set(WorkloadType workload)
+    {
+        CURRENT.set(workload);
+    }
+
+    static void restore(WorkloadType previous)
+    {
+        if (previous == null)
+        {
+            CURRENT.remove();
+        }
+        else
+        {
+            CURRENT.set(previous);
+        }
+    }
+}
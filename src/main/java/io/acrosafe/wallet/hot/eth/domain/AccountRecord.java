@@ -31,16 +31,15 @@ import javax.persistence.Entity;
 import javax.persistence.Id;
 import javax.persistence.Table;
 
-import org.hibernate.annotations.Cache;
-import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Type;
 import org.springframework.data.annotation.CreatedDate;
 
 @Entity
 @Table(name = "account_record")
-@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class AccountRecord implements Serializable
 {
     @Id
+    @Type(type = CompactUuidType.TYPE)
     @Column(name = "id", nullable = false)
     private String id;
 
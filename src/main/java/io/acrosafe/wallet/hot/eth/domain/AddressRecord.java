@@ -4,35 +4,79 @@ import java.time.Instant;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
 import javax.persistence.Id;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 
-import org.hibernate.annotations.Cache;
-import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Type;
 import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.domain.Persistable;
 
 @Entity
 @Table(name = "address_record")
-@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
-public class AddressRecord
+public class AddressRecord implements Persistable<String>
 {
     @Id
+    @Type(type = CompactUuidType.TYPE)
     @Column(name = "id", nullable = false)
     private String id;
 
     @Column(name = "address", nullable = true)
     private String address;
 
+    @Type(type = CompactUuidType.TYPE)
     @Column(name = "account_id", nullable = false)
     private String accountId;
 
     @Column(name = "label", nullable = true)
     private String label;
 
+    @Column(name = "assigned", nullable = false)
+    private boolean assigned = true;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "deployment_status", nullable = false)
+    private DeploymentStatus deploymentStatus = DeploymentStatus.PENDING;
+
+    @Column(name = "deployment_transaction_id", nullable = true)
+    private String deploymentTransactionId;
+
+    @Column(name = "deployment_attempts", nullable = false)
+    private int deploymentAttempts;
+
+    @Column(name = "deployment_modified_date", nullable = true)
+    private Instant deploymentModifiedDate;
+
+    // when a pooled record was handed out, null for records created for a request.
+    @Column(name = "claimed_date", nullable = true)
+    private Instant claimedDate;
+
+    // ids are assigned by us, so tell spring data which records still need an insert instead of a merge.
+    @Transient
+    private boolean newRecord = true;
+
+    @PostLoad
+    @PostPersist
+    void markNotNew()
+    {
+        this.newRecord = false;
+    }
+
+    @Override
+    public boolean isNew()
+    {
+        return newRecord;
+    }
+
     @CreatedDate
     @Column(name = "created_date", nullable = false)
     private Instant createdDate = Instant.now();
 
+    @Override
     public String getId()
     {
         return id;
@@ -82,4 +126,65 @@ public class AddressRecord
     {
         this.label = label;
     }
+
+    public boolean isAssigned()
+    {
+        return assigned;
+    }
+
+    public void setAssigned(boolean assigned)
+    {
+        this.assigned = assigned;
+    }
+
+    public DeploymentStatus getDeploymentStatus()
+    {
+        return deploymentStatus;
+    }
+
+    public void setDeploymentStatus(DeploymentStatus deploymentStatus)
+    {
+        this.deploymentStatus = deploymentStatus;
+        this.deploymentModifiedDate = Instant.now();
+    }
+
+    public String getDeploymentTransactionId()
+    {
+        return deploymentTransactionId;
+    }
+
+    public void setDeploymentTransactionId(String deploymentTransactionId)
+    {
+        this.deploymentTransactionId = deploymentTransactionId;
+    }
+
+    public int getDeploymentAttempts()
+    {
+        return deploymentAttempts;
+    }
+
+    public void setDeploymentAttempts(int deploymentAttempts)
+    {
+        this.deploymentAttempts = deploymentAttempts;
+    }
+
+    public Instant getDeploymentModifiedDate()
+    {
+        return deploymentModifiedDate;
+    }
+
+    public void setDeploymentModifiedDate(Instant deploymentModifiedDate)
+    {
+        this.deploymentModifiedDate = deploymentModifiedDate;
+    }
+
+    public Instant getClaimedDate()
+    {
+        return claimedDate;
+    }
+
+    public void setClaimedDate(Instant claimedDate)
+    {
+        this.claimedDate = claimedDate;
+    }
 }
@@ -0,0 +1,149 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.domain;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.usertype.UserType;
+
+/**
+ * Maps record ids, which the application handles as 32 character hex strings, to 16 byte postgres uuid columns.
+ */
+public class CompactUuidType implements UserType
+{
+    public static final String TYPE = "io.acrosafe.wallet.hot.eth.domain.CompactUuidType";
+
+    private static final Pattern COMPACT_UUID = Pattern.compile("[0-9a-f]{32}");
+
+    /**
+     * Returns whether given string is a 32 character hex id that can be stored as uuid.
+     *
+     * @param value
+     * @return
+     */
+    public static boolean isValid(String value)
+    {
+        return value != null && COMPACT_UUID.matcher(value).matches();
+    }
+
+    public static UUID toUuid(String value)
+    {
+        if (!isValid(value))
+        {
+            throw new IllegalArgumentException("id " + value + " is not a valid uuid.");
+        }
+
+        return new UUID(Long.parseUnsignedLong(value.substring(0, 16), 16),
+                Long.parseUnsignedLong(value.substring(16), 16));
+    }
+
+    public static String toCompactString(UUID value)
+    {
+        return value.toString().replace("-", "");
+    }
+
+    @Override
+    public int[] sqlTypes()
+    {
+        return new int[] { Types.OTHER };
+    }
+
+    @Override
+    public Class<?> returnedClass()
+    {
+        return String.class;
+    }
+
+    @Override
+    public boolean equals(Object x, Object y)
+    {
+        return Objects.equals(x, y);
+    }
+
+    @Override
+    public int hashCode(Object x)
+    {
+        return Objects.hashCode(x);
+    }
+
+    @Override
+    public Object nullSafeGet(ResultSet rs, String[] names, SharedSessionContractImplementor session, Object owner)
+            throws SQLException
+    {
+        Object value = rs.getObject(names[0]);
+        return value == null ? null : toCompactString((UUID) value);
+    }
+
+    @Override
+    public void nullSafeSet(PreparedStatement st, Object value, int index, SharedSessionContractImplementor session)
+            throws SQLException
+    {
+        if (value == null)
+        {
+            st.setNull(index, Types.OTHER);
+        }
+        else
+        {
+            st.setObject(index, toUuid((String) value), Types.OTHER);
+        }
+    }
+
+    @Override
+    public Object deepCopy(Object value)
+    {
+        return value;
+    }
+
+    @Override
+    public boolean isMutable()
+    {
+        return false;
+    }
+
+    @Override
+    public Serializable disassemble(Object value)
+    {
+        return (Serializable) value;
+    }
+
+    @Override
+    public Object assemble(Serializable cached, Object owner)
+    {
+        return cached;
+    }
+
+    @Override
+    public Object replace(Object original, Object target, Object owner)
+    {
+        return original;
+    }
+}
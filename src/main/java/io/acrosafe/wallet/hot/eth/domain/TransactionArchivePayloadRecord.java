@@ -0,0 +1,103 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.domain;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Gzip compressed, newline separated JSON rows of one {@link TransactionArchiveRecord}.
+ */
+@Entity
+@Table(name = "transaction_archive_payload")
+public class TransactionArchivePayloadRecord implements Persistable<Long>, Serializable
+{
+    @Id
+    @Column(name = "archive_id", nullable = false)
+    private Long archiveId;
+
+    @Column(name = "payload", nullable = false, updatable = false)
+    private byte[] payload;
+
+    @Transient
+    private boolean newRecord = true;
+
+    public TransactionArchivePayloadRecord()
+    {
+    }
+
+    public TransactionArchivePayloadRecord(Long archiveId, byte[] payload)
+    {
+        this.archiveId = archiveId;
+        this.payload = payload;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew()
+    {
+        this.newRecord = false;
+    }
+
+    @Override
+    public Long getId()
+    {
+        return archiveId;
+    }
+
+    @Override
+    public boolean isNew()
+    {
+        return newRecord;
+    }
+
+    public Long getArchiveId()
+    {
+        return archiveId;
+    }
+
+    public void setArchiveId(Long archiveId)
+    {
+        this.archiveId = archiveId;
+    }
+
+    public byte[] getPayload()
+    {
+        return payload;
+    }
+
+    public void setPayload(byte[] payload)
+    {
+        this.payload = payload;
+    }
+}
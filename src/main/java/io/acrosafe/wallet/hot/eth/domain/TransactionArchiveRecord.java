@@ -0,0 +1,141 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.Type;
+import org.springframework.data.annotation.CreatedDate;
+
+/**
+ * Index entry of an archived batch of transactions. Each batch holds transactions of one account and token, its gzip
+ * compressed rows are kept in {@link TransactionArchivePayloadRecord} so index lookups do not load them.
+ */
+@Entity
+@Table(name = "transaction_archive_record")
+public class TransactionArchiveRecord implements Serializable
+{
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Type(type = CompactUuidType.TYPE)
+    @Column(name = "account_id", nullable = false)
+    private String accountId;
+
+    @Column(name = "token", nullable = false)
+    private String token;
+
+    @Column(name = "record_count", nullable = false)
+    private Integer recordCount;
+
+    @Column(name = "first_created_date", nullable = false)
+    private Instant firstCreatedDate;
+
+    @Column(name = "last_created_date", nullable = false)
+    private Instant lastCreatedDate;
+
+    @CreatedDate
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate = Instant.now();
+
+    public Long getId()
+    {
+        return id;
+    }
+
+    public void setId(Long id)
+    {
+        this.id = id;
+    }
+
+    public String getAccountId()
+    {
+        return accountId;
+    }
+
+    public void setAccountId(String accountId)
+    {
+        this.accountId = accountId;
+    }
+
+    public String getToken()
+    {
+        return token;
+    }
+
+    public void setToken(String token)
+    {
+        this.token = token;
+    }
+
+    public Integer getRecordCount()
+    {
+        return recordCount;
+    }
+
+    public void setRecordCount(Integer recordCount)
+    {
+        this.recordCount = recordCount;
+    }
+
+    public Instant getFirstCreatedDate()
+    {
+        return firstCreatedDate;
+    }
+
+    public void setFirstCreatedDate(Instant firstCreatedDate)
+    {
+        this.firstCreatedDate = firstCreatedDate;
+    }
+
+    public Instant getLastCreatedDate()
+    {
+        return lastCreatedDate;
+    }
+
+    public void setLastCreatedDate(Instant lastCreatedDate)
+    {
+        this.lastCreatedDate = lastCreatedDate;
+    }
+
+    public Instant getCreatedDate()
+    {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate)
+    {
+        this.createdDate = createdDate;
+    }
+}
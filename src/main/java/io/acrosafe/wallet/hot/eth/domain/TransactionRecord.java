@@ -13,18 +13,22 @@ import javax.persistence.Table;
 
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Type;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 
 import io.acrosafe.wallet.core.eth.TransactionStatus;
 import io.acrosafe.wallet.core.eth.TransactionType;
 
+// only read by id by the instance that created it, lookups by hash go to the database. Accounts and addresses are
+// not cached, they are changed by other instances and a stale copy would outlive the event that invalidates it.
 @Entity
 @Table(name = "transaction_record")
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class TransactionRecord implements Serializable
 {
     @Id
+    @Type(type = CompactUuidType.TYPE)
     @Column(name = "id", nullable = false)
     private String id;
 
@@ -47,6 +51,7 @@ public class TransactionRecord implements Serializable
     @Column(name = "fee", nullable = false, columnDefinition = "DECIMAL(36,0)")
     private BigInteger fee;
 
+    @Type(type = CompactUuidType.TYPE)
     @Column(name = "account_id", nullable = false)
     private String accountId;
 
@@ -0,0 +1,88 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.domain;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Composite key of {@link TransactionSummaryRecord}.
+ */
+public class TransactionSummaryId implements Serializable
+{
+    private String accountId;
+
+    private String token;
+
+    private LocalDate summaryDate;
+
+    public TransactionSummaryId()
+    {
+    }
+
+    public TransactionSummaryId(String accountId, String token, LocalDate summaryDate)
+    {
+        this.accountId = accountId;
+        this.token = token;
+        this.summaryDate = summaryDate;
+    }
+
+    public String getAccountId()
+    {
+        return accountId;
+    }
+
+    public String getToken()
+    {
+        return token;
+    }
+
+    public LocalDate getSummaryDate()
+    {
+        return summaryDate;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass())
+        {
+            return false;
+        }
+        TransactionSummaryId that = (TransactionSummaryId) o;
+        return Objects.equals(accountId, that.accountId) && Objects.equals(token, that.token)
+                && Objects.equals(summaryDate, that.summaryDate);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(accountId, token, summaryDate);
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.domain;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.Type;
+
+/**
+ * Daily transaction totals of one account and token. Rows are maintained incrementally by
+ * TransactionSummaryService whenever a transaction record is created or updated, and are never changed through JPA.
+ */
+@Entity
+@Table(name = "transaction_summary_record")
+@IdClass(TransactionSummaryId.class)
+public class TransactionSummaryRecord implements Serializable
+{
+    @Id
+    @Type(type = CompactUuidType.TYPE)
+    @Column(name = "account_id", nullable = false)
+    private String accountId;
+
+    @Id
+    @Column(name = "token", nullable = false)
+    private String token;
+
+    @Id
+    @Column(name = "summary_date", nullable = false)
+    private LocalDate summaryDate;
+
+    @Column(name = "deposit_count", nullable = false)
+    private Long depositCount;
+
+    @Column(name = "deposit_amount", nullable = false, columnDefinition = "DECIMAL(36,0)")
+    private BigInteger depositAmount;
+
+    @Column(name = "withdrawal_count", nullable = false)
+    private Long withdrawalCount;
+
+    @Column(name = "withdrawal_amount", nullable = false, columnDefinition = "DECIMAL(36,0)")
+    private BigInteger withdrawalAmount;
+
+    @Column(name = "fee_amount", nullable = false, columnDefinition = "DECIMAL(36,0)")
+    private BigInteger feeAmount;
+
+    @Column(name = "last_activity_date", nullable = false)
+    private Instant lastActivityDate;
+
+    public String getAccountId()
+    {
+        return accountId;
+    }
+
+    public void setAccountId(String accountId)
+    {
+        this.accountId = accountId;
+    }
+
+    public String getToken()
+    {
+        return token;
+    }
+
+    public void setToken(String token)
+    {
+        this.token = token;
+    }
+
+    public LocalDate getSummaryDate()
+    {
+        return summaryDate;
+    }
+
+    public void setSummaryDate(LocalDate summaryDate)
+    {
+        this.summaryDate = summaryDate;
+    }
+
+    public Long getDepositCount()
+    {
+        return depositCount;
+    }
+
+    public void setDepositCount(Long depositCount)
+    {
+        this.depositCount = depositCount;
+    }
+
+    public BigInteger getDepositAmount()
+    {
+        return depositAmount;
+    }
+
+    public void setDepositAmount(BigInteger depositAmount)
+    {
+        this.depositAmount = depositAmount;
+    }
+
+    public Long getWithdrawalCount()
+    {
+        return withdrawalCount;
+    }
+
+    public void setWithdrawalCount(Long withdrawalCount)
+    {
+        this.withdrawalCount = withdrawalCount;
+    }
+
+    public BigInteger getWithdrawalAmount()
+    {
+        return withdrawalAmount;
+    }
+
+    public void setWithdrawalAmount(BigInteger withdrawalAmount)
+    {
+        this.withdrawalAmount = withdrawalAmount;
+    }
+
+    public BigInteger getFeeAmount()
+    {
+        return feeAmount;
+    }
+
+    public void setFeeAmount(BigInteger feeAmount)
+    {
+        this.feeAmount = feeAmount;
+    }
+
+    public Instant getLastActivityDate()
+    {
+        return lastActivityDate;
+    }
+
+    public void setLastActivityDate(Instant lastActivityDate)
+    {
+        this.lastActivityDate = lastActivityDate;
+    }
+}
@@ -0,0 +1,215 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+import org.hibernate.annotations.Type;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * One wallet event queued for one webhook endpoint. Rows are written in the transaction that records the event and
+ * removed some time after they are delivered.
+ */
+@Entity
+@Table(name = "webhook_delivery_record")
+public class WebhookDeliveryRecord implements Persistable<String>, Serializable
+{
+    @Id
+    @Type(type = CompactUuidType.TYPE)
+    @Column(name = "id", nullable = false)
+    private String id;
+
+    @Column(name = "endpoint", nullable = false)
+    private String endpoint;
+
+    @Type(type = CompactUuidType.TYPE)
+    @Column(name = "account_id", nullable = false)
+    private String accountId;
+
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private WebhookDeliveryStatus status = WebhookDeliveryStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_date", nullable = false)
+    private Instant nextAttemptDate = Instant.now();
+
+    @Column(name = "last_error", nullable = true)
+    private String lastError;
+
+    @CreatedDate
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate = Instant.now();
+
+    @Column(name = "delivered_date", nullable = true)
+    private Instant deliveredDate;
+
+    // ids are assigned by us, so tell spring data which records still need an insert instead of a merge.
+    @Transient
+    private boolean newRecord = true;
+
+    @PostLoad
+    @PostPersist
+    void markNotNew()
+    {
+        this.newRecord = false;
+    }
+
+    @Override
+    public boolean isNew()
+    {
+        return newRecord;
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public void setId(String id)
+    {
+        this.id = id;
+    }
+
+    public String getEndpoint()
+    {
+        return endpoint;
+    }
+
+    public void setEndpoint(String endpoint)
+    {
+        this.endpoint = endpoint;
+    }
+
+    public String getAccountId()
+    {
+        return accountId;
+    }
+
+    public void setAccountId(String accountId)
+    {
+        this.accountId = accountId;
+    }
+
+    public String getEventType()
+    {
+        return eventType;
+    }
+
+    public void setEventType(String eventType)
+    {
+        this.eventType = eventType;
+    }
+
+    public String getPayload()
+    {
+        return payload;
+    }
+
+    public void setPayload(String payload)
+    {
+        this.payload = payload;
+    }
+
+    public WebhookDeliveryStatus getStatus()
+    {
+        return status;
+    }
+
+    public void setStatus(WebhookDeliveryStatus status)
+    {
+        this.status = status;
+    }
+
+    public int getAttempts()
+    {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts)
+    {
+        this.attempts = attempts;
+    }
+
+    public Instant getNextAttemptDate()
+    {
+        return nextAttemptDate;
+    }
+
+    public void setNextAttemptDate(Instant nextAttemptDate)
+    {
+        this.nextAttemptDate = nextAttemptDate;
+    }
+
+    public String getLastError()
+    {
+        return lastError;
+    }
+
+    public void setLastError(String lastError)
+    {
+        this.lastError = lastError;
+    }
+
+    public Instant getCreatedDate()
+    {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate)
+    {
+        this.createdDate = createdDate;
+    }
+
+    public Instant getDeliveredDate()
+    {
+        return deliveredDate;
+    }
+
+    public void setDeliveredDate(Instant deliveredDate)
+    {
+        this.deliveredDate = deliveredDate;
+    }
+}
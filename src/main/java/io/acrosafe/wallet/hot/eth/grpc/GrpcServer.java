@@ -0,0 +1,172 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.grpc;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import io.acrosafe.wallet.hot.eth.config.ApplicationProperties;
+import io.acrosafe.wallet.hot.eth.config.AsyncConfiguration;
+import io.acrosafe.wallet.hot.eth.config.VirtualThreads;
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.GrpcSslContexts;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.netty.shaded.io.netty.handler.ssl.ClientAuth;
+import io.grpc.netty.shaded.io.netty.handler.ssl.SslContext;
+import io.grpc.services.HealthStatusManager;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the gRPC server next to the REST API when application.grpc-enabled is set. It starts once the context is
+ * refreshed and is drained on shutdown before the services it calls go away. The API signs and sends transactions, so
+ * it only runs with mutual TLS: grpc-cert-chain, grpc-private-key and grpc-trust-cert-collection must be set and
+ * every client has to present a certificate issued by the trusted collection, otherwise startup fails.
+ */
+@Component
+public class GrpcServer implements SmartLifecycle
+{
+    // Logger
+    private static final Logger logger = LoggerFactory.getLogger(GrpcServer.class);
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private WalletGrpcService walletGrpcService;
+
+    private volatile Server server;
+
+    private Executor executor;
+
+    @Override
+    public void start()
+    {
+        if (!Boolean.TRUE.equals(this.applicationProperties.getGrpcEnabled()))
+        {
+            logger.info("gRPC server is disabled.");
+            return;
+        }
+
+        final String certChain = this.applicationProperties.getGrpcCertChain();
+        final String privateKey = this.applicationProperties.getGrpcPrivateKey();
+        final String trustCertCollection = this.applicationProperties.getGrpcTrustCertCollection();
+        if (StringUtils.isEmpty(certChain) || StringUtils.isEmpty(privateKey) || StringUtils.isEmpty(trustCertCollection))
+        {
+            throw new IllegalStateException("gRPC server requires grpc-cert-chain, grpc-private-key and "
+                    + "grpc-trust-cert-collection, it does not run without mutual TLS.");
+        }
+
+        this.executor = createExecutor();
+        HealthStatusManager health = new HealthStatusManager();
+        try
+        {
+            SslContext sslContext = GrpcSslContexts.forServer(new File(certChain), new File(privateKey))
+                    .trustManager(new File(trustCertCollection)).clientAuth(ClientAuth.REQUIRE).build();
+            this.server = NettyServerBuilder.forPort(this.applicationProperties.getGrpcPort()).sslContext(sslContext)
+                    .executor(this.executor).addService(this.walletGrpcService).addService(health.getHealthService())
+                    .build().start();
+        }
+        catch (IOException e)
+        {
+            if (this.executor instanceof ExecutorService)
+            {
+                ((ExecutorService) this.executor).shutdown();
+            }
+            throw new IllegalStateException("failed to start gRPC server on port "
+                    + this.applicationProperties.getGrpcPort() + ".", e);
+        }
+        logger.info("gRPC server started on port {} with mutual TLS.", this.server.getPort());
+    }
+
+    @Override
+    public void stop()
+    {
+        final Server current = this.server;
+        if (current == null)
+        {
+            return;
+        }
+
+        current.shutdown();
+        try
+        {
+            if (!current.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+            {
+                logger.warn("gRPC calls still running after {} seconds, cancelling them.", SHUTDOWN_TIMEOUT_SECONDS);
+                current.shutdownNow();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            current.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            if (this.executor instanceof ExecutorService)
+            {
+                ((ExecutorService) this.executor).shutdown();
+            }
+            this.server = null;
+        }
+        logger.info("gRPC server stopped.");
+    }
+
+    @Override
+    public boolean isRunning()
+    {
+        return this.server != null;
+    }
+
+    /**
+     * Calls block on the database and the node, they run on virtual threads when enabled and on a fixed pool
+     * otherwise.
+     *
+     * @return
+     */
+    private Executor createExecutor()
+    {
+        if (AsyncConfiguration.isVirtualThreadsEnabled(this.applicationProperties))
+        {
+            return VirtualThreads.newExecutor("grpc-");
+        }
+
+        final int poolSize = this.applicationProperties.getGrpcPoolSize();
+        return new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("grpc-"));
+    }
+}
@@ -0,0 +1,336 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.grpc;
+
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+import com.google.protobuf.Timestamp;
+import io.acrosafe.wallet.core.eth.exception.AccountNotFoundException;
+import io.acrosafe.wallet.core.eth.exception.CryptoException;
+import io.acrosafe.wallet.hot.eth.config.AdmissionController;
+import io.acrosafe.wallet.hot.eth.domain.AccountRecord;
+import io.acrosafe.wallet.hot.eth.domain.AddressRecord;
+import io.acrosafe.wallet.hot.eth.domain.TransactionRecord;
+import io.acrosafe.wallet.hot.eth.exception.InvalidCoinSymbolException;
+import io.acrosafe.wallet.hot.eth.exception.InvalidContinuationTokenException;
+import io.acrosafe.wallet.hot.eth.exception.WithdrawalPendingException;
+import io.acrosafe.wallet.hot.eth.grpc.v1.Balance;
+import io.acrosafe.wallet.hot.eth.grpc.v1.CreateAccountRequest;
+import io.acrosafe.wallet.hot.eth.grpc.v1.CreateAccountResponse;
+import io.acrosafe.wallet.hot.eth.grpc.v1.CreateAddressRequest;
+import io.acrosafe.wallet.hot.eth.grpc.v1.GetAddressResponse;
+import io.acrosafe.wallet.hot.eth.grpc.v1.GetAllTokenBalancesResponse;
+import io.acrosafe.wallet.hot.eth.grpc.v1.GetBalancesRequest;
+import io.acrosafe.wallet.hot.eth.grpc.v1.GetTransactionListResponse;
+import io.acrosafe.wallet.hot.eth.grpc.v1.GetTransactionResponse;
+import io.acrosafe.wallet.hot.eth.grpc.v1.GetTransactionsRequest;
+import io.acrosafe.wallet.hot.eth.grpc.v1.SendCoinRequest;
+import io.acrosafe.wallet.hot.eth.grpc.v1.SendCoinResponse;
+import io.acrosafe.wallet.hot.eth.grpc.v1.WalletServiceGrpc;
+import io.acrosafe.wallet.hot.eth.service.AccountService;
+import io.acrosafe.wallet.hot.eth.service.KeysetPage;
+import io.acrosafe.wallet.hot.eth.web.rest.response.Result;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * gRPC counterpart of AccountResources for internal callers, backed by the same AccountService. Failures are mapped
+ * to a gRPC status and carry the REST result code in the result-code trailer. Calls that reach the node share the
+ * admission limits of their REST endpoints.
+ */
+@Component
+public class WalletGrpcService extends WalletServiceGrpc.WalletServiceImplBase
+{
+    // Logger
+    private static final Logger logger = LoggerFactory.getLogger(WalletGrpcService.class);
+
+    static final Metadata.Key<String> RESULT_CODE = Metadata.Key.of("result-code", Metadata.ASCII_STRING_MARSHALLER);
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    private static final String DEFAULT_SYMBOL = "ETH";
+
+    @Autowired
+    private AccountService service;
+
+    @Autowired
+    private AdmissionController admissionController;
+
+    @Override
+    public void createAccount(CreateAccountRequest request, StreamObserver<CreateAccountResponse> responseObserver)
+    {
+        try
+        {
+            AccountRecord record = this.service.createAccount(request.getSymbol(), request.getLabel(),
+                    request.getEnabled());
+
+            CreateAccountResponse.Builder response = CreateAccountResponse.newBuilder().setId(record.getId())
+                    .setSymbol(request.getSymbol().toUpperCase()).setEnabled(record.isEnabled())
+                    .setCreatedDate(toTimestamp(record.getCreatedDate()));
+            if (record.getLabel() != null)
+            {
+                response.setLabel(record.getLabel());
+            }
+            if (record.getAddress() != null)
+            {
+                response.setAddress(record.getAddress());
+            }
+            complete(responseObserver, response.build());
+        }
+        catch (Throwable t)
+        {
+            fail(responseObserver, t, "failed to create new enterprise account.");
+        }
+    }
+
+    @Override
+    public void createAddress(CreateAddressRequest request, StreamObserver<GetAddressResponse> responseObserver)
+    {
+        final AdmissionController.Permit permit = admit("address-new", request.getWalletId(), responseObserver);
+        if (permit == null)
+        {
+            return;
+        }
+
+        try
+        {
+            AddressRecord record =
+                    this.service.createReceivingAddress(request.getSymbol(), request.getLabel(), request.getWalletId());
+
+            GetAddressResponse.Builder response = GetAddressResponse.newBuilder().setId(record.getId());
+            if (record.getAddress() != null)
+            {
+                response.setAddress(record.getAddress());
+            }
+            if (record.getDeploymentStatus() != null)
+            {
+                response.setDeploymentStatus(record.getDeploymentStatus().name());
+            }
+            complete(responseObserver, response.build());
+        }
+        catch (Throwable t)
+        {
+            fail(responseObserver, t, "failed to create new address.");
+        }
+        finally
+        {
+            permit.release();
+        }
+    }
+
+    @Override
+    public void getBalances(GetBalancesRequest request, StreamObserver<GetAllTokenBalancesResponse> responseObserver)
+    {
+        final AdmissionController.Permit permit = admit("balances", request.getWalletId(), responseObserver);
+        if (permit == null)
+        {
+            return;
+        }
+
+        // completed on the web3j client threads, no gRPC thread waits for the node.
+        this.service.getBalancesAsync(request.getWalletId()).whenComplete((balances, error) ->
+        {
+            permit.release();
+            if (error != null)
+            {
+                fail(responseObserver, error, "failed to get enterprise account balance.");
+                return;
+            }
+
+            GetAllTokenBalancesResponse.Builder response = GetAllTokenBalancesResponse.newBuilder();
+            for (Map.Entry<String, BigInteger> entry : balances.entrySet())
+            {
+                response.addBalances(Balance.newBuilder().setSymbol(entry.getKey())
+                        .setBalance(entry.getValue().toString()));
+            }
+            complete(responseObserver, response.build());
+        });
+    }
+
+    @Override
+    public void send(SendCoinRequest request, StreamObserver<SendCoinResponse> responseObserver)
+    {
+        final AdmissionController.Permit permit = admit("send", request.getWalletId(), responseObserver);
+        if (permit == null)
+        {
+            return;
+        }
+
+        try
+        {
+            final String transactionId = this.service.send(request.getSymbol(), request.getWalletId(),
+                    request.getAddress(), request.getAmount(), request.getInternalTransactionId());
+
+            SendCoinResponse.Builder response = SendCoinResponse.newBuilder();
+            if (transactionId != null)
+            {
+                response.setTransactionId(transactionId);
+            }
+            complete(responseObserver, response.build());
+        }
+        catch (Throwable t)
+        {
+            fail(responseObserver, t, "failed to send coin.");
+        }
+        finally
+        {
+            permit.release();
+        }
+    }
+
+    @Override
+    public void getTransactions(GetTransactionsRequest request,
+            StreamObserver<GetTransactionListResponse> responseObserver)
+    {
+        try
+        {
+            final String symbol = request.getSymbol().isEmpty() ? DEFAULT_SYMBOL : request.getSymbol();
+            final int size = request.getSize() > 0 ? request.getSize() : DEFAULT_PAGE_SIZE;
+            final String continuation = request.getContinuation().isEmpty() ? null : request.getContinuation();
+
+            KeysetPage<TransactionRecord> page =
+                    this.service.getTransactions(symbol, request.getWalletId(), continuation, size);
+
+            GetTransactionListResponse.Builder response = GetTransactionListResponse.newBuilder()
+                    .setToken(symbol.toUpperCase()).setSize(page.getItems().size());
+            for (TransactionRecord record : page.getItems())
+            {
+                response.addTransactions(toTransactionResponse(record));
+            }
+            if (page.getContinuation() != null)
+            {
+                response.setContinuation(page.getContinuation());
+            }
+            complete(responseObserver, response.build());
+        }
+        catch (Throwable t)
+        {
+            fail(responseObserver, t, "failed to get transactions.");
+        }
+    }
+
+    /**
+     * Admits a call to given endpoint, or fails it with RESOURCE_EXHAUSTED.
+     *
+     * @param endpoint
+     * @param walletId
+     * @param responseObserver
+     * @return the permit to release once the call is done, or null if the call has been rejected.
+     */
+    private AdmissionController.Permit admit(String endpoint, String walletId, StreamObserver<?> responseObserver)
+    {
+        final AdmissionController.Permit permit = this.admissionController.tryAcquire(endpoint, walletId);
+        if (!permit.isAdmitted())
+        {
+            Metadata trailers = new Metadata();
+            trailers.put(RESULT_CODE, Integer.toString(Result.TOO_MANY_REQUESTS.getCode()));
+            responseObserver.onError(Status.RESOURCE_EXHAUSTED.withDescription(Result.TOO_MANY_REQUESTS.name())
+                    .asRuntimeException(trailers));
+            return null;
+        }
+        return permit;
+    }
+
+    private static <T> void complete(StreamObserver<T> responseObserver, T response)
+    {
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
+    }
+
+    private static void fail(StreamObserver<?> responseObserver, Throwable error, String message)
+    {
+        final Throwable cause =
+                error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+
+        Status status;
+        Result result;
+        if (cause instanceof AccountNotFoundException)
+        {
+            status = Status.NOT_FOUND;
+            result = Result.ACCOUNT_NOT_FOUND;
+        }
+        else if (cause instanceof InvalidCoinSymbolException)
+        {
+            status = Status.INVALID_ARGUMENT;
+            result = Result.INVALID_COIN_SYMBOL;
+        }
+        else if (cause instanceof InvalidContinuationTokenException)
+        {
+            status = Status.INVALID_ARGUMENT;
+            result = Result.INVALID_CONTINUATION_TOKEN;
+        }
+        else if (cause instanceof WithdrawalPendingException)
+        {
+            status = Status.FAILED_PRECONDITION;
+            result = Result.WITHDRAWAL_PENDING;
+        }
+        else if (cause instanceof CryptoException)
+        {
+            status = Status.INTERNAL;
+            result = Result.INVALID_CRYPTO_OPERATION;
+        }
+        else
+        {
+            logger.error(message, cause);
+            status = Status.INTERNAL;
+            result = Result.UNKNOWN_ERROR;
+        }
+
+        Metadata trailers = new Metadata();
+        trailers.put(RESULT_CODE, Integer.toString(result.getCode()));
+        responseObserver.onError(status.withDescription(result.name()).asRuntimeException(trailers));
+    }
+
+    private static GetTransactionResponse toTransactionResponse(TransactionRecord record)
+    {
+        GetTransactionResponse.Builder output = GetTransactionResponse.newBuilder().setSymbol(record.getToken())
+                .setStatus(record.getStatus().name()).setAmount(record.getAmount().toString())
+                .setFee(record.getFee().toString()).setWalletId(record.getAccountId())
+                .setCreatedDate(toTimestamp(record.getCreatedDate()))
+                .setTransactionType(record.getTransactionType().name());
+        if (record.getTransactionId() != null)
+        {
+            output.setTransactionId(record.getTransactionId());
+        }
+        if (record.getDestination() != null)
+        {
+            output.setDestination(record.getDestination());
+        }
+        return output.build();
+    }
+
+    private static Timestamp toTimestamp(Instant instant)
+    {
+        return instant == null ? Timestamp.getDefaultInstance()
+                : Timestamp.newBuilder().setSeconds(instant.getEpochSecond()).setNanos(instant.getNano()).build();
+    }
+}
@@ -23,15 +23,21 @@
  */
 package io.acrosafe.wallet.hot.eth.repository;
 
+import java.time.Instant;
 import java.util.List;
 
 import io.acrosafe.wallet.hot.eth.domain.AccountRecord;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface AccountRecordRepository extends JpaRepository<AccountRecord, String>
 {
-    public List<AccountRecord> findAllByEnabledTrue(Pageable pageable);
-
     public List<AccountRecord> findAllByEnabledTrue();
+
+    // keyset page: seeks past (created_date, id) on idx_account_record_keyset instead of skipping offset rows.
+    @Query(value = "select * from account_record where enabled = true and (created_date, id) > (:createdDate, cast(:id as uuid)) "
+            + "order by created_date, id limit :limit", nativeQuery = true)
+    public List<AccountRecord> findEnabledAfter(@Param("createdDate") Instant createdDate, @Param("id") String id,
+            @Param("limit") int limit);
 }
@@ -23,15 +23,109 @@
  */
 package io.acrosafe.wallet.hot.eth.repository;
 
+import java.time.Instant;
 import java.util.List;
 
+
 import io.acrosafe.wallet.hot.eth.domain.AddressRecord;
+import io.acrosafe.wallet.hot.eth.domain.DeploymentStatus;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
 
 public interface AddressRecordRepository extends JpaRepository<AddressRecord, String>
 {
     public List<AddressRecord> findAllByAccountId(String accountId);
 
     public List<AddressRecord> findAllByAccountId(Pageable pageable, String accountId);
+
+    // keyset page of all records with an address, served by idx_address_record_created.
+    @Query(value = "select * from address_record where address is not null and (created_date, id) > "
+            + "(:createdDate, cast(:id as uuid)) order by created_date, id limit :limit", nativeQuery = true)
+    public List<AddressRecord> findWithAddressAfter(@Param("createdDate") Instant createdDate, @Param("id") String id,
+            @Param("limit") int limit);
+
+    // keyset page of the addresses assigned to an account, served by idx_address_record_keyset.
+    @Query(value = "select * from address_record where account_id = cast(:accountId as uuid) and assigned = true "
+            + "and (created_date, id) > (:createdDate, cast(:id as uuid)) order by created_date, id limit :limit", nativeQuery = true)
+    public List<AddressRecord> findAssignedAfter(@Param("accountId") String accountId,
+            @Param("createdDate") Instant createdDate, @Param("id") String id, @Param("limit") int limit);
+
+    @Query("select a from AddressRecord a where lower(a.address) = lower(:address)")
+    public List<AddressRecord> findAllByAddress(@Param("address") String address, Pageable pageable);
+
+    public List<AddressRecord> findAllByDeploymentStatusAndDeploymentAttemptsLessThan(DeploymentStatus deploymentStatus,
+            int deploymentAttempts, Pageable pageable);
+
+    public List<AddressRecord> findAllByDeploymentStatusAndDeploymentModifiedDateBefore(DeploymentStatus deploymentStatus,
+            Instant deploymentModifiedDate, Pageable pageable);
+
+    public List<AddressRecord> findAllByDeploymentStatusAndAddressIsNullAndCreatedDateBefore(
+            DeploymentStatus deploymentStatus, Instant createdDate, Pageable pageable);
+
+    // moves a deployment to SUBMITTED unless another worker has taken it since the record was read.
+    @Modifying
+    @Transactional
+    @Query("update AddressRecord a set a.deploymentStatus = :submitted, a.deploymentAttempts = a.deploymentAttempts + 1, "
+            + "a.deploymentModifiedDate = :modifiedDate where a.id = :id and a.deploymentStatus = :status "
+            + "and a.deploymentAttempts = :attempts and a.address is null")
+    public int markSubmitted(@Param("id") String id, @Param("status") DeploymentStatus status,
+            @Param("attempts") int attempts, @Param("submitted") DeploymentStatus submitted,
+            @Param("modifiedDate") Instant modifiedDate);
+
+    // refreshes the modified date of a SUBMITTED deployment once it actually starts, unless it has expired meanwhile.
+    @Modifying
+    @Transactional
+    @Query("update AddressRecord a set a.deploymentModifiedDate = :modifiedDate where a.id = :id "
+            + "and a.deploymentStatus = :submitted and a.deploymentAttempts = :attempts and a.address is null")
+    public int markStarted(@Param("id") String id, @Param("attempts") int attempts,
+            @Param("submitted") DeploymentStatus submitted, @Param("modifiedDate") Instant modifiedDate);
+
+    // fails a SUBMITTED deployment unless a later attempt has taken the record or an address is stored already.
+    @Modifying
+    @Transactional
+    @Query("update AddressRecord a set a.deploymentStatus = :failed, a.deploymentModifiedDate = :modifiedDate "
+            + "where a.id = :id and a.deploymentStatus = :submitted and a.deploymentAttempts = :attempts "
+            + "and a.address is null")
+    public int markFailed(@Param("id") String id, @Param("attempts") int attempts,
+            @Param("submitted") DeploymentStatus submitted, @Param("failed") DeploymentStatus failed,
+            @Param("modifiedDate") Instant modifiedDate);
+
+    // fails a SUBMITTED deployment that has not started or finished before given timeout.
+    @Modifying
+    @Transactional
+    @Query("update AddressRecord a set a.deploymentStatus = :failed, a.deploymentModifiedDate = :modifiedDate "
+            + "where a.id = :id and a.deploymentStatus = :submitted and a.deploymentAttempts = :attempts "
+            + "and a.address is null and a.deploymentModifiedDate < :timeout")
+    public int expireSubmitted(@Param("id") String id, @Param("attempts") int attempts,
+            @Param("submitted") DeploymentStatus submitted, @Param("failed") DeploymentStatus failed,
+            @Param("timeout") Instant timeout, @Param("modifiedDate") Instant modifiedDate);
+
+    // stores the deployed address unless a later attempt has taken the record or an address is stored already.
+    @Modifying
+    @Transactional
+    @Query("update AddressRecord a set a.address = :address, a.deploymentStatus = :deployed, "
+            + "a.deploymentModifiedDate = :modifiedDate where a.id = :id and a.deploymentAttempts = :attempts "
+            + "and a.address is null")
+    public int markDeployed(@Param("id") String id, @Param("address") String address, @Param("attempts") int attempts,
+            @Param("deployed") DeploymentStatus deployed, @Param("modifiedDate") Instant modifiedDate);
+
+    // unassigned records that are or may still become available, FAILED ones count until they run out of attempts.
+    @Query("select count(a) from AddressRecord a where a.accountId = :accountId and a.assigned = false "
+            + "and (a.deploymentStatus <> :failed or a.deploymentAttempts < :maxAttempts)")
+    public long countPoolRecords(@Param("accountId") String accountId, @Param("failed") DeploymentStatus failed,
+            @Param("maxAttempts") int maxAttempts);
+
+    public long countByAssignedFalseAndAddressIsNotNull();
+
+    public long countByAssignedFalseAndAddressIsNull();
+
+    // oldest deployed pool entries of an account. skip locked lets concurrent requests claim different entries.
+    @Query(value = "select * from address_record where account_id = cast(:accountId as uuid) and assigned = false "
+            + "and address is not null order by created_date limit :limit for update skip locked", nativeQuery = true)
+    public List<AddressRecord> findClaimable(@Param("accountId") String accountId, @Param("limit") int limit);
 }
@@ -23,16 +23,56 @@
  */
 package io.acrosafe.wallet.hot.eth.repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import javax.persistence.QueryHint;
+
+import io.acrosafe.wallet.core.eth.TransactionStatus;
 import io.acrosafe.wallet.hot.eth.domain.TransactionRecord;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface TransactionRecordRepository extends JpaRepository<TransactionRecord, String>
 {
     Optional<TransactionRecord> findFirstByTransactionId(String transactionId);
 
     List<TransactionRecord> findAllByAccountIdAndToken(Pageable pageable, String accountId, String token);
+
+    Optional<TransactionRecord> findFirstByAccountIdAndInternalTransactionId(String accountId,
+            String internalTransactionId);
+
+    // keyset page of an account's transactions for one token, served by idx_transaction_record_keyset.
+    @Query(value = "select * from transaction_record where account_id = cast(:accountId as uuid) and token = :token "
+            + "and (created_date, id) > (:createdDate, cast(:id as uuid)) order by created_date, id limit :limit", nativeQuery = true)
+    List<TransactionRecord> findAllAfter(@Param("accountId") String accountId, @Param("token") String token,
+            @Param("createdDate") Instant createdDate, @Param("id") String id, @Param("limit") int limit);
+
+    // the fetch size makes the postgres driver read through a server side cursor instead of buffering the whole
+    // result, so the stream must be consumed inside a transaction.
+    @QueryHints({ @QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false") })
+    @Query("select t from TransactionRecord t where t.accountId = :accountId and t.token = :token "
+            + "order by t.createdDate, t.id")
+    Stream<TransactionRecord> streamAll(@Param("accountId") String accountId, @Param("token") String token);
+
+    // oldest settled transactions first, grouped by account so one batch yields few archive members.
+    @Query("select t from TransactionRecord t where t.status = :status and t.createdDate < :createdDate "
+            + "order by t.accountId, t.token, t.createdDate, t.id")
+    List<TransactionRecord> findArchivable(@Param("status") TransactionStatus status,
+            @Param("createdDate") Instant createdDate, Pageable pageable);
+
+    @Modifying
+    @Query("delete from TransactionRecord t where t.id in :ids")
+    int deleteAllByIdIn(@Param("ids") List<String> ids);
 }
@@ -0,0 +1,51 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import io.acrosafe.wallet.hot.eth.domain.WebhookDeliveryRecord;
+import io.acrosafe.wallet.hot.eth.domain.WebhookDeliveryStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface WebhookDeliveryRecordRepository extends JpaRepository<WebhookDeliveryRecord, String>
+{
+    // due deliveries of one endpoint, including SENDING rows whose lease expired. skip locked lets several
+    // dispatchers claim disjoint batches, served by idx_webhook_delivery_record_due.
+    @Query(value = "select * from webhook_delivery_record where endpoint = :endpoint and status in ('PENDING', 'SENDING') "
+            + "and next_attempt_date <= :now order by next_attempt_date limit :limit for update skip locked", nativeQuery = true)
+    List<WebhookDeliveryRecord> findClaimable(@Param("endpoint") String endpoint, @Param("now") Instant now,
+            @Param("limit") int limit);
+
+    long countByStatusIn(List<WebhookDeliveryStatus> statuses);
+
+    @Modifying
+    @Query("delete from WebhookDeliveryRecord d where d.status = :status and d.createdDate < :createdDate")
+    int deleteByStatusAndCreatedDateBefore(@Param("status") WebhookDeliveryStatus status,
+            @Param("createdDate") Instant createdDate);
+}
@@ -23,19 +23,40 @@
  */
 package io.acrosafe.wallet.hot.eth.service;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.PostConstruct;
 
 import io.acrosafe.wallet.hot.eth.config.ApplicationProperties;
+import io.acrosafe.wallet.hot.eth.domain.AccountEventRecord;
 import io.acrosafe.wallet.hot.eth.domain.AccountRecord;
+import io.acrosafe.wallet.hot.eth.domain.AddressRecord;
+import io.acrosafe.wallet.hot.eth.domain.CompactUuidType;
+import io.acrosafe.wallet.hot.eth.repository.AccountEventRecordRepository;
 import io.acrosafe.wallet.hot.eth.repository.AccountRecordRepository;
+import io.acrosafe.wallet.hot.eth.repository.AddressRecordRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import io.acrosafe.wallet.core.eth.ETHAccount;
@@ -53,19 +74,70 @@ public class AccountCacheService
     @Autowired
     private AccountRecordRepository accountRecordRepository;
 
+    @Autowired
+    private AccountEventRecordRepository accountEventRecordRepository;
+
+    @Autowired
+    private AddressRecordRepository addressRecordRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private Map<String, ETHAccount> accounts = new ConcurrentHashMap<>();
 
+    // lower-cased on-chain address -> owner
+    private Map<String, AddressOwner> addressOwners = new ConcurrentHashMap<>();
+
+    // lower-cased on-chain address -> expiry in nanos of a DB lookup that found no owner, least recently used first.
+    private Map<String, Long> unknownAddresses = Collections.emptyMap();
+
+    private static final int ACCOUNT_EVENT_PAGE_SIZE = 500;
+
+    // newest event date seen so far, events are re-read from this date minus the poll overlap.
+    private volatile Instant lastAccountEventDate;
+
+    // ids of the events applied within the overlap window, so re-read events are not applied twice.
+    private final Map<Long, Instant> appliedAccountEvents = new ConcurrentHashMap<>();
+
+    private volatile double restoreThroughput;
+
     @PostConstruct
     public void initialize()
     {
+        Gauge.builder("wallet.account.restore.throughput", this, service -> service.restoreThroughput)
+                .description("number of accounts restored per second during startup").baseUnit("accounts/s")
+                .register(this.meterRegistry);
+        final int unknownAddressCacheSize = this.applicationProperties.getUnknownAddressCacheSize();
+        this.unknownAddresses = Collections.synchronizedMap(new LinkedHashMap<String, Long>(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest)
+            {
+                return size() > unknownAddressCacheSize;
+            }
+        });
+
         try
         {
+            // events recorded while restoring are replayed by the poller, so take the watermark first.
+            this.lastAccountEventDate = Instant.now();
             restoreAccounts();
         }
         catch (Throwable t)
         {
             logger.error("failed to load accounts.", t);
         }
+
+        try
+        {
+            restoreAddressOwners();
+        }
+        catch (Throwable t)
+        {
+            logger.error("failed to load address index.", t);
+        }
     }
 
     public void addAccountToCache(String accountId, ETHAccount account)
@@ -73,37 +145,277 @@ public class AccountCacheService
         accounts.put(accountId, account);
     }
 
+    /**
+     * Returns whether given account is loaded in this cache, without a DB lookup.
+     *
+     * @param accountId
+     * @return
+     */
+    public boolean isCached(String accountId)
+    {
+        return accounts.containsKey(accountId);
+    }
+
+    public Set<String> getAccountIds()
+    {
+        return Collections.unmodifiableSet(accounts.keySet());
+    }
+
+    public void removeAccountFromCache(String accountId)
+    {
+        accounts.remove(accountId);
+    }
+
     public ETHAccount getAccount(String accountId) throws AccountNotFoundException
     {
         ETHAccount account = this.accounts.get(accountId);
         if (account == null)
         {
-            throw new AccountNotFoundException("failed to find enterprise account " + accountId);
+            if (!CompactUuidType.isValid(accountId))
+            {
+                throw new AccountNotFoundException("failed to find enterprise account " + accountId);
+            }
+
+            // the account may have been created on another instance and its event is not polled yet.
+            AccountRecord accountRecord = this.accountRecordRepository.findById(accountId).orElse(null);
+            if (accountRecord == null || !accountRecord.isEnabled())
+            {
+                throw new AccountNotFoundException("failed to find enterprise account " + accountId);
+            }
+
+            account = this.accounts.computeIfAbsent(accountId, id -> buildAccount(accountRecord));
+            logger.info("loaded enterprise account {} on cache miss.", accountId);
         }
 
         return account;
     }
 
-    private void restoreAccounts()
+    /**
+     * Adds the deployed address of given record to the reverse address index.
+     *
+     * @param addressRecord
+     */
+    public void addAddressToIndex(AddressRecord addressRecord)
+    {
+        if (addressRecord.getAddress() != null)
+        {
+            final String key = addressRecord.getAddress().toLowerCase(Locale.ROOT);
+            this.addressOwners.put(key,
+                    new AddressOwner(addressRecord.getAccountId(), addressRecord.getId(), addressRecord.getAddress()));
+            this.unknownAddresses.remove(key);
+        }
+    }
+
+    /**
+     * Returns the account and address record that own given on-chain address, or null if the address doesn't belong
+     * to this wallet. Addresses deployed by other instances are looked up in DB once and indexed afterwards. Misses
+     * are remembered for application.unknown-address-cache-ttl milliseconds, so an address created on another instance
+     * is found at most that much later.
+     *
+     * @param address
+     * @return
+     */
+    public AddressOwner getAddressOwner(String address)
+    {
+        if (address == null)
+        {
+            return null;
+        }
+
+        final String key = address.toLowerCase(Locale.ROOT);
+        AddressOwner owner = this.addressOwners.get(key);
+        if (owner == null)
+        {
+            final Long expiry = this.unknownAddresses.get(key);
+            if (expiry != null && expiry - System.nanoTime() > 0)
+            {
+                return null;
+            }
+
+            // the oldest record wins should the address ever be stored twice.
+            Pageable pageable = PageRequest.of(0, 1, Sort.by(Sort.Direction.ASC, "createdDate", "id"));
+            List<AddressRecord> addressRecords = this.addressRecordRepository.findAllByAddress(address, pageable);
+            if (addressRecords.isEmpty())
+            {
+                this.unknownAddresses.put(key, System.nanoTime()
+                        + TimeUnit.MILLISECONDS.toNanos(this.applicationProperties.getUnknownAddressCacheTtl()));
+            }
+            else
+            {
+                addAddressToIndex(addressRecords.get(0));
+                owner = this.addressOwners.get(key);
+            }
+        }
+
+        return owner;
+    }
+
+    /**
+     * Applies account events recorded by any wallet instance since the last poll, so accounts created or disabled
+     * elsewhere become visible here without a restart.
+     *
+     * An event becomes visible when its transaction commits, which may be after events with a later date were already
+     * read. Every poll therefore re-reads the events of the last application.account-event-poll-overlap milliseconds
+     * and skips the ones it has applied before.
+     */
+    @Scheduled(fixedDelayString = "${application.account-event-poll-interval:250}")
+    public void pollAccountEvents()
     {
-        List<AccountRecord> accountRecords = this.accountRecordRepository.findAllByEnabledTrue();
+        final long overlap = this.applicationProperties.getAccountEventPollOverlap();
+        final Instant since = this.lastAccountEventDate.minusMillis(overlap);
 
-        if (accountRecords != null && accountRecords.size() != 0)
+        int pageId = 0;
+        List<AccountEventRecord> events;
+        do
         {
-            for (AccountRecord accountRecord : accountRecords)
+            Pageable pageable =
+                    PageRequest.of(pageId++, ACCOUNT_EVENT_PAGE_SIZE, Sort.by(Sort.Direction.ASC, "createdDate", "id"));
+            events = this.accountEventRecordRepository.findAllByCreatedDateGreaterThanEqual(since, pageable);
+            for (AccountEventRecord event : events)
             {
-                if (accountRecord.isEnabled())
+                if (this.appliedAccountEvents.putIfAbsent(event.getId(), event.getCreatedDate()) != null)
+                {
+                    continue;
+                }
+
+                try
+                {
+                    applyAccountEvent(event);
+                }
+                catch (Throwable t)
                 {
-                    final String encryptedSeed = accountRecord.getSeed();
-                    final byte[] spec = Base64.getDecoder().decode(accountRecord.getSpec());
-                    final byte[] salt = Base64.getDecoder().decode(accountRecord.getSalt());
-                    final String address = accountRecord.getAddress();
-                    ETHAccount account = new ETHAccount(encryptedSeed, spec, salt, applicationProperties.getTestnet(), address);
-
-                    this.accounts.put(accountRecord.getId(), account);
-                    logger.info("restored enterprise account {}.", accountRecord.getId());
+                    // we will let it continue, a missing account is still loaded on demand.
+                    logger.warn("failed to apply account event {} for account {}.", event.getId(), event.getAccountId(), t);
+                }
+                if (event.getCreatedDate().isAfter(this.lastAccountEventDate))
+                {
+                    this.lastAccountEventDate = event.getCreatedDate();
                 }
             }
         }
+        while (events.size() == ACCOUNT_EVENT_PAGE_SIZE);
+
+        final Instant threshold = this.lastAccountEventDate.minusMillis(overlap);
+        this.appliedAccountEvents.values().removeIf(createdDate -> createdDate.isBefore(threshold));
+    }
+
+    @Scheduled(cron = "0 0 * * * *")
+    public void purgeAccountEvents()
+    {
+        final Instant threshold =
+                Instant.now().minus(this.applicationProperties.getAccountEventRetention(), ChronoUnit.HOURS);
+        final int deleted = this.accountEventRecordRepository.deleteAllCreatedBefore(threshold);
+        logger.debug("purged {} account events created before {}.", deleted, threshold);
+    }
+
+    private void applyAccountEvent(AccountEventRecord event)
+    {
+        final String accountId = event.getAccountId();
+        switch (event.getEventType())
+        {
+            case CREATED:
+                if (!this.accounts.containsKey(accountId))
+                {
+                    this.accountRecordRepository.findById(accountId).filter(AccountRecord::isEnabled)
+                            .ifPresent(accountRecord -> this.accounts.putIfAbsent(accountId, buildAccount(accountRecord)));
+                    logger.info("enterprise account {} is added to cache by account event {}.", accountId, event.getId());
+                }
+                break;
+            case DISABLED:
+                if (this.accounts.remove(accountId) != null)
+                {
+                    logger.info("enterprise account {} is removed from cache by account event {}.", accountId,
+                            event.getId());
+                }
+                break;
+            default:
+                logger.warn("unknown account event type {}.", event.getEventType());
+        }
+    }
+
+    /**
+     * Restores all enabled accounts into the cache. Account records are read page by page and each page is turned into
+     * {@link ETHAccount} instances on a dedicated fork-join pool, so warm-up time scales with the number of cores.
+     */
+    private void restoreAccounts() throws InterruptedException
+    {
+        final int parallelism = Math.max(1, this.applicationProperties.getRestoreParallelism());
+        final int pageSize = Math.max(1, this.applicationProperties.getRestorePageSize());
+        final AtomicInteger restored = new AtomicInteger();
+        final long start = System.nanoTime();
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try
+        {
+            PageCursor cursor = PageCursor.first();
+            List<AccountRecord> accountRecords;
+            do
+            {
+                accountRecords = this.accountRecordRepository.findEnabledAfter(cursor.getCreatedDate(), cursor.getId(),
+                        pageSize);
+                if (!accountRecords.isEmpty())
+                {
+                    AccountRecord last = accountRecords.get(accountRecords.size() - 1);
+                    cursor = new PageCursor(last.getCreatedDate(), last.getId());
+                }
+
+                final List<AccountRecord> page = accountRecords;
+                pool.submit(() -> page.parallelStream().forEach(accountRecord -> {
+                    if (accountRecord.isEnabled())
+                    {
+                        this.accounts.put(accountRecord.getId(), buildAccount(accountRecord));
+                        restored.incrementAndGet();
+                        logger.debug("restored enterprise account {}.", accountRecord.getId());
+                    }
+                })).get();
+            }
+            while (accountRecords.size() == pageSize);
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException("failed to restore accounts.", e.getCause());
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        final long elapsed = Math.max(1L, System.nanoTime() - start);
+        this.restoreThroughput = restored.get() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+        logger.info("restored {} enterprise accounts in {} ms using {} threads. throughput = {} accounts/s", restored.get(),
+                TimeUnit.NANOSECONDS.toMillis(elapsed), parallelism, String.format("%.1f", this.restoreThroughput));
+    }
+
+    private void restoreAddressOwners()
+    {
+        final int pageSize = Math.max(1, this.applicationProperties.getRestorePageSize());
+
+        // keyset pages, each page seeks past the last row of the previous one instead of skipping rows.
+        PageCursor cursor = PageCursor.first();
+        List<AddressRecord> addressRecords;
+        do
+        {
+            addressRecords = this.addressRecordRepository.findWithAddressAfter(cursor.getCreatedDate(), cursor.getId(),
+                    pageSize);
+            addressRecords.forEach(this::addAddressToIndex);
+            if (!addressRecords.isEmpty())
+            {
+                final AddressRecord last = addressRecords.get(addressRecords.size() - 1);
+                cursor = new PageCursor(last.getCreatedDate(), last.getId());
+            }
+        }
+        while (addressRecords.size() == pageSize);
+
+        logger.info("indexed {} receiving addresses.", this.addressOwners.size());
+    }
+
+    private ETHAccount buildAccount(AccountRecord accountRecord)
+    {
+        final String encryptedSeed = accountRecord.getSeed();
+        final byte[] spec = Base64.getDecoder().decode(accountRecord.getSpec());
+        final byte[] salt = Base64.getDecoder().decode(accountRecord.getSalt());
+        final String address = accountRecord.getAddress();
+
+        return new ETHAccount(encryptedSeed, spec, salt, this.applicationProperties.getTestnet(), address);
     }
 }
@@ -2,36 +2,64 @@ package io.acrosafe.wallet.hot.eth.service;
 
 import io.acrosafe.wallet.core.eth.CryptoUtils;
 import io.acrosafe.wallet.core.eth.ETHAccount;
-import io.acrosafe.wallet.core.eth.IDGenerator;
 import io.acrosafe.wallet.core.eth.SeedGenerator;
 import io.acrosafe.wallet.core.eth.SignedTransaction;
+import io.acrosafe.wallet.core.eth.TransactionStatus;
 import io.acrosafe.wallet.core.eth.exception.AccountNotFoundException;
-import io.acrosafe.wallet.core.eth.exception.ContractCreationException;
 import io.acrosafe.wallet.core.eth.exception.CryptoException;
 import io.acrosafe.wallet.core.eth.exception.InvalidCredentialException;
 import io.acrosafe.wallet.hot.eth.config.ApplicationProperties;
+import io.acrosafe.wallet.hot.eth.config.AsyncConfiguration;
+import io.acrosafe.wallet.hot.eth.config.Workload;
+import io.acrosafe.wallet.hot.eth.config.WorkloadType;
+import io.acrosafe.wallet.hot.eth.domain.AccountEventRecord;
+import io.acrosafe.wallet.hot.eth.domain.AccountEventType;
 import io.acrosafe.wallet.hot.eth.domain.AccountRecord;
 import io.acrosafe.wallet.hot.eth.domain.AddressRecord;
+import io.acrosafe.wallet.hot.eth.domain.DeploymentStatus;
+import io.acrosafe.wallet.hot.eth.domain.CompactUuidType;
+import io.acrosafe.wallet.hot.eth.exception.InvalidAddressCountException;
 import io.acrosafe.wallet.hot.eth.exception.InvalidCoinSymbolException;
+import io.acrosafe.wallet.hot.eth.exception.InvalidContinuationTokenException;
+import io.acrosafe.wallet.hot.eth.exception.InvalidDateRangeException;
+import io.acrosafe.wallet.hot.eth.exception.WithdrawalPendingException;
+import io.acrosafe.wallet.hot.eth.repository.AccountEventRecordRepository;
 import io.acrosafe.wallet.hot.eth.repository.AccountRecordRepository;
+import io.acrosafe.wallet.hot.eth.domain.TransactionRecord;
+import io.acrosafe.wallet.hot.eth.domain.TransactionSummaryRecord;
 import io.acrosafe.wallet.hot.eth.repository.AddressRecordRepository;
+import io.acrosafe.wallet.hot.eth.repository.TransactionRecordRepository;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.web3j.protocol.core.methods.response.EthSendTransaction;
 
 import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigInteger;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class AccountService
@@ -59,6 +87,36 @@ public class AccountService
     @Autowired
     private AddressRecordRepository addressRecordRepository;
 
+    @Autowired
+    private AccountEventRecordRepository accountEventRecordRepository;
+
+    @Autowired
+    private TransactionRecordRepository transactionRecordRepository;
+
+    @Autowired
+    private TransactionArchiveService transactionArchiveService;
+
+    @Autowired
+    private TransactionSummaryService transactionSummaryService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private AddressPoolService addressPoolService;
+
+    @Autowired
+    private ForwarderFactoryService forwarderFactoryService;
+
+    @Autowired
+    private ContractDeploymentQueue contractDeploymentQueue;
+
+    @Autowired
+    private AdvisoryLockService advisoryLockService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @PostConstruct
     public void initialize()
     {
@@ -108,14 +166,14 @@ public class AccountService
             throw new CryptoException("Invalid crypto operation.", t);
         }
 
-        final String id = IDGenerator.randomUUID().toString();
+        final String id = TimeOrderedIdGenerator.generate();
         ETHAccount account = new ETHAccount(encryptedSeed, spec, ownerSalt, this.applicationProperties.getTestnet(),
                 this.applicationProperties.getPassphrase());
 
         AccountRecord enterpriseAccountRecord = new AccountRecord();
         enterpriseAccountRecord.setId(id);
         enterpriseAccountRecord.setLabel(label);
-        enterpriseAccountRecord.setEnabled(true);
+        enterpriseAccountRecord.setEnabled(enabled);
         enterpriseAccountRecord.setSeed(encryptedSeed);
         enterpriseAccountRecord.setSpec(encodedSpec);
         enterpriseAccountRecord.setSalt(encodedOwnerSalt);
@@ -123,15 +181,64 @@ public class AccountService
         enterpriseAccountRecord.setCreatedDate(Instant.now());
 
         this.accountRecordRepository.save(enterpriseAccountRecord);
+        saveAccountEvent(id, AccountEventType.CREATED);
 
-        this.accountCacheService.addAccountToCache(id, account);
+        if (enabled)
+        {
+            this.accountCacheService.addAccountToCache(id, account);
+        }
 
         return enterpriseAccountRecord;
     }
 
+    /**
+     * Disables given enterprise account. The account is evicted from the cache here and, through its DISABLED account
+     * event, on every other wallet instance.
+     *
+     * @param accountId
+     * @return
+     * @throws AccountNotFoundException
+     */
+    @Transactional
+    public AccountRecord disableAccount(String accountId) throws AccountNotFoundException
+    {
+        AccountRecord accountRecord = null;
+        if (CompactUuidType.isValid(accountId))
+        {
+            accountRecord = this.accountRecordRepository.findById(accountId).orElse(null);
+        }
+        if (accountRecord == null)
+        {
+            throw new AccountNotFoundException("failed to find enterprise account " + accountId);
+        }
+
+        if (accountRecord.isEnabled())
+        {
+            accountRecord.setEnabled(false);
+            this.accountRecordRepository.save(accountRecord);
+            saveAccountEvent(accountId, AccountEventType.DISABLED);
+        }
+        this.accountCacheService.removeAccountFromCache(accountId);
+
+        return accountRecord;
+    }
+
+    /**
+     * Creates new receiving address for given account. When a forwarder factory is configured the final CREATE2
+     * address is computed locally and the contract is only deployed once funds arrive. Otherwise a pre-deployed
+     * forwarder contract is assigned from the address pool when available, or a new contract is deployed asynchronously
+     * and the returned record has no address yet.
+     *
+     * @param symbol
+     * @param label
+     * @param accountId
+     * @return
+     * @throws AccountNotFoundException
+     * @throws InvalidCoinSymbolException
+     */
     @Transactional
-    public String createReceivingAddress(String symbol, String label, String accountId)
-            throws ContractCreationException, AccountNotFoundException, InvalidCoinSymbolException
+    public AddressRecord createReceivingAddress(String symbol, String label, String accountId)
+            throws AccountNotFoundException, InvalidCoinSymbolException
     {
         if (StringUtils.isEmpty(symbol) || !symbol.equalsIgnoreCase(ETH_SYMBOL))
         {
@@ -139,29 +246,382 @@ public class AccountService
         }
         ETHAccount account = this.accountCacheService.getAccount(accountId);
 
-        final String id = IDGenerator.randomUUID().toString();
+        if (this.forwarderFactoryService.isEnabled())
+        {
+            return createCounterfactualAddress(label, accountId, account);
+        }
+
+        AddressRecord pooledAddressRecord = this.addressPoolService.claimAddress(accountId, label);
+        if (pooledAddressRecord != null)
+        {
+            return pooledAddressRecord;
+        }
+
+        AddressRecord addressRecord = newAddressRecord(accountId, label);
+        this.addressRecordRepository.save(addressRecord);
+
+        logger.info("new address record {} is created.", addressRecord.getId());
+        afterCommit(() -> this.blockChainService.deployAddressContract(addressRecord.getId(), DeploymentStatus.PENDING,
+                0, account.getCredentials(this.applicationProperties.getPassphrase()), account.getAddress()));
+
+        return addressRecord;
+    }
+
+    /**
+     * Creates given number of receiving addresses for given account in one go. All new address records are inserted
+     * in a single JDBC batch and their deployments are scheduled together once the batch is committed.
+     *
+     * @param symbol
+     * @param label
+     * @param count
+     * @param accountId
+     * @return
+     * @throws AccountNotFoundException
+     * @throws InvalidCoinSymbolException
+     * @throws InvalidAddressCountException
+     */
+    @Transactional
+    public List<AddressRecord> createReceivingAddresses(String symbol, String label, Integer count, String accountId)
+            throws AccountNotFoundException, InvalidCoinSymbolException, InvalidAddressCountException
+    {
+        if (StringUtils.isEmpty(symbol) || !symbol.equalsIgnoreCase(ETH_SYMBOL))
+        {
+            throw new InvalidCoinSymbolException("coin symbol is not valid.");
+        }
+
+        final int maxCount = this.applicationProperties.getMaxBulkAddressCount();
+        if (count == null || count <= 0 || count > maxCount)
+        {
+            throw new InvalidAddressCountException("address count must be between 1 and " + maxCount + ".");
+        }
+        final ETHAccount account = this.accountCacheService.getAccount(accountId);
+        final boolean counterfactual = this.forwarderFactoryService.isEnabled();
+
+        List<AddressRecord> addressRecords = new ArrayList<>(count);
+        if (!counterfactual)
+        {
+            AddressRecord pooledAddressRecord;
+            while (addressRecords.size() < count
+                    && (pooledAddressRecord = this.addressPoolService.claimAddress(accountId, label)) != null)
+            {
+                addressRecords.add(pooledAddressRecord);
+            }
+        }
+
+        final List<AddressRecord> newAddressRecords = new ArrayList<>(count - addressRecords.size());
+        for (int i = addressRecords.size(); i < count; i++)
+        {
+            AddressRecord addressRecord = newAddressRecord(accountId, label);
+            if (counterfactual)
+            {
+                addressRecord.setAddress(
+                        this.forwarderFactoryService.computeAddress(account.getAddress(), addressRecord.getId()));
+            }
+            newAddressRecords.add(addressRecord);
+        }
+        this.addressRecordRepository.saveAll(newAddressRecords);
+        this.addressRecordRepository.flush();
+        addressRecords.addAll(newAddressRecords);
+        logger.info("{} new address records are created for account {}.", newAddressRecords.size(), accountId);
+
+        if (counterfactual)
+        {
+            final boolean eager = this.forwarderFactoryService.isEagerDeployment();
+            afterCommit(() -> {
+                for (AddressRecord addressRecord : newAddressRecords)
+                {
+                    this.accountCacheService.addAddressToIndex(addressRecord);
+                    this.blockChainService.subscribeToEtherEvent(addressRecord.getAddress());
+                    if (eager)
+                    {
+                        this.contractDeploymentQueue.enqueue(addressRecord.getId());
+                    }
+                }
+            });
+        }
+        else
+        {
+            afterCommit(() -> {
+                for (AddressRecord addressRecord : newAddressRecords)
+                {
+                    try
+                    {
+                        this.blockChainService.deployAddressContract(addressRecord.getId(),
+                                DeploymentStatus.PENDING, 0,
+                                account.getCredentials(this.applicationProperties.getPassphrase()), account.getAddress());
+                    }
+                    catch (Throwable t)
+                    {
+                        logger.warn("failed to schedule deployment of address record {}.", addressRecord.getId(), t);
+                    }
+                }
+            });
+        }
+
+        return addressRecords;
+    }
+
+    private AddressRecord createCounterfactualAddress(String label, String accountId, ETHAccount account)
+    {
+        AddressRecord addressRecord = newAddressRecord(accountId, label);
+        final String id = addressRecord.getId();
+        addressRecord.setAddress(this.forwarderFactoryService.computeAddress(account.getAddress(), id));
+        this.addressRecordRepository.save(addressRecord);
+
+        // a rolled back record must not be watched or indexed.
+        final boolean eager = this.forwarderFactoryService.isEagerDeployment();
+        afterCommit(() -> {
+            this.accountCacheService.addAddressToIndex(addressRecord);
+            this.blockChainService.subscribeToEtherEvent(addressRecord.getAddress());
+            if (eager)
+            {
+                this.contractDeploymentQueue.enqueue(id);
+            }
+        });
+
+        logger.info("new counterfactual address record {} is created. address = {}", id, addressRecord.getAddress());
+        return addressRecord;
+    }
+
+    private AddressRecord newAddressRecord(String accountId, String label)
+    {
         AddressRecord addressRecord = new AddressRecord();
-        addressRecord.setId(id);
+        addressRecord.setId(TimeOrderedIdGenerator.generate());
         addressRecord.setAccountId(accountId);
         addressRecord.setCreatedDate(Instant.now());
         if (!StringUtils.isEmpty(label))
         {
             addressRecord.setLabel(label);
         }
-        this.addressRecordRepository.save(addressRecord);
 
-        logger.info("new address record {} is created.", id);
-        this.blockChainService.deployAddressContract(id, account.getCredentials(this.applicationProperties.getPassphrase()),
-                account.getAddress());
+        return addressRecord;
+    }
 
-        return id;
+    private void saveAccountEvent(String accountId, AccountEventType eventType)
+    {
+        AccountEventRecord accountEventRecord = new AccountEventRecord();
+        accountEventRecord.setAccountId(accountId);
+        accountEventRecord.setEventType(eventType);
+        accountEventRecord.setCreatedDate(Instant.now());
+        this.accountEventRecordRepository.save(accountEventRecord);
     }
 
-    @Transactional
-    public List<AccountRecord> getAccounts(int pageId, int size)
+    /**
+     * Runs given task once the current transaction is committed. Deployments read their address record back, so they
+     * must not start before the record is visible, and a rolled back record must not be subscribed to.
+     *
+     * @param task
+     */
+    private void afterCommit(Runnable task)
     {
-        Pageable pageable = PageRequest.of(pageId, size, Sort.by(Sort.Direction.ASC, "CreatedDate"));
-        return this.accountRecordRepository.findAllByEnabledTrue(pageable);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter()
+        {
+            @Override
+            public void afterCommit()
+            {
+                task.run();
+            }
+        });
+    }
+
+    /**
+     * Returns one page of enabled accounts ordered by (created_date, id).
+     *
+     * @param continuation
+     * @param size
+     * @return
+     * @throws InvalidContinuationTokenException
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<AccountRecord> getAccounts(String continuation, int size) throws InvalidContinuationTokenException
+    {
+        final PageCursor cursor = PageCursor.decode(continuation);
+        final int limit = getPageSize(size);
+
+        List<AccountRecord> accountRecords = this.accountRecordRepository.findEnabledAfter(cursor.getCreatedDate(),
+                cursor.getId(), limit + 1);
+        return KeysetPage.of(accountRecords, limit, record -> new PageCursor(record.getCreatedDate(), record.getId()));
+    }
+
+    /**
+     * Returns one page of receiving addresses assigned to given account ordered by (created_date, id).
+     *
+     * @param accountId
+     * @param continuation
+     * @param size
+     * @return
+     * @throws AccountNotFoundException
+     * @throws InvalidContinuationTokenException
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<AddressRecord> getReceivingAddresses(String accountId, String continuation, int size)
+            throws AccountNotFoundException, InvalidContinuationTokenException
+    {
+        this.accountCacheService.getAccount(accountId);
+
+        final PageCursor cursor = PageCursor.decode(continuation);
+        final int limit = getPageSize(size);
+
+        List<AddressRecord> addressRecords = this.addressRecordRepository.findAssignedAfter(accountId,
+                cursor.getCreatedDate(), cursor.getId(), limit + 1);
+        return KeysetPage.of(addressRecords, limit, record -> new PageCursor(record.getCreatedDate(), record.getId()));
+    }
+
+    /**
+     * Returns one page of transactions of given account and token ordered by (created_date, id). Archived
+     * transactions are merged in, so the page looks the same whether rows were archived or not. Live rows are read
+     * before archived ones, a row archived in between shows up in both and is only kept once.
+     *
+     * @param symbol
+     * @param accountId
+     * @param continuation
+     * @param size
+     * @return
+     * @throws AccountNotFoundException
+     * @throws InvalidCoinSymbolException
+     * @throws InvalidContinuationTokenException
+     * @throws IOException
+     */
+    public KeysetPage<TransactionRecord> getTransactions(String symbol, String accountId, String continuation, int size)
+            throws AccountNotFoundException, InvalidCoinSymbolException, InvalidContinuationTokenException, IOException
+    {
+        validateTransactionQuery(symbol, accountId);
+
+        final PageCursor cursor = PageCursor.decode(continuation);
+        final int limit = getPageSize(size);
+
+        List<TransactionRecord> transactionRecords = this.transactionRecordRepository.findAllAfter(accountId, ETH_SYMBOL,
+                cursor.getCreatedDate(), cursor.getId(), limit + 1);
+        List<TransactionRecord> archivedRecords = this.transactionArchiveService.getArchivedTransactions(accountId,
+                ETH_SYMBOL, cursor, limit + 1);
+        if (!archivedRecords.isEmpty())
+        {
+            final Set<String> ids = transactionRecords.stream().map(TransactionRecord::getId).collect(Collectors.toSet());
+            List<TransactionRecord> mergedRecords = new ArrayList<>(transactionRecords);
+            archivedRecords.stream().filter(record -> !ids.contains(record.getId())).forEach(mergedRecords::add);
+            mergedRecords.sort(TransactionArchiveService.KEYSET_ORDER);
+            transactionRecords = mergedRecords.subList(0, Math.min(mergedRecords.size(), limit + 1));
+        }
+        return KeysetPage.of(transactionRecords, limit,
+                record -> new PageCursor(record.getCreatedDate(), record.getId()));
+    }
+
+    /**
+     * Streams all transactions of given account and token ordered by (created_date, id) to given handler. Archived
+     * transactions come first, then rows are read through a database cursor and detached once handled, so memory use
+     * does not grow with the history size. Only the cursor holds a read-only transaction open.
+     *
+     * @param symbol
+     * @param accountId
+     * @param handler
+     * @return number of streamed transactions.
+     * @throws AccountNotFoundException
+     * @throws InvalidCoinSymbolException
+     * @throws IOException
+     */
+    public long streamTransactions(String symbol, String accountId, TransactionRecordHandler handler)
+            throws AccountNotFoundException, InvalidCoinSymbolException, IOException
+    {
+        validateTransactionQuery(symbol, accountId);
+
+        long count = this.transactionArchiveService.streamArchivedTransactions(accountId, ETH_SYMBOL, handler);
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(this.transactionManager);
+        transactionTemplate.setReadOnly(true);
+        try
+        {
+            count += transactionTemplate.execute(status -> streamLiveTransactions(accountId, handler));
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+
+        return count;
+    }
+
+    private long streamLiveTransactions(String accountId, TransactionRecordHandler handler)
+    {
+        long count = 0;
+        try (Stream<TransactionRecord> transactionRecords = this.transactionRecordRepository.streamAll(accountId,
+                ETH_SYMBOL))
+        {
+            Iterator<TransactionRecord> iterator = transactionRecords.iterator();
+            while (iterator.hasNext())
+            {
+                TransactionRecord transactionRecord = iterator.next();
+                handler.handle(transactionRecord);
+                this.entityManager.detach(transactionRecord);
+                count++;
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the daily transaction summaries of given account and token between from and to, both inclusive. Days
+     * without activity have no summary.
+     *
+     * @param symbol
+     * @param accountId
+     * @param from
+     * @param to
+     * @return
+     * @throws AccountNotFoundException
+     * @throws InvalidCoinSymbolException
+     * @throws InvalidDateRangeException
+     */
+    public List<TransactionSummaryRecord> getTransactionSummaries(String symbol, String accountId, LocalDate from,
+            LocalDate to) throws AccountNotFoundException, InvalidCoinSymbolException, InvalidDateRangeException
+    {
+        validateTransactionQuery(symbol, accountId);
+
+        if (from == null || to == null || from.isAfter(to)
+                || ChronoUnit.DAYS.between(from, to) >= this.applicationProperties.getMaxSummaryDays())
+        {
+            throw new InvalidDateRangeException("summary date range is not valid.");
+        }
+
+        return this.transactionSummaryService.getSummaries(accountId, ETH_SYMBOL, from, to);
+    }
+
+    /**
+     * Verifies the coin symbol and account of a transaction history query.
+     *
+     * @param symbol
+     * @param accountId
+     * @throws AccountNotFoundException
+     * @throws InvalidCoinSymbolException
+     */
+    public void validateTransactionQuery(String symbol, String accountId)
+            throws AccountNotFoundException, InvalidCoinSymbolException
+    {
+        if (StringUtils.isEmpty(symbol) || !symbol.equalsIgnoreCase(ETH_SYMBOL))
+        {
+            throw new InvalidCoinSymbolException("coin symbol is not valid.");
+        }
+        validateAccount(accountId);
+    }
+
+    /**
+     * Verifies that given account exists and is enabled.
+     *
+     * @param accountId
+     * @throws AccountNotFoundException
+     */
+    public void validateAccount(String accountId) throws AccountNotFoundException
+    {
+        this.accountCacheService.getAccount(accountId);
+    }
+
+    private int getPageSize(int size)
+    {
+        return Math.max(1, Math.min(size, this.applicationProperties.getMaxPageSize()));
     }
 
     @Transactional
@@ -179,6 +639,66 @@ public class AccountService
         return this.blockChainService.getBalances(account.getAddress(), null);
     }
 
+    /**
+     * Asynchronous variant of {@link #getBalances(String)}, no thread waits for the node while the balance is read.
+     *
+     * @param accountId
+     * @return
+     */
+    public CompletableFuture<Map<String, BigInteger>> getBalancesAsync(String accountId)
+    {
+        final ETHAccount account;
+        try
+        {
+            account = this.accountCacheService.getAccount(accountId);
+        }
+        catch (AccountNotFoundException e)
+        {
+            CompletableFuture<Map<String, BigInteger>> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        return this.blockChainService.getBalancesAsync(account.getAddress());
+    }
+
+    /**
+     * Asynchronous variant of {@link #getAccountAddress(String)}, runs on the node call executor.
+     *
+     * @param accountId
+     * @return
+     * @throws AccountNotFoundException
+     */
+    @Async(AsyncConfiguration.NODE_CALL_EXECUTOR)
+    public CompletableFuture<String> getAccountAddressAsync(String accountId) throws AccountNotFoundException
+    {
+        return CompletableFuture.completedFuture(getAccountAddress(accountId));
+    }
+
+    /**
+     * Asynchronous variant of {@link #send(String, String, String, String, String)}, runs on the node call executor.
+     * Throws TaskRejectedException right away when the executor is saturated. A send with an internal transaction id
+     * that was already submitted returns the existing transaction instead of spending again.
+     *
+     * @param symbol
+     * @param accountId
+     * @param address
+     * @param amount
+     * @param internalTransactionId
+     * @return
+     * @throws InvalidCoinSymbolException
+     * @throws AccountNotFoundException
+     * @throws WithdrawalPendingException
+     */
+    @Async(AsyncConfiguration.NODE_CALL_EXECUTOR)
+    @Workload(WorkloadType.SIGNING)
+    public CompletableFuture<String> sendAsync(String symbol, String accountId, String address, String amount,
+            String internalTransactionId)
+            throws InvalidCoinSymbolException, AccountNotFoundException, WithdrawalPendingException
+    {
+        return CompletableFuture.completedFuture(send(symbol, accountId, address, amount, internalTransactionId));
+    }
+
     private void addBlockChainListener()
     {
         List<AddressRecord> addressRecords = this.addressRecordRepository.findAll();
@@ -192,8 +712,7 @@ public class AccountService
                     logger.info("restoring transactions for address {}", addressRecord.getAddress());
                     try
                     {
-                        final String accountId = addressRecord.getAccountId();
-                        this.blockChainService.subscribeToEtherEvent(address, accountId);
+                        this.blockChainService.subscribeToEtherEvent(address);
                     }
                     catch (Throwable t)
                     {
@@ -209,8 +728,9 @@ public class AccountService
         }
     }
 
-    public synchronized String send(String symbol, String accountId, String address, String amount, String internalTransactionId)
-            throws InvalidCoinSymbolException, AccountNotFoundException
+    @Workload(WorkloadType.SIGNING)
+    public String send(String symbol, String accountId, String address, String amount, String internalTransactionId)
+            throws InvalidCoinSymbolException, AccountNotFoundException, WithdrawalPendingException
     {
         if (StringUtils.isEmpty(symbol) || !symbol.equalsIgnoreCase(ETH_SYMBOL))
         {
@@ -219,9 +739,48 @@ public class AccountService
 
         ETHAccount account = this.accountCacheService.getAccount(accountId);
 
-        SignedTransaction signedTransaction = this.blockChainService.buildAndSignTransaction(accountId, account, address, amount, this.applicationProperties.getPassphrase());
-        logger.info("transaction signed. hex = {}", signedTransaction);
+        // forwarder deployments of this account take nonces too, see ContractDeploymentQueue.
+        try (AdvisoryLockService.Handle nonceLock = this.advisoryLockService.lockAccountNonce(account.getAddress()))
+        {
+            // retries of a request that timed out on the caller's side must not spend twice. Sends of one account are
+            // serialized by the nonce lock on every instance, so the lookup cannot race with the insert.
+            TransactionRecord existingRecord = null;
+            if (StringUtils.isNotEmpty(internalTransactionId))
+            {
+                existingRecord = this.transactionRecordRepository
+                        .findFirstByAccountIdAndInternalTransactionId(accountId, internalTransactionId).orElse(null);
+            }
 
-        return this.blockChainService.send(signedTransaction);
+            final SignedTransaction signedTransaction;
+            if (existingRecord == null)
+            {
+                signedTransaction = this.blockChainService.buildAndSignTransaction(accountId, account, address, amount,
+                        internalTransactionId, this.applicationProperties.getPassphrase());
+            }
+            else if (BlockChainService.isBroadcast(existingRecord))
+            {
+                logger.info("withdrawal {} of account {} was already submitted as {}.", internalTransactionId,
+                        accountId, existingRecord.getTransactionId());
+                return existingRecord.getTransactionId();
+            }
+            else if (existingRecord.getStatus() == TransactionStatus.FAILED)
+            {
+                // the node rejected the broadcast, nothing was spent.
+                logger.info("withdrawal {} of account {} was rejected before, signing it again.", internalTransactionId,
+                        accountId);
+                signedTransaction = this.blockChainService.resignTransaction(existingRecord, account,
+                        this.applicationProperties.getPassphrase());
+            }
+            else
+            {
+                // signed but the broadcast didn't finish, it may have reached the node. Signing again could spend
+                // twice.
+                throw new WithdrawalPendingException("withdrawal " + internalTransactionId + " of account " + accountId
+                        + " was signed but its broadcast did not complete.");
+            }
+            logger.info("transaction signed. hex = {}", signedTransaction);
+
+            return this.blockChainService.send(signedTransaction);
+        }
     }
 }
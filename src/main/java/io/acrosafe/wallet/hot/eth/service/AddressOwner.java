@@ -0,0 +1,65 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.service;
+
+/**
+ * Entry of the reverse address index, identifying the account and address record an on-chain address belongs to.
+ */
+public class AddressOwner
+{
+    private final String accountId;
+
+    private final String addressId;
+
+    private final String address;
+
+    /**
+     * Constructs new AddressOwner instance.
+     *
+     * @param accountId
+     * @param addressId
+     * @param address
+     */
+    public AddressOwner(String accountId, String addressId, String address)
+    {
+        this.accountId = accountId;
+        this.addressId = addressId;
+        this.address = address;
+    }
+
+    public String getAccountId()
+    {
+        return accountId;
+    }
+
+    public String getAddressId()
+    {
+        return addressId;
+    }
+
+    public String getAddress()
+    {
+        return address;
+    }
+}
@@ -0,0 +1,204 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import io.acrosafe.wallet.core.eth.ETHAccount;
+import io.acrosafe.wallet.hot.eth.config.ApplicationProperties;
+import io.acrosafe.wallet.hot.eth.domain.AddressRecord;
+import io.acrosafe.wallet.hot.eth.domain.DeploymentStatus;
+import io.acrosafe.wallet.hot.eth.repository.AddressRecordRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps a pool of pre-deployed forwarder contracts per account, so new receiving addresses can be handed out without
+ * waiting for a contract deployment. Pool entries are unassigned address records.
+ */
+@Service
+public class AddressPoolService
+{
+    // Logger
+    private static final Logger logger = LoggerFactory.getLogger(AddressPoolService.class);
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private AccountCacheService accountCacheService;
+
+    @Autowired
+    private BlockChainService blockChainService;
+
+    @Autowired
+    private ForwarderFactoryService forwarderFactoryService;
+
+    @Autowired
+    private AddressRecordRepository addressRecordRepository;
+
+    @Autowired
+    private AdvisoryLockService advisoryLockService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicLong availableAddresses = new AtomicLong();
+
+    private final AtomicLong pendingAddresses = new AtomicLong();
+
+    @PostConstruct
+    public void initialize()
+    {
+        Gauge.builder("wallet.address.pool.available", this.availableAddresses, AtomicLong::get)
+                .description("number of deployed forwarder contracts waiting to be assigned").register(this.meterRegistry);
+        Gauge.builder("wallet.address.pool.pending", this.pendingAddresses, AtomicLong::get)
+                .description("number of pooled forwarder contracts still being deployed").register(this.meterRegistry);
+    }
+
+    /**
+     * Assigns a deployed forwarder contract from the pool of given account.
+     *
+     * @param accountId
+     * @param label
+     * @return the claimed address record, or null if the pool is empty.
+     */
+    @Transactional
+    public AddressRecord claimAddress(String accountId, String label)
+    {
+        if (this.applicationProperties.getAddressPoolSize() <= 0)
+        {
+            return null;
+        }
+
+        List<AddressRecord> addressRecords = this.addressRecordRepository.findClaimable(accountId, 1);
+        if (addressRecords.isEmpty())
+        {
+            logger.info("address pool of account {} is empty.", accountId);
+            return null;
+        }
+
+        AddressRecord addressRecord = addressRecords.get(0);
+        addressRecord.setAssigned(true);
+        addressRecord.setClaimedDate(Instant.now());
+        if (!StringUtils.isEmpty(label))
+        {
+            addressRecord.setLabel(label);
+        }
+        this.addressRecordRepository.save(addressRecord);
+        this.availableAddresses.decrementAndGet();
+
+        logger.info("address record {} is assigned from pool of account {}.", addressRecord.getId(), accountId);
+        return addressRecord;
+    }
+
+    /**
+     * Tops up the pool of every enabled account. Records whose deployment is still in flight count towards the pool
+     * size, so a slow deployment doesn't cause the pool to be overfilled. Counting and creating the records of an
+     * account happens under an advisory lock, so two instances refilling at the same time don't both fill the gap.
+     */
+    @Scheduled(fixedDelayString = "${application.address-pool-refill-interval:60000}")
+    public void refill()
+    {
+        final int poolSize = this.applicationProperties.getAddressPoolSize();
+        if (poolSize <= 0 || this.forwarderFactoryService.isEnabled())
+        {
+            // counterfactual addresses are available instantly, there is nothing to pre-deploy.
+            return;
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(this.transactionManager);
+        for (String accountId : this.accountCacheService.getAccountIds())
+        {
+            try
+            {
+                final ETHAccount account = this.accountCacheService.getAccount(accountId);
+                final List<String> addressIds = transactionTemplate.execute(status -> createPoolRecords(accountId, poolSize));
+
+                // deployments read their record back, so they start once the records are committed.
+                for (String addressId : addressIds)
+                {
+                    this.blockChainService.deployAddressContract(addressId, DeploymentStatus.PENDING, 0,
+                            account.getCredentials(this.applicationProperties.getPassphrase()), account.getAddress());
+                }
+                if (!addressIds.isEmpty())
+                {
+                    logger.info("scheduled {} forwarder deployments for pool of account {}.", addressIds.size(), accountId);
+                }
+            }
+            catch (Throwable t)
+            {
+                // we will let it continue with other accounts.
+                logger.warn("failed to refill address pool of account {}.", accountId, t);
+            }
+        }
+
+        this.availableAddresses.set(this.addressRecordRepository.countByAssignedFalseAndAddressIsNotNull());
+        this.pendingAddresses.set(this.addressRecordRepository.countByAssignedFalseAndAddressIsNull());
+    }
+
+    private List<String> createPoolRecords(String accountId, int poolSize)
+    {
+        if (!this.advisoryLockService.tryLock(AdvisoryLockService.ADDRESS_POOL, accountId))
+        {
+            logger.debug("address pool of account {} is refilled by another instance.", accountId);
+            return Collections.emptyList();
+        }
+
+        // failed records are retried until they run out of attempts, only those that failed for good are not counted.
+        final long missing = poolSize - this.addressRecordRepository.countPoolRecords(accountId,
+                DeploymentStatus.FAILED, this.applicationProperties.getDeploymentMaxAttempts());
+
+        List<String> addressIds = new ArrayList<>();
+        for (int i = 0; i < missing; i++)
+        {
+            AddressRecord addressRecord = new AddressRecord();
+            addressRecord.setId(TimeOrderedIdGenerator.generate());
+            addressRecord.setAccountId(accountId);
+            addressRecord.setAssigned(false);
+            addressRecord.setCreatedDate(Instant.now());
+            this.addressRecordRepository.save(addressRecord);
+            addressIds.add(addressRecord.getId());
+        }
+        return addressIds;
+    }
+}
@@ -0,0 +1,191 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Transaction-scoped Postgres advisory locks, for work that must not run on two wallet instances at the same time.
+ */
+@Service
+public class AdvisoryLockService
+{
+    // Logger
+    private static final Logger logger = LoggerFactory.getLogger(AdvisoryLockService.class);
+
+    // refill of the address pool of one account.
+    public static final int ADDRESS_POOL = 1;
+
+    // nonces of one on-chain account, taken by withdrawals and forwarder deployments.
+    public static final int ACCOUNT_NONCE = 2;
+
+    // transaction archiving, one instance at a time.
+    public static final int TRANSACTION_ARCHIVE = 3;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // dedicated pool, a lock holder must not compete with its own signing work for a connection.
+    @Autowired
+    @Qualifier("lockDataSource")
+    private DataSource dataSource;
+
+    // threads of this instance queue here, so only one of them holds a connection while waiting for the lock. Entries
+    // are removed once nobody holds or waits for them.
+    private final Map<String, LocalLock> localLocks = new ConcurrentHashMap<>();
+
+    /**
+     * Tries to take the advisory lock of given class and key without waiting. The lock is held until the current
+     * transaction commits or rolls back.
+     *
+     * @param lockClass
+     * @param key
+     * @return true if the lock was taken, false if another transaction holds it.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean tryLock(int lockClass, String key)
+    {
+        return Boolean.TRUE.equals(this.jdbcTemplate.queryForObject("select pg_try_advisory_xact_lock(?, hashtext(?))",
+                Boolean.class, lockClass, key));
+    }
+
+    /**
+     * Takes the advisory lock of given class and key, waiting until it is free. The lock lives in a transaction of its
+     * own connection, so it is independent of the caller's transactions, and is released by closing the returned
+     * handle. Should the release fail, the pool rolls the connection back and the lock goes with it.
+     * <p>
+     * The connection comes from the lock pool, which holds at most one connection per key and instance, so it must be
+     * sized for the number of keys locked at the same time.
+     *
+     * @param lockClass
+     * @param key
+     * @return
+     */
+    public Handle lock(int lockClass, String key)
+    {
+        final String localKey = lockClass + "/" + key;
+        final LocalLock localLock = this.localLocks.compute(localKey, (k, current) -> {
+            LocalLock lock = current == null ? new LocalLock() : current;
+            lock.users++;
+            return lock;
+        });
+        localLock.lock.lock();
+
+        Connection connection = null;
+        try
+        {
+            connection = this.dataSource.getConnection();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement("select pg_advisory_xact_lock(?, hashtext(?))"))
+            {
+                statement.setInt(1, lockClass);
+                statement.setString(2, key);
+                statement.execute();
+            }
+        }
+        catch (SQLException e)
+        {
+            release(connection, localKey, localLock);
+            throw new CannotAcquireLockException("failed to take advisory lock " + lockClass + "/" + key + ".", e);
+        }
+
+        final Connection lockConnection = connection;
+        return () -> release(lockConnection, localKey, localLock);
+    }
+
+    /**
+     * Takes the nonce lock of given on-chain account, see {@link #lock(int, String)}. Everything that signs with a
+     * nonce of the account holds it from reading the pending transaction count until the transaction is broadcast, so
+     * two transactions never share a nonce and one never replaces the other.
+     *
+     * @param accountAddress
+     * @return
+     */
+    public Handle lockAccountNonce(String accountAddress)
+    {
+        return lock(ACCOUNT_NONCE, accountAddress.toLowerCase(Locale.ROOT));
+    }
+
+    private void release(Connection connection, String localKey, LocalLock localLock)
+    {
+        try
+        {
+            if (connection != null)
+            {
+                try
+                {
+                    connection.rollback();
+                }
+                finally
+                {
+                    connection.close();
+                }
+            }
+        }
+        catch (SQLException e)
+        {
+            logger.warn("failed to release advisory lock connection.", e);
+        }
+        finally
+        {
+            localLock.lock.unlock();
+            this.localLocks.computeIfPresent(localKey, (k, current) -> --current.users == 0 ? null : current);
+        }
+    }
+
+    private static final class LocalLock
+    {
+        private final ReentrantLock lock = new ReentrantLock();
+
+        // threads holding or waiting for the lock, only changed inside the map's compute functions.
+        private int users;
+    }
+
+    /**
+     * Held advisory lock, closing it releases the lock.
+     */
+    public interface Handle extends AutoCloseable
+    {
+        @Override
+        void close();
+    }
+}
@@ -23,15 +23,26 @@
  */
 package io.acrosafe.wallet.hot.eth.service;
 
+import java.io.IOException;
 import java.math.BigInteger;
 import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
 
 import io.acrosafe.wallet.core.eth.ETHAccount;
 import io.acrosafe.wallet.core.eth.Passphrase;
 import io.acrosafe.wallet.core.eth.SignedTransaction;
+import io.acrosafe.wallet.hot.eth.config.ApplicationProperties;
+import io.acrosafe.wallet.hot.eth.config.Workload;
+import io.acrosafe.wallet.hot.eth.config.WorkloadContext;
+import io.acrosafe.wallet.hot.eth.config.WorkloadType;
 import io.acrosafe.wallet.hot.eth.domain.AddressRecord;
+import io.acrosafe.wallet.hot.eth.domain.DeploymentStatus;
 import io.acrosafe.wallet.hot.eth.domain.TransactionRecord;
 import io.acrosafe.wallet.hot.eth.repository.AddressRecordRepository;
 import io.acrosafe.wallet.hot.eth.repository.TransactionRecordRepository;
@@ -41,8 +52,22 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.web3j.abi.FunctionEncoder;
+import org.web3j.abi.FunctionReturnDecoder;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Function;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.generated.Uint256;
 import org.web3j.crypto.Credentials;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.response.EthCall;
+import org.web3j.protocol.core.methods.response.EthGetBalance;
 import org.web3j.protocol.core.methods.response.EthGetTransactionReceipt;
 import org.web3j.protocol.core.methods.response.EthSendTransaction;
 import org.web3j.protocol.core.methods.response.EthTransaction;
@@ -50,7 +75,6 @@ import org.web3j.protocol.core.methods.response.Transaction;
 import org.web3j.protocol.core.methods.response.TransactionReceipt;
 
 import io.acrosafe.wallet.core.eth.BlockChainNetwork;
-import io.acrosafe.wallet.core.eth.IDGenerator;
 import io.acrosafe.wallet.core.eth.Token;
 import io.acrosafe.wallet.core.eth.TransactionStatus;
 import io.acrosafe.wallet.core.eth.TransactionType;
@@ -65,123 +89,307 @@ public class BlockChainService
 
     private static final String DEFAULT_HASH_STRING = "0x0";
 
+    private static final String ETH_SYMBOL = "ETH";
+
+    private static final String BALANCE_OF_FUNCTION = "balanceOf";
+
+    // serializes the balance reads and filter registrations of the node client, as the synchronized methods did. It
+    // is held for one node round trip, bounded by the client's timeouts. Deployments don't take it, they are
+    // serialized per account by the nonce lock and guarded by the conditional status updates. A lock instead of
+    // synchronized, so a virtual thread waiting for it does not pin its carrier.
+    private final ReentrantLock lock = new ReentrantLock();
+
     @Autowired
     private BlockChainNetwork blockChainNetwork;
 
+    @Autowired
+    private Web3j web3j;
+
     @Autowired
     private AddressRecordRepository addressRecordRepository;
 
     @Autowired
     private TransactionRecordRepository transactionRecordRepository;
 
-    public synchronized Map<String, BigInteger> getBalances(String accountAddress, List<Token> tokens)
+    @Autowired
+    private TransactionSummaryService transactionSummaryService;
+
+    @Autowired
+    private WalletEventPublisher walletEventPublisher;
+
+    @Autowired
+    private AccountCacheService accountCacheService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AdvisoryLockService advisoryLockService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private ForwarderFactoryService forwarderFactoryService;
+
+    @Autowired
+    private ContractDeploymentQueue contractDeploymentQueue;
+
+    public Map<String, BigInteger> getBalances(String accountAddress, List<Token> tokens)
     {
-        return blockChainNetwork.getBalance(accountAddress, tokens);
+        this.lock.lock();
+        try
+        {
+            return blockChainNetwork.getBalance(accountAddress, tokens);
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the ETH balance and the balances of the configured token contracts of given address without holding a
+     * caller thread, the returned future completes on the web3j client threads.
+     *
+     * @param accountAddress
+     * @return
+     */
+    public CompletableFuture<Map<String, BigInteger>> getBalancesAsync(String accountAddress)
+    {
+        final Map<String, CompletableFuture<BigInteger>> futures = new LinkedHashMap<>();
+        futures.put(ETH_SYMBOL, this.web3j.ethGetBalance(accountAddress, DefaultBlockParameterName.LATEST).sendAsync()
+                .thenApply(EthGetBalance::getBalance));
+        for (Map.Entry<String, String> token : this.applicationProperties.getTokenContracts().entrySet())
+        {
+            final Function function = createBalanceOf(accountAddress);
+            futures.put(token.getKey(), createTokenBalanceCall(accountAddress, token.getValue(), function).sendAsync()
+                    .thenApply(response -> {
+                        try
+                        {
+                            return decodeTokenBalance(function, response);
+                        }
+                        catch (IOException e)
+                        {
+                            throw new CompletionException(e);
+                        }
+                    }));
+        }
+
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            final Map<String, BigInteger> balances = new LinkedHashMap<>();
+            futures.forEach((symbol, future) -> balances.put(symbol, future.join()));
+            return balances;
+        });
+    }
+
+    private static Function createBalanceOf(String accountAddress)
+    {
+        return new Function(BALANCE_OF_FUNCTION, Collections.singletonList(new Address(accountAddress)),
+                Collections.singletonList(new TypeReference<Uint256>()
+                {
+                }));
+    }
+
+    private Request<?, EthCall> createTokenBalanceCall(String accountAddress, String contractAddress, Function function)
+    {
+        return this.web3j.ethCall(org.web3j.protocol.core.methods.request.Transaction
+                .createEthCallTransaction(accountAddress, contractAddress, FunctionEncoder.encode(function)),
+                DefaultBlockParameterName.LATEST);
+    }
+
+    private static BigInteger decodeTokenBalance(Function function, EthCall response) throws IOException
+    {
+        if (response.hasError())
+        {
+            throw new IOException("failed to read token balance. " + response.getError().getMessage());
+        }
+
+        List<Type> values = FunctionReturnDecoder.decode(response.getValue(), function.getOutputParameters());
+        return values.isEmpty() ? BigInteger.ZERO : (BigInteger) values.get(0).getValue();
     }
 
     @Async
-    public synchronized void subscribeToEtherEvent(String address, String accountId)
+    public void subscribeToEtherEvent(String address)
     {
-        this.blockChainNetwork.getETHFilter(address).subscribe(log -> {
-            final String hash = log.getTransactionHash();
-            logger.info("=================================== hash is : {}", hash);
-            try
+        this.lock.lock();
+        try
+        {
+            this.blockChainNetwork.getETHFilter(address).subscribe(log -> WorkloadContext.run(WorkloadType.INGESTION,
+                    () -> recordDeposit(log.getTransactionHash(), address)));
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    private void recordDeposit(String hash, String address)
+    {
+        logger.info("=================================== hash is : {}", hash);
+        try
+        {
+            // attributed through the address index, which always reflects the current owner of the address.
+            final AddressOwner owner = this.accountCacheService.getAddressOwner(address);
+            if (owner == null)
+            {
+                logger.warn("deposit {} to address {} doesn't belong to any wallet, ignored.", hash, address);
+                return;
+            }
+
+            EthTransaction transaction = this.blockChainNetwork.getTransactionByHash(hash);
+            EthGetTransactionReceipt receipt = this.blockChainNetwork.getTransactionReceiptByHash(hash);
+            TransactionReceipt transactionReceipt = receipt.getTransactionReceipt().orElse(null);
+            TransactionStatus status = TransactionUtils.getTransactionStatus(transactionReceipt);
+
+            TransactionRecord existingTransactionRecord =
+                    this.transactionRecordRepository.findFirstByTransactionId(hash).orElse(null);
+            if (existingTransactionRecord == null)
+            {
+                TransactionRecord transactionRecord = new TransactionRecord();
+                transactionRecord.setId(TimeOrderedIdGenerator.generate());
+                transactionRecord.setStatus(status);
+                transactionRecord.setAmount(transaction.getResult().getValue());
+                transactionRecord.setCreatedDate(Instant.now());
+                transactionRecord.setFee(BigInteger.ZERO);
+                transactionRecord.setLastModifiedDate(Instant.now());
+                transactionRecord.setTransactionId(hash);
+                transactionRecord.setTransactionType(TransactionType.DEPOSIT);
+                transactionRecord.setAccountId(owner.getAccountId());
+                transactionRecord.setToken("ETH");
+                transactionRecord.setDestination(address);
+
+                new TransactionTemplate(this.transactionManager).executeWithoutResult(txStatus -> {
+                    this.transactionSummaryService.saveCreated(transactionRecord);
+                    this.walletEventPublisher.publish(WalletEvent.of(WalletEventType.DEPOSIT_DETECTED, transactionRecord));
+                });
+                logger.info("found new deposite {} for address {} for eth. value = {}, status = {}", hash, address,
+                        transaction.getResult().getValue(), status);
+
+                // counterfactual addresses get their forwarder once they are funded.
+                this.forwarderFactoryService.deployOnDeposit(owner.getAddressId());
+            }
+            else
             {
-                EthTransaction transaction = this.blockChainNetwork.getTransactionByHash(hash);
-                EthGetTransactionReceipt receipt = this.blockChainNetwork.getTransactionReceiptByHash(hash);
-                TransactionReceipt transactionReceipt = receipt.getTransactionReceipt().orElse(null);
-                TransactionStatus status = TransactionUtils.getTransactionStatus(transactionReceipt);
-
-                TransactionRecord existingTransactionRecord =
-                        this.transactionRecordRepository.findFirstByTransactionId(hash).orElse(null);
-                if (existingTransactionRecord == null)
+                if (existingTransactionRecord.getStatus() != TransactionStatus.CONFIRMED)
                 {
-                    TransactionRecord transactionRecord = new TransactionRecord();
-                    transactionRecord.setId(IDGenerator.randomUUID().toString());
-                    transactionRecord.setStatus(status);
-                    transactionRecord.setAmount(transaction.getResult().getValue());
-                    transactionRecord.setCreatedDate(Instant.now());
-                    transactionRecord.setFee(BigInteger.ZERO);
-                    transactionRecord.setLastModifiedDate(Instant.now());
-                    transactionRecord.setTransactionId(hash);
-                    transactionRecord.setTransactionType(TransactionType.DEPOSIT);
-                    transactionRecord.setAccountId(accountId);
-                    transactionRecord.setToken("ETH");
-                    transactionRecord.setDestination(address);
-
-                    this.transactionRecordRepository.save(transactionRecord);
-                    logger.info("found new deposite {} for address {} for eth. value = {}, status = {}", hash, address,
-                            transaction.getResult().getValue(), status);
+                    final TransactionStatus previousStatus = existingTransactionRecord.getStatus();
+                    existingTransactionRecord.setStatus(status);
+                    saveAndPublish(existingTransactionRecord, previousStatus, existingTransactionRecord.getFee(),
+                            WalletEventType.DEPOSIT_STATUS_CHANGED);
+                    logger.info("updated existing transaction status for eth. hash = {}, address = {}, status = {}", hash,
+                            address, status);
                 }
                 else
                 {
-                    if (existingTransactionRecord.getStatus() != TransactionStatus.CONFIRMED)
-                    {
-                        existingTransactionRecord.setStatus(status);
-                        this.transactionRecordRepository.save(existingTransactionRecord);
-                        logger.info("updated existing transaction status for eth. hash = {}, address = {}, status = {}", hash,
-                                address, status);
-                    }
-                    else
-                    {
-                        logger.info("found existing deposit record for eth. hash = {}, address = {}, status = {}, value = {}",
-                                hash, address, status, existingTransactionRecord.getAmount());
-                    }
+                    logger.info("found existing deposit record for eth. hash = {}, address = {}, status = {}, value = {}",
+                            hash, address, status, existingTransactionRecord.getAmount());
                 }
             }
-            catch (Throwable t)
-            {
-                // we have to let it go
-                logger.warn("failed to add listener to address {}", address, t);
-            }
-        });
+        }
+        catch (Throwable t)
+        {
+            // we have to let it go
+            logger.warn("failed to add listener to address {}", address, t);
+        }
     }
 
+    /**
+     * Deploys the forwarder contract of given address record. The record moves to SUBMITTED while the deployment is in
+     * progress and ends up DEPLOYED or FAILED, failed deployments are picked up again by the retry scheduler.
+     * <p>
+     * Only a PENDING or FAILED record is deployed, and only if it is still in the given state, so the caller passes the
+     * status and attempts it read. A worker scheduled with an outdated state does nothing.
+     * <p>
+     * With application.forwarder-contract-code set the record is handed to the {@link ContractDeploymentQueue}, which
+     * claims it the same way but doesn't wait for each contract to be mined.
+     *
+     * @param addressId
+     * @param expectedStatus
+     * @param expectedAttempts
+     * @param credentials
+     * @param ownerAccountAddress
+     */
     @Async
-    public synchronized void deployAddressContract(String addressId, Credentials credentials, String ownerAccountAddress)
-            throws ContractCreationException
+    @Workload(WorkloadType.SIGNING)
+    public void deployAddressContract(String addressId, DeploymentStatus expectedStatus, int expectedAttempts,
+            Credentials credentials, String ownerAccountAddress)
     {
-        try
+        if (expectedStatus != DeploymentStatus.PENDING && expectedStatus != DeploymentStatus.FAILED)
         {
+            logger.warn("address record {} is {}, only PENDING or FAILED records are deployed.", addressId,
+                    expectedStatus);
+            return;
+        }
+
+        if (this.contractDeploymentQueue.isContractCreationEnabled())
+        {
+            // pipelined with other deployments of the account instead of waiting for this one to be mined.
+            this.contractDeploymentQueue.enqueue(addressId);
+            return;
+        }
+
+        // only one of the workers that read the record in this state gets to deploy it.
+        if (this.addressRecordRepository.markSubmitted(addressId, expectedStatus, expectedAttempts,
+                DeploymentStatus.SUBMITTED, Instant.now()) == 0)
+        {
+            logger.info("deployment of address record {} is taken by another worker or done already.", addressId);
+            return;
+        }
+        final int attempts = expectedAttempts + 1;
+
+        try (AdvisoryLockService.Handle nonceLock = this.advisoryLockService.lockAccountNonce(ownerAccountAddress))
+        {
+            // the retry scheduler expires deployments that waited too long for the lock, it must not race with one
+            // that starts now.
+            if (this.addressRecordRepository.markStarted(addressId, attempts, DeploymentStatus.SUBMITTED,
+                    Instant.now()) == 0)
+            {
+                logger.info("deployment of address record {} expired before it started.", addressId);
+                return;
+            }
+
             // TODO: need remove hardcoded gas value
             String contractAddress = this.blockChainNetwork.deployAddressContractWithDefaultParent(credentials,
                     BigInteger.valueOf(12_000_000_000L), BigInteger.valueOf(2300000));
-            if (!StringUtils.isEmpty(contractAddress))
+            if (StringUtils.isEmpty(contractAddress))
             {
-                AddressRecord record = this.addressRecordRepository.findById(addressId).orElse(null);
-                if (record != null)
-                {
-                    record.setAddress(contractAddress);
-                    this.addressRecordRepository.save(record);
-
-                    subscribeToEtherEvent(contractAddress, record.getAccountId());
+                throw new ContractCreationException("address contract is not valid.");
+            }
 
-                    logger.info(
-                            "address {} has been deployed to blockchain and persisted into DB. contract address = {}, owner account address = {}",
-                            addressId, contractAddress, ownerAccountAddress);
-                }
-                else
-                {
-                    // this is almost impossible
-                    logger.warn("failed to find address {} in DB.", addressId);
-                }
+            if (this.addressRecordRepository.markDeployed(addressId, contractAddress, attempts,
+                    DeploymentStatus.DEPLOYED, Instant.now()) == 0)
+            {
+                logger.warn("address record {} was taken by a later deployment attempt, contract {} is not used.",
+                        addressId, contractAddress);
+                return;
             }
-            else
+
+            AddressRecord record = this.addressRecordRepository.findById(addressId).orElse(null);
+            if (record != null)
             {
-                throw new ContractCreationException("address contract is not valid.");
+                this.accountCacheService.addAddressToIndex(record);
+                subscribeToEtherEvent(contractAddress);
             }
+
+            logger.info(
+                    "address {} has been deployed to blockchain and persisted into DB. contract address = {}, owner account address = {}",
+                    addressId, contractAddress, ownerAccountAddress);
         }
         catch (Throwable t)
         {
-            throw new ContractCreationException("failed to deploy address sub-contract on blockchain.", t);
+            // leave the record alone if a later attempt has taken it meanwhile.
+            this.addressRecordRepository.markFailed(addressId, attempts, DeploymentStatus.SUBMITTED,
+                    DeploymentStatus.FAILED, Instant.now());
+            logger.warn("failed to deploy address sub-contract {} on blockchain. attempt = {}", addressId, attempts, t);
         }
     }
 
     @Transactional
     public SignedTransaction buildAndSignTransaction(String accountId, ETHAccount account, String address, String amount,
-            Passphrase passphrase)
+            String internalTransactionId, Passphrase passphrase)
     {
-        final String id = IDGenerator.randomUUID().toString();
+        final String id = TimeOrderedIdGenerator.generate();
         TransactionRecord transactionRecord = new TransactionRecord();
         transactionRecord.setId(id);
         transactionRecord.setStatus(TransactionStatus.SIGNED);
@@ -190,12 +398,14 @@ public class BlockChainService
         transactionRecord.setFee(BigInteger.ZERO);
         transactionRecord.setLastModifiedDate(Instant.now());
         transactionRecord.setTransactionId(DEFAULT_HASH_STRING);
+        transactionRecord.setInternalTransactionId(internalTransactionId);
         transactionRecord.setTransactionType(TransactionType.WITHDRAWAL);
         transactionRecord.setAccountId(accountId);
         transactionRecord.setToken("ETH");
         transactionRecord.setDestination(address);
 
-        this.transactionRecordRepository.save(transactionRecord);
+        this.transactionSummaryService.saveCreated(transactionRecord);
+        this.walletEventPublisher.publish(WalletEvent.of(WalletEventType.WITHDRAWAL_STATUS_CHANGED, transactionRecord));
 
         SignedTransaction signedTransaction = new SignedTransaction();
         signedTransaction.setId(id);
@@ -205,6 +415,46 @@ public class BlockChainService
         return signedTransaction;
     }
 
+    /**
+     * Signs given withdrawal again after the node rejected its broadcast. The record is reused, so retries with the
+     * same internal transaction id keep pointing at it.
+     *
+     * @param transactionRecord
+     * @param account
+     * @param passphrase
+     * @return
+     */
+    @Transactional
+    public SignedTransaction resignTransaction(TransactionRecord transactionRecord, ETHAccount account,
+            Passphrase passphrase)
+    {
+        final TransactionStatus previousStatus = transactionRecord.getStatus();
+        transactionRecord.setStatus(TransactionStatus.SIGNED);
+        transactionRecord.setLastModifiedDate(Instant.now());
+        this.transactionSummaryService.saveUpdated(transactionRecord, previousStatus, transactionRecord.getFee());
+        this.walletEventPublisher.publish(WalletEvent.of(WalletEventType.WITHDRAWAL_STATUS_CHANGED, transactionRecord));
+
+        SignedTransaction signedTransaction = new SignedTransaction();
+        signedTransaction.setId(transactionRecord.getId());
+        signedTransaction.setHex(this.blockChainNetwork.buildAndSign(account, transactionRecord.getDestination(),
+                transactionRecord.getAmount().toString(), BigInteger.valueOf(20_000_000_000L),
+                BigInteger.valueOf(100000), passphrase));
+
+        return signedTransaction;
+    }
+
+    /**
+     * Returns true if given withdrawal has been accepted by the node, i.e. it holds a real transaction hash.
+     *
+     * @param transactionRecord
+     * @return
+     */
+    public static boolean isBroadcast(TransactionRecord transactionRecord)
+    {
+        return !StringUtils.isEmpty(transactionRecord.getTransactionId())
+                && !DEFAULT_HASH_STRING.equals(transactionRecord.getTransactionId());
+    }
+
     public String send(SignedTransaction signedTransaction)
     {
         EthSendTransaction transactionResponse = this.blockChainNetwork.sendSignedTransaction(signedTransaction.getHex());
@@ -216,10 +466,12 @@ public class BlockChainService
 
         TransactionRecord record = this.transactionRecordRepository.findById(signedTransaction.getId()).orElse(null);
 
+        final TransactionStatus previousStatus = record.getStatus();
         String hash = transactionResponse.getTransactionHash();
         if (StringUtils.isEmpty(hash))
         {
             record.setStatus(TransactionStatus.FAILED);
+            saveAndPublish(record, previousStatus, record.getFee(), WalletEventType.WITHDRAWAL_STATUS_CHANGED);
         }
         else
         {
@@ -227,20 +479,36 @@ public class BlockChainService
             TransactionReceipt transactionReceipt = receipt.getTransactionReceipt().orElse(null);
             TransactionStatus status = TransactionUtils.getTransactionStatus(transactionReceipt);
             Transaction transaction = this.blockChainNetwork.getTransactionByHash(hash).getTransaction().orElse(null);
+            final BigInteger previousFee = record.getFee();
+
+            // the hash marks the withdrawal as broadcast, retries with the same internal transaction id return it.
+            record.setTransactionId(hash);
             if (transaction != null)
             {
                 final BigInteger gas = transaction.getGas();
                 final BigInteger price = transaction.getGasPrice();
                 record.setFee(gas.multiply(price));
                 record.setStatus(status);
-
-                this.transactionRecordRepository.save(record);
                 logger.info("updated transaction status. status = {}, fee = {}", status, gas);
             }
+            saveAndPublish(record, previousStatus, previousFee, WalletEventType.WITHDRAWAL_STATUS_CHANGED);
 
         }
 
         return hash;
 
     }
+
+    /**
+     * Saves given updated record and publishes the event in one transaction, so the queued webhook deliveries commit or
+     * roll back together with the change.
+     */
+    private void saveAndPublish(TransactionRecord record, TransactionStatus previousStatus, BigInteger previousFee,
+            WalletEventType eventType)
+    {
+        new TransactionTemplate(this.transactionManager).executeWithoutResult(txStatus -> {
+            this.transactionSummaryService.saveUpdated(record, previousStatus, previousFee);
+            this.walletEventPublisher.publish(WalletEvent.of(eventType, record));
+        });
+    }
 }
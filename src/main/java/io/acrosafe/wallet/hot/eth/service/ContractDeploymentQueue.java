@@ -0,0 +1,598 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.service;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import io.acrosafe.wallet.core.eth.ETHAccount;
+import io.acrosafe.wallet.hot.eth.config.ApplicationProperties;
+import io.acrosafe.wallet.hot.eth.config.Workload;
+import io.acrosafe.wallet.hot.eth.config.WorkloadType;
+import io.acrosafe.wallet.hot.eth.domain.AddressRecord;
+import io.acrosafe.wallet.hot.eth.domain.DeploymentStatus;
+import io.acrosafe.wallet.hot.eth.repository.AddressRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.crypto.TransactionEncoder;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.EthGetTransactionReceipt;
+import org.web3j.protocol.core.methods.response.EthSendTransaction;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+import org.web3j.utils.Numeric;
+
+import io.acrosafe.wallet.core.eth.exception.AccountNotFoundException;
+
+/**
+ * Pipelines forwarder factory transactions. Each deploying account gets consecutive nonces assigned locally, so many
+ * deployments are submitted back-to-back without waiting for each to be mined, and receipts of all in-flight
+ * deployments are resolved together on a separate schedule.
+ *
+ * Withdrawals of the account take nonces as well, so a batch is signed and broadcast under the account's nonce lock.
+ * The local nonce is only a hint ahead of the node's pending count, it is dropped after a failed submission and when a
+ * deployment stays without receipt for application.deployment-timeout minutes. Such a deployment is queued again.
+ *
+ * When application.forwarder-contract-code is set, forwarders without counterfactual address are created by plain
+ * contract creation transactions through the same pipeline. Those records are claimed like in
+ * {@link BlockChainService#deployAddressContract}, and a timed out one is failed and left to the retry scheduler, which
+ * respects the attempt limit.
+ */
+@Service
+public class ContractDeploymentQueue
+{
+    // Logger
+    private static final Logger logger = LoggerFactory.getLogger(ContractDeploymentQueue.class);
+
+    private static final BigInteger GAS_LIMIT = BigInteger.valueOf(300000);
+
+    private static final BigInteger CONTRACT_GAS_LIMIT = BigInteger.valueOf(2300000);
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private AccountCacheService accountCacheService;
+
+    @Autowired
+    private AddressRecordRepository addressRecordRepository;
+
+    @Autowired
+    private AdvisoryLockService advisoryLockService;
+
+    @Autowired
+    private Web3j web3j;
+
+    // only needed once a contract is created, lazy since BlockChainService depends on this queue.
+    @Lazy
+    @Autowired
+    private BlockChainService blockChainService;
+
+    private final ConcurrentLinkedQueue<String> queue = new ConcurrentLinkedQueue<>();
+
+    // address record ids that are either queued or in flight
+    private final Set<String> scheduled = ConcurrentHashMap.newKeySet();
+
+    // transaction hash -> deployment waiting for its receipt
+    private final Map<String, InflightDeployment> inflight = new ConcurrentHashMap<>();
+
+    // deploying account address -> next nonce
+    private final Map<String, BigInteger> nonces = new ConcurrentHashMap<>();
+
+    private volatile Long chainId;
+
+    /**
+     * Schedules deployment of the forwarder of given address record. Records that are already queued or in flight are
+     * ignored.
+     *
+     * @param addressId
+     * @return true if the record has been queued.
+     */
+    public boolean enqueue(String addressId)
+    {
+        if (this.scheduled.add(addressId))
+        {
+            this.queue.add(addressId);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns whether forwarders without counterfactual address are deployed through this queue.
+     *
+     * @return
+     */
+    public boolean isContractCreationEnabled()
+    {
+        return !StringUtils.isEmpty(this.applicationProperties.getForwarderContractCode());
+    }
+
+    public int getQueueSize()
+    {
+        return this.queue.size();
+    }
+
+    public int getInflightSize()
+    {
+        return this.inflight.size();
+    }
+
+    @Workload(WorkloadType.SIGNING)
+    @Scheduled(fixedDelayString = "${application.deployment-submit-interval:1000}")
+    public void submitQueued()
+    {
+        if (this.queue.isEmpty())
+        {
+            return;
+        }
+
+        // group the batch by account so each account's nonces stay consecutive.
+        Map<String, List<AddressRecord>> batch = new LinkedHashMap<>();
+        final int batchSize = this.applicationProperties.getDeploymentBatchSize();
+        String addressId;
+        for (int i = 0; i < batchSize && (addressId = this.queue.poll()) != null; i++)
+        {
+            AddressRecord addressRecord = this.addressRecordRepository.findById(addressId).orElse(null);
+            if (addressRecord == null || addressRecord.getDeploymentStatus() == DeploymentStatus.DEPLOYED)
+            {
+                this.scheduled.remove(addressId);
+                continue;
+            }
+            if (addressRecord.getAddress() == null)
+            {
+                if (!claim(addressRecord))
+                {
+                    logger.info("deployment of address record {} is taken by another worker or done already.",
+                            addressId);
+                    this.scheduled.remove(addressId);
+                    continue;
+                }
+            }
+            else if (addressRecord.getDeploymentTransactionId() != null && isDeployed(addressRecord))
+            {
+                // an earlier transaction was mined after all, a second factory call would only revert.
+                addressRecord.setDeploymentStatus(DeploymentStatus.DEPLOYED);
+                this.addressRecordRepository.save(addressRecord);
+                this.scheduled.remove(addressId);
+                logger.info("forwarder of address record {} is already deployed.", addressId);
+                continue;
+            }
+            batch.computeIfAbsent(addressRecord.getAccountId(), key -> new ArrayList<>()).add(addressRecord);
+        }
+
+        for (Map.Entry<String, List<AddressRecord>> entry : batch.entrySet())
+        {
+            try
+            {
+                submit(entry.getKey(), entry.getValue());
+            }
+            catch (Throwable t)
+            {
+                logger.warn("failed to submit forwarder deployments for account {}.", entry.getKey(), t);
+                entry.getValue().forEach(this::markFailed);
+                this.addressRecordRepository.saveAll(entry.getValue());
+            }
+        }
+    }
+
+    @Workload(WorkloadType.SIGNING)
+    @Scheduled(fixedDelayString = "${application.deployment-receipt-interval:5000}")
+    public void resolveReceipts()
+    {
+        if (this.inflight.isEmpty())
+        {
+            return;
+        }
+
+        final Instant timeout = Instant.now().minus(this.applicationProperties.getDeploymentTimeout(), ChronoUnit.MINUTES);
+
+        // fire all receipt requests at once and only then wait for them.
+        Map<String, CompletableFuture<EthGetTransactionReceipt>> requests = new LinkedHashMap<>();
+        for (String hash : this.inflight.keySet())
+        {
+            requests.put(hash, this.web3j.ethGetTransactionReceipt(hash).sendAsync());
+        }
+
+        List<AddressRecord> resolved = new ArrayList<>();
+        for (Map.Entry<String, CompletableFuture<EthGetTransactionReceipt>> request : requests.entrySet())
+        {
+            final String hash = request.getKey();
+            try
+            {
+                TransactionReceipt receipt = request.getValue().join().getTransactionReceipt().orElse(null);
+                if (receipt == null)
+                {
+                    expireIfStale(hash, timeout);
+                    continue;
+                }
+
+                final InflightDeployment deployment = this.inflight.remove(hash);
+                final String addressId = deployment.getAddressId();
+                if (deployment.isContractCreation())
+                {
+                    resolveContractCreation(hash, deployment, receipt);
+                    continue;
+                }
+                AddressRecord addressRecord = this.addressRecordRepository.findById(addressId).orElse(null);
+                if (addressRecord != null)
+                {
+                    if (receipt.isStatusOK())
+                    {
+                        addressRecord.setDeploymentStatus(DeploymentStatus.DEPLOYED);
+                        this.scheduled.remove(addressId);
+                    }
+                    else
+                    {
+                        logger.warn("forwarder deployment {} of address record {} failed.", hash, addressId);
+                        markFailed(addressRecord);
+                    }
+                    resolved.add(addressRecord);
+                }
+            }
+            catch (Throwable t)
+            {
+                // still in flight, try again on next run.
+                logger.debug("failed to get receipt of forwarder deployment {}.", hash, t);
+            }
+        }
+
+        if (!resolved.isEmpty())
+        {
+            this.addressRecordRepository.saveAll(resolved);
+            logger.info("{} forwarder deployments are resolved. {} deployments still in flight.", resolved.size(),
+                    this.inflight.size());
+        }
+    }
+
+    private void submit(String accountId, List<AddressRecord> addressRecords)
+            throws AccountNotFoundException, IOException
+    {
+        final ETHAccount account = this.accountCacheService.getAccount(accountId);
+        final Credentials credentials = account.getCredentials(this.applicationProperties.getPassphrase());
+        final String ownerAccountAddress = account.getAddress();
+        final long chainId = getChainId();
+
+        final BigInteger gasPrice = getGasPrice();
+
+        Map<AddressRecord, CompletableFuture<EthSendTransaction>> submissions = new LinkedHashMap<>();
+        try (AdvisoryLockService.Handle nonceLock = this.advisoryLockService.lockAccountNonce(ownerAccountAddress))
+        {
+            // withdrawals share the account nonce, so never go below what the node already knows about.
+            final BigInteger pendingNonce = this.web3j
+                    .ethGetTransactionCount(ownerAccountAddress, DefaultBlockParameterName.PENDING).send().getTransactionCount();
+            BigInteger nonce = this.nonces.getOrDefault(ownerAccountAddress, BigInteger.ZERO).max(pendingNonce);
+
+            for (AddressRecord addressRecord : addressRecords)
+            {
+                // the forwarder created from contract code takes the deploying account as its parent.
+                RawTransaction rawTransaction = addressRecord.getAddress() == null
+                        ? RawTransaction.createContractTransaction(nonce, gasPrice, CONTRACT_GAS_LIMIT, BigInteger.ZERO,
+                                this.applicationProperties.getForwarderContractCode())
+                        : RawTransaction.createTransaction(nonce, gasPrice, GAS_LIMIT,
+                                this.applicationProperties.getForwarderFactoryAddress(), BigInteger.ZERO,
+                                ForwarderFactoryService.encodeCreateForwarder(ownerAccountAddress,
+                                        addressRecord.getId()));
+                final String hex = Numeric.toHexString(TransactionEncoder.signMessage(rawTransaction, chainId, credentials));
+
+                submissions.put(addressRecord, this.web3j.ethSendRawTransaction(hex).sendAsync());
+                nonce = nonce.add(BigInteger.ONE);
+            }
+
+            // the lock is held until the node has accepted or rejected every transaction of the batch.
+            CompletableFuture.allOf(submissions.values().toArray(new CompletableFuture<?>[0])).exceptionally(t -> null)
+                    .join();
+            this.nonces.put(ownerAccountAddress, nonce);
+        }
+        catch (RuntimeException | IOException e)
+        {
+            this.nonces.remove(ownerAccountAddress);
+            throw e;
+        }
+
+        boolean failed = false;
+        final Instant now = Instant.now();
+        for (Map.Entry<AddressRecord, CompletableFuture<EthSendTransaction>> submission : submissions.entrySet())
+        {
+            final AddressRecord addressRecord = submission.getKey();
+            EthSendTransaction response = submission.getValue().exceptionally(t -> null).join();
+            if (response == null || response.hasError())
+            {
+                logger.warn("failed to submit forwarder deployment of address record {}. error = {}",
+                        addressRecord.getId(), response == null ? "no response" : response.getError().getMessage());
+                markFailed(addressRecord);
+                failed = true;
+            }
+            else
+            {
+                final boolean contractCreation = addressRecord.getAddress() == null;
+                if (!contractCreation)
+                {
+                    // contract creations have been counted when they were claimed.
+                    addressRecord.setDeploymentAttempts(addressRecord.getDeploymentAttempts() + 1);
+                }
+                addressRecord.setDeploymentTransactionId(response.getTransactionHash());
+                addressRecord.setDeploymentStatus(DeploymentStatus.SUBMITTED);
+                this.inflight.put(response.getTransactionHash(), new InflightDeployment(addressRecord.getId(),
+                        ownerAccountAddress, addressRecord.getDeploymentAttempts(), contractCreation, now));
+            }
+        }
+        this.addressRecordRepository.saveAll(addressRecords);
+
+        if (failed)
+        {
+            // a gap may have been left in the nonce sequence, resync from the node on next submission.
+            this.nonces.remove(ownerAccountAddress);
+        }
+        logger.info("submitted {} forwarder deployments for account {}.", submissions.size(), accountId);
+    }
+
+    /**
+     * Gives up on given in-flight deployment once it had no receipt for the deployment timeout, e.g. because the node
+     * dropped the transaction. The local nonce of its account is resynced from the node and the record is queued again.
+     *
+     * @param hash
+     * @param timeout
+     */
+    private void expireIfStale(String hash, Instant timeout)
+    {
+        InflightDeployment deployment = this.inflight.get(hash);
+        if (deployment == null || deployment.getSubmittedDate().isAfter(timeout))
+        {
+            return;
+        }
+
+        if (deployment.isContractCreation() && isPending(hash))
+        {
+            // a second contract would leave the first one unused, wait for the node to mine or drop it.
+            return;
+        }
+
+        if (this.inflight.remove(hash, deployment))
+        {
+            this.nonces.remove(deployment.getOwnerAccountAddress());
+            if (deployment.isContractCreation())
+            {
+                this.addressRecordRepository.markFailed(deployment.getAddressId(), deployment.getAttempts(),
+                        DeploymentStatus.SUBMITTED, DeploymentStatus.FAILED, Instant.now());
+                this.scheduled.remove(deployment.getAddressId());
+                logger.warn("forwarder deployment {} of address record {} was dropped, left to the retry scheduler.",
+                        hash, deployment.getAddressId());
+                return;
+            }
+            this.queue.add(deployment.getAddressId());
+            logger.warn("forwarder deployment {} of address record {} has no receipt since {}, queued again.", hash,
+                    deployment.getAddressId(), deployment.getSubmittedDate());
+        }
+    }
+
+    /**
+     * Stores the address of the forwarder created by given mined transaction, unless a later attempt has taken the
+     * record meanwhile, and starts watching it for deposits.
+     *
+     * @param hash
+     * @param deployment
+     * @param receipt
+     */
+    private void resolveContractCreation(String hash, InflightDeployment deployment, TransactionReceipt receipt)
+    {
+        final String addressId = deployment.getAddressId();
+        this.scheduled.remove(addressId);
+        if (!receipt.isStatusOK() || StringUtils.isEmpty(receipt.getContractAddress()))
+        {
+            logger.warn("forwarder deployment {} of address record {} failed.", hash, addressId);
+            this.addressRecordRepository.markFailed(addressId, deployment.getAttempts(), DeploymentStatus.SUBMITTED,
+                    DeploymentStatus.FAILED, Instant.now());
+            return;
+        }
+
+        final String contractAddress = receipt.getContractAddress();
+        if (this.addressRecordRepository.markDeployed(addressId, contractAddress, deployment.getAttempts(),
+                DeploymentStatus.DEPLOYED, Instant.now()) == 0)
+        {
+            logger.warn("address record {} was taken by a later deployment attempt, contract {} is not used.",
+                    addressId, contractAddress);
+            return;
+        }
+
+        AddressRecord addressRecord = this.addressRecordRepository.findById(addressId).orElse(null);
+        if (addressRecord != null)
+        {
+            this.accountCacheService.addAddressToIndex(addressRecord);
+            this.blockChainService.subscribeToEtherEvent(contractAddress);
+        }
+        logger.info("forwarder of address record {} is created at {}.", addressId, contractAddress);
+    }
+
+    /**
+     * Moves given PENDING or FAILED record without address to SUBMITTED, only one worker that read it in this state
+     * succeeds.
+     *
+     * @param addressRecord
+     * @return true if the record has been claimed.
+     */
+    private boolean claim(AddressRecord addressRecord)
+    {
+        final DeploymentStatus status = addressRecord.getDeploymentStatus();
+        if (!isContractCreationEnabled() || (status != DeploymentStatus.PENDING && status != DeploymentStatus.FAILED))
+        {
+            return false;
+        }
+
+        final Instant now = Instant.now();
+        if (this.addressRecordRepository.markSubmitted(addressRecord.getId(), status,
+                addressRecord.getDeploymentAttempts(), DeploymentStatus.SUBMITTED, now) == 0)
+        {
+            return false;
+        }
+        addressRecord.setDeploymentStatus(DeploymentStatus.SUBMITTED);
+        addressRecord.setDeploymentAttempts(addressRecord.getDeploymentAttempts() + 1);
+        addressRecord.setDeploymentModifiedDate(now);
+        return true;
+    }
+
+    private boolean isPending(String hash)
+    {
+        try
+        {
+            return this.web3j.ethGetTransactionByHash(hash).send().getTransaction().isPresent();
+        }
+        catch (IOException e)
+        {
+            // can't tell, keep waiting.
+            logger.debug("failed to get forwarder deployment {}.", hash, e);
+            return true;
+        }
+    }
+
+    private boolean isDeployed(AddressRecord addressRecord)
+    {
+        try
+        {
+            final String code =
+                    this.web3j.ethGetCode(addressRecord.getAddress(), DefaultBlockParameterName.LATEST).send().getCode();
+            return code != null && Numeric.hexStringToByteArray(code).length > 0;
+        }
+        catch (IOException e)
+        {
+            // submit anyway, a duplicate factory call only reverts.
+            logger.debug("failed to get code of address record {}.", addressRecord.getId(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Returns application.deployment-gas-price, or the node's gas price when it is not set.
+     *
+     * @return
+     * @throws IOException
+     */
+    private BigInteger getGasPrice() throws IOException
+    {
+        final Long gasPrice = this.applicationProperties.getDeploymentGasPrice();
+        if (gasPrice != null)
+        {
+            return BigInteger.valueOf(gasPrice);
+        }
+        return this.web3j.ethGasPrice().send().getGasPrice();
+    }
+
+    /**
+     * Returns whether given address record is queued or in flight in this instance.
+     *
+     * @param addressId
+     * @return
+     */
+    public boolean isScheduled(String addressId)
+    {
+        return this.scheduled.contains(addressId);
+    }
+
+    private void markFailed(AddressRecord addressRecord)
+    {
+        if (addressRecord.getDeploymentStatus() != DeploymentStatus.SUBMITTED)
+        {
+            // submission itself failed, count it as an attempt as well.
+            addressRecord.setDeploymentAttempts(addressRecord.getDeploymentAttempts() + 1);
+        }
+        addressRecord.setDeploymentStatus(DeploymentStatus.FAILED);
+        this.scheduled.remove(addressRecord.getId());
+    }
+
+    private long getChainId() throws IOException
+    {
+        if (this.chainId == null)
+        {
+            // net_version is the network id, which differs from the EIP-155 chain id on some networks.
+            this.chainId = this.web3j.ethChainId().send().getChainId().longValue();
+        }
+        return this.chainId;
+    }
+
+    private static final class InflightDeployment
+    {
+        private final String addressId;
+
+        private final String ownerAccountAddress;
+
+        private final int attempts;
+
+        private final boolean contractCreation;
+
+        private final Instant submittedDate;
+
+        InflightDeployment(String addressId, String ownerAccountAddress, int attempts, boolean contractCreation,
+                Instant submittedDate)
+        {
+            this.addressId = addressId;
+            this.ownerAccountAddress = ownerAccountAddress;
+            this.attempts = attempts;
+            this.contractCreation = contractCreation;
+            this.submittedDate = submittedDate;
+        }
+
+        String getAddressId()
+        {
+            return addressId;
+        }
+
+        String getOwnerAccountAddress()
+        {
+            return ownerAccountAddress;
+        }
+
+        int getAttempts()
+        {
+            return attempts;
+        }
+
+        boolean isContractCreation()
+        {
+            return contractCreation;
+        }
+
+        Instant getSubmittedDate()
+        {
+            return submittedDate;
+        }
+    }
+}
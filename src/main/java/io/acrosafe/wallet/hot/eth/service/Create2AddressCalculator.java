@@ -0,0 +1,120 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.service;
+
+import java.nio.charset.StandardCharsets;
+
+import org.web3j.crypto.Hash;
+import org.web3j.crypto.Keys;
+import org.web3j.utils.Numeric;
+
+/**
+ * Computes contract addresses created by CREATE2 (EIP-1014) without talking to a node.
+ *
+ * Forwarder contracts are created by the configured factory through {@code createForwarder(address parent, bytes32
+ * salt)}, which uses {@code keccak256(parent ++ salt)} as CREATE2 salt. The salt passed to the factory is
+ * {@code keccak256(addressRecordId)}, so each address record maps to exactly one forwarder address.
+ */
+public final class Create2AddressCalculator
+{
+    private static final int ADDRESS_LENGTH = 20;
+
+    private static final int WORD_LENGTH = 32;
+
+    private Create2AddressCalculator()
+    {
+    }
+
+    /**
+     * Returns the address of a contract created by {@code deployer} through CREATE2, i.e. the last 20 bytes of
+     * {@code keccak256(0xff ++ deployer ++ salt ++ initCodeHash)}.
+     *
+     * @param deployer
+     *            address of the creating contract.
+     * @param salt
+     *            32 bytes CREATE2 salt.
+     * @param initCodeHash
+     *            keccak256 hash of the contract init code.
+     * @return checksummed contract address.
+     */
+    public static String computeAddress(String deployer, byte[] salt, byte[] initCodeHash)
+    {
+        final byte[] deployerBytes = Numeric.hexStringToByteArray(deployer);
+        if (deployerBytes.length != ADDRESS_LENGTH)
+        {
+            throw new IllegalArgumentException("deployer address must be 20 bytes.");
+        }
+        if (salt.length != WORD_LENGTH || initCodeHash.length != WORD_LENGTH)
+        {
+            throw new IllegalArgumentException("salt and init code hash must be 32 bytes.");
+        }
+
+        final byte[] input = new byte[1 + ADDRESS_LENGTH + WORD_LENGTH + WORD_LENGTH];
+        input[0] = (byte) 0xff;
+        System.arraycopy(deployerBytes, 0, input, 1, ADDRESS_LENGTH);
+        System.arraycopy(salt, 0, input, 1 + ADDRESS_LENGTH, WORD_LENGTH);
+        System.arraycopy(initCodeHash, 0, input, 1 + ADDRESS_LENGTH + WORD_LENGTH, WORD_LENGTH);
+
+        final byte[] hash = Hash.sha3(input);
+        final byte[] address = new byte[ADDRESS_LENGTH];
+        System.arraycopy(hash, hash.length - ADDRESS_LENGTH, address, 0, ADDRESS_LENGTH);
+
+        return Keys.toChecksumAddress(Numeric.toHexString(address));
+    }
+
+    /**
+     * Returns the salt passed to the forwarder factory for given address record.
+     *
+     * @param addressId
+     * @return
+     */
+    public static byte[] getForwarderSalt(String addressId)
+    {
+        return Hash.sha3(addressId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the address of the forwarder contract the factory creates for given parent and address record.
+     *
+     * @param factory
+     * @param initCodeHash
+     * @param parent
+     * @param addressId
+     * @return
+     */
+    public static String computeForwarderAddress(String factory, byte[] initCodeHash, String parent, String addressId)
+    {
+        final byte[] parentBytes = Numeric.hexStringToByteArray(parent);
+        if (parentBytes.length != ADDRESS_LENGTH)
+        {
+            throw new IllegalArgumentException("parent address must be 20 bytes.");
+        }
+
+        final byte[] input = new byte[ADDRESS_LENGTH + WORD_LENGTH];
+        System.arraycopy(parentBytes, 0, input, 0, ADDRESS_LENGTH);
+        System.arraycopy(getForwarderSalt(addressId), 0, input, ADDRESS_LENGTH, WORD_LENGTH);
+
+        return computeAddress(factory, Hash.sha3(input), initCodeHash);
+    }
+}
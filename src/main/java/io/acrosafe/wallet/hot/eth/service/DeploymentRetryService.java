@@ -0,0 +1,232 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import io.acrosafe.wallet.core.eth.ETHAccount;
+import io.acrosafe.wallet.hot.eth.config.ApplicationProperties;
+import io.acrosafe.wallet.hot.eth.config.Workload;
+import io.acrosafe.wallet.hot.eth.config.WorkloadType;
+import io.acrosafe.wallet.hot.eth.domain.AddressRecord;
+import io.acrosafe.wallet.hot.eth.domain.DeploymentStatus;
+import io.acrosafe.wallet.hot.eth.repository.AddressRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+/**
+ * Resubmits forwarder deployments in batches when they failed, or when they have been PENDING or SUBMITTED for longer
+ * than the deployment timeout (e.g. because the instance that scheduled them was restarted).
+ */
+@Service
+public class DeploymentRetryService
+{
+    // Logger
+    private static final Logger logger = LoggerFactory.getLogger(DeploymentRetryService.class);
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private AccountCacheService accountCacheService;
+
+    @Autowired
+    private BlockChainService blockChainService;
+
+    @Autowired
+    private ContractDeploymentQueue contractDeploymentQueue;
+
+    @Autowired
+    private AddressRecordRepository addressRecordRepository;
+
+    @Autowired
+    private Web3j web3j;
+
+    @Workload(WorkloadType.SIGNING)
+    @Scheduled(fixedDelayString = "${application.deployment-retry-interval:60000}")
+    public void retryDeployments()
+    {
+        final int batchSize = this.applicationProperties.getDeploymentBatchSize();
+        final PageRequest pageable = PageRequest.of(0, batchSize, Sort.by(Sort.Direction.ASC, "deploymentModifiedDate"));
+
+        List<AddressRecord> failed = this.addressRecordRepository.findAllByDeploymentStatusAndDeploymentAttemptsLessThan(
+                DeploymentStatus.FAILED, this.applicationProperties.getDeploymentMaxAttempts(), pageable);
+
+        final Instant timeout =
+                Instant.now().minus(this.applicationProperties.getDeploymentTimeout(), ChronoUnit.MINUTES);
+        List<AddressRecord> stale = this.addressRecordRepository
+                .findAllByDeploymentStatusAndDeploymentModifiedDateBefore(DeploymentStatus.SUBMITTED, timeout, pageable);
+
+        // deployments still waiting in the async executor of an instance that went away. Whichever of the retry and a
+        // task still queued somewhere else moves the record to SUBMITTED first deploys it, the other does nothing.
+        List<AddressRecord> lost = this.addressRecordRepository.findAllByDeploymentStatusAndAddressIsNullAndCreatedDateBefore(
+                DeploymentStatus.PENDING, timeout, PageRequest.of(0, batchSize, Sort.by(Sort.Direction.ASC, "createdDate")));
+
+        int retried = 0;
+        for (AddressRecord addressRecord : failed)
+        {
+            retried += retry(addressRecord) ? 1 : 0;
+        }
+        for (AddressRecord addressRecord : lost)
+        {
+            retried += retry(addressRecord) ? 1 : 0;
+        }
+        for (AddressRecord addressRecord : stale)
+        {
+            if (this.contractDeploymentQueue.isScheduled(addressRecord.getId()) || resolveSubmitted(addressRecord))
+            {
+                continue;
+            }
+            if (addressRecord.getAddress() == null)
+            {
+                // a worker still waiting for the nonce lock would deploy it again, it is expired first so that worker
+                // gives up when it gets the lock.
+                if (this.addressRecordRepository.expireSubmitted(addressRecord.getId(),
+                        addressRecord.getDeploymentAttempts(), DeploymentStatus.SUBMITTED, DeploymentStatus.FAILED,
+                        timeout, Instant.now()) == 0)
+                {
+                    continue;
+                }
+                addressRecord.setDeploymentStatus(DeploymentStatus.FAILED);
+            }
+            if (addressRecord.getDeploymentAttempts() >= this.applicationProperties.getDeploymentMaxAttempts())
+            {
+                addressRecord.setDeploymentStatus(DeploymentStatus.FAILED);
+                this.addressRecordRepository.save(addressRecord);
+                logger.warn("address record {} exceeded deployment attempts, giving up.", addressRecord.getId());
+                continue;
+            }
+            retried += retry(addressRecord) ? 1 : 0;
+        }
+
+        if (retried > 0)
+        {
+            logger.info("resubmitted {} forwarder deployments.", retried);
+        }
+    }
+
+    /**
+     * Looks up the deployment transaction of given stale SUBMITTED record before it is resubmitted. A mined
+     * transaction resolves the record, and a transaction the node still holds is left to be mined.
+     *
+     * @param addressRecord
+     * @return true if the record must not be resubmitted now.
+     */
+    private boolean resolveSubmitted(AddressRecord addressRecord)
+    {
+        final String hash = addressRecord.getDeploymentTransactionId();
+        if (hash == null)
+        {
+            // deployed through the node client, which doesn't expose its transaction.
+            return false;
+        }
+
+        try
+        {
+            TransactionReceipt receipt = this.web3j.ethGetTransactionReceipt(hash).send().getTransactionReceipt().orElse(null);
+            if (receipt == null)
+            {
+                final boolean pending = this.web3j.ethGetTransactionByHash(hash).send().getTransaction().isPresent();
+                if (pending)
+                {
+                    logger.info("deployment {} of address record {} is still pending.", hash, addressRecord.getId());
+                }
+                return pending;
+            }
+
+            if (receipt.isStatusOK() && addressRecord.getAddress() == null)
+            {
+                // contract created by the deployment queue of an instance that went away.
+                final String contractAddress = receipt.getContractAddress();
+                if (this.addressRecordRepository.markDeployed(addressRecord.getId(), contractAddress,
+                        addressRecord.getDeploymentAttempts(), DeploymentStatus.DEPLOYED, Instant.now()) > 0)
+                {
+                    addressRecord.setAddress(contractAddress);
+                    this.accountCacheService.addAddressToIndex(addressRecord);
+                    this.blockChainService.subscribeToEtherEvent(contractAddress);
+                    logger.info("deployment {} of address record {} was mined, contract address = {}.", hash,
+                            addressRecord.getId(), contractAddress);
+                }
+                return true;
+            }
+            else if (receipt.isStatusOK())
+            {
+                addressRecord.setDeploymentStatus(DeploymentStatus.DEPLOYED);
+                logger.info("deployment {} of address record {} was mined, no resubmission needed.", hash,
+                        addressRecord.getId());
+            }
+            else
+            {
+                // retried through the FAILED records, which respects the attempt limit.
+                addressRecord.setDeploymentStatus(DeploymentStatus.FAILED);
+                logger.warn("deployment {} of address record {} failed.", hash, addressRecord.getId());
+            }
+            this.addressRecordRepository.save(addressRecord);
+            return true;
+        }
+        catch (Throwable t)
+        {
+            logger.warn("failed to check deployment {} of address record {}.", hash, addressRecord.getId(), t);
+            return true;
+        }
+    }
+
+    private boolean retry(AddressRecord addressRecord)
+    {
+        if (this.contractDeploymentQueue.isScheduled(addressRecord.getId()))
+        {
+            return false;
+        }
+
+        try
+        {
+            if (addressRecord.getAddress() != null)
+            {
+                // counterfactual address, the factory call is pipelined by the deployment queue.
+                return this.contractDeploymentQueue.enqueue(addressRecord.getId());
+            }
+
+            // the worker deploys only if the record is still in the state read here.
+            final ETHAccount account = this.accountCacheService.getAccount(addressRecord.getAccountId());
+            this.blockChainService.deployAddressContract(addressRecord.getId(), addressRecord.getDeploymentStatus(),
+                    addressRecord.getDeploymentAttempts(),
+                    account.getCredentials(this.applicationProperties.getPassphrase()), account.getAddress());
+            return true;
+        }
+        catch (Throwable t)
+        {
+            logger.warn("failed to resubmit deployment of address record {}.", addressRecord.getId(), t);
+            return false;
+        }
+    }
+}
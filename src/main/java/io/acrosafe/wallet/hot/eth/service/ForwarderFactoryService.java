@@ -0,0 +1,132 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import io.acrosafe.wallet.hot.eth.config.ApplicationProperties;
+import io.acrosafe.wallet.hot.eth.domain.AddressRecord;
+import io.acrosafe.wallet.hot.eth.domain.DeploymentStatus;
+import io.acrosafe.wallet.hot.eth.repository.AddressRecordRepository;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.web3j.abi.FunctionEncoder;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Function;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.generated.Bytes32;
+import org.web3j.utils.Numeric;
+
+/**
+ * Hands out counterfactual forwarder addresses computed locally through CREATE2 and deploys the forwarder contract
+ * through the configured factory only once a deposit to the address has been detected.
+ */
+@Service
+public class ForwarderFactoryService
+{
+    // Logger
+    private static final Logger logger = LoggerFactory.getLogger(ForwarderFactoryService.class);
+
+    private static final String CREATE_FORWARDER_FUNCTION = "createForwarder";
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private AddressRecordRepository addressRecordRepository;
+
+    @Autowired
+    private ContractDeploymentQueue contractDeploymentQueue;
+
+    public boolean isEagerDeployment()
+    {
+        return this.applicationProperties.getForwarderEagerDeployment();
+    }
+
+    public boolean isEnabled()
+    {
+        return !StringUtils.isEmpty(this.applicationProperties.getForwarderFactoryAddress())
+                && !StringUtils.isEmpty(this.applicationProperties.getForwarderInitCodeHash());
+    }
+
+    /**
+     * Returns the final forwarder address of given address record owned by given account address.
+     *
+     * @param ownerAccountAddress
+     * @param addressId
+     * @return
+     */
+    public String computeAddress(String ownerAccountAddress, String addressId)
+    {
+        return Create2AddressCalculator.computeForwarderAddress(this.applicationProperties.getForwarderFactoryAddress(),
+                Numeric.hexStringToByteArray(this.applicationProperties.getForwarderInitCodeHash()), ownerAccountAddress,
+                addressId);
+    }
+
+    /**
+     * Queues deployment of the forwarder of given counterfactual address record, called when a deposit to its address
+     * is detected. Addresses that never receive a deposit are left undeployed and cost no gas.
+     *
+     * @param addressId
+     */
+    public void deployOnDeposit(String addressId)
+    {
+        if (!isEnabled())
+        {
+            return;
+        }
+
+        AddressRecord addressRecord = this.addressRecordRepository.findById(addressId).orElse(null);
+        if (addressRecord == null || addressRecord.getDeploymentStatus() != DeploymentStatus.PENDING)
+        {
+            return;
+        }
+
+        if (this.contractDeploymentQueue.enqueue(addressId))
+        {
+            logger.info("address {} of address record {} is funded, forwarder deployment queued.",
+                    addressRecord.getAddress(), addressId);
+        }
+    }
+
+    /**
+     * Returns the ABI encoded factory call creating the forwarder of given address record.
+     *
+     * @param ownerAccountAddress
+     * @param addressId
+     * @return
+     */
+    public static String encodeCreateForwarder(String ownerAccountAddress, String addressId)
+    {
+        Function function = new Function(CREATE_FORWARDER_FUNCTION,
+                Arrays.<Type>asList(new Address(ownerAccountAddress),
+                        new Bytes32(Create2AddressCalculator.getForwarderSalt(addressId))),
+                Collections.emptyList());
+        return FunctionEncoder.encode(function);
+    }
+}
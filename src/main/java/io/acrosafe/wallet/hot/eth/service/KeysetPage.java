@@ -0,0 +1,86 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.service;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset query together with the continuation token of the next page.
+ *
+ * @param <T>
+ */
+public class KeysetPage<T>
+{
+    private final List<T> items;
+
+    private final String continuation;
+
+    /**
+     * Constructs new KeysetPage instance.
+     *
+     * @param items
+     * @param continuation
+     */
+    public KeysetPage(List<T> items, String continuation)
+    {
+        this.items = items;
+        this.continuation = continuation;
+    }
+
+    /**
+     * Builds a page from rows fetched with limit size + 1. The extra row only signals that another page exists and is
+     * not returned.
+     *
+     * @param rows
+     * @param size
+     * @param cursor
+     * @return
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int size, Function<T, PageCursor> cursor)
+    {
+        if (rows.size() <= size)
+        {
+            return new KeysetPage<>(rows, null);
+        }
+
+        List<T> items = rows.subList(0, size);
+        return new KeysetPage<>(items, cursor.apply(items.get(size - 1)).encode());
+    }
+
+    public List<T> getItems()
+    {
+        return items;
+    }
+
+    /**
+     * Returns the continuation token of the next page, or null if this is the last page.
+     *
+     * @return
+     */
+    public String getContinuation()
+    {
+        return continuation;
+    }
+}
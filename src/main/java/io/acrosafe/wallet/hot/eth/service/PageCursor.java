@@ -0,0 +1,124 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import org.apache.commons.lang3.StringUtils;
+
+import io.acrosafe.wallet.hot.eth.domain.CompactUuidType;
+import io.acrosafe.wallet.hot.eth.exception.InvalidContinuationTokenException;
+
+/**
+ * Position of a keyset page, identified by the (created_date, id) of the last row returned. Clients receive it as an
+ * opaque base64url continuation token and send it back unchanged to fetch the next page.
+ */
+public class PageCursor
+{
+    private static final String SEPARATOR = "|";
+
+    // sorts before every row, so the first page uses the same seek query as the following ones.
+    private static final PageCursor FIRST = new PageCursor(Instant.EPOCH, "00000000000000000000000000000000");
+
+    private final Instant createdDate;
+
+    private final String id;
+
+    /**
+     * Constructs new PageCursor instance.
+     *
+     * @param createdDate
+     * @param id
+     */
+    public PageCursor(Instant createdDate, String id)
+    {
+        this.createdDate = createdDate;
+        this.id = id;
+    }
+
+    /**
+     * Returns the cursor positioned before the first row.
+     *
+     * @return
+     */
+    public static PageCursor first()
+    {
+        return FIRST;
+    }
+
+    /**
+     * Decodes the continuation token. Empty token means the first page.
+     *
+     * @param token
+     * @return
+     * @throws InvalidContinuationTokenException
+     */
+    public static PageCursor decode(String token) throws InvalidContinuationTokenException
+    {
+        if (StringUtils.isEmpty(token))
+        {
+            return FIRST;
+        }
+
+        try
+        {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int index = value.indexOf(SEPARATOR);
+            if (index <= 0 || !CompactUuidType.isValid(value.substring(index + 1)))
+            {
+                throw new InvalidContinuationTokenException("continuation token is not valid.");
+            }
+
+            return new PageCursor(Instant.parse(value.substring(0, index)), value.substring(index + 1));
+        }
+        catch (IllegalArgumentException | DateTimeParseException e)
+        {
+            throw new InvalidContinuationTokenException("continuation token is not valid.", e);
+        }
+    }
+
+    /**
+     * Encodes this cursor as continuation token.
+     *
+     * @return
+     */
+    public String encode()
+    {
+        String value = this.createdDate.toString() + SEPARATOR + this.id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Instant getCreatedDate()
+    {
+        return createdDate;
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+}
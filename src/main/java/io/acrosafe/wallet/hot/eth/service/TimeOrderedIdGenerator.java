@@ -0,0 +1,84 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.service;
+
+import java.security.SecureRandom;
+
+/**
+ * Generates time-ordered record ids (UUID version 7, RFC 9562): 48 bits of unix epoch milliseconds followed by random
+ * bits. Ids are rendered like the ids generated before, as 32 lower case hex characters without hyphens, and sort by
+ * creation time, so inserts append to the end of primary key and foreign key indexes instead of scattering.
+ */
+public final class TimeOrderedIdGenerator
+{
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private TimeOrderedIdGenerator()
+    {
+    }
+
+    /**
+     * Returns a new id for the current time.
+     *
+     * @return
+     */
+    public static String generate()
+    {
+        return generate(System.currentTimeMillis());
+    }
+
+    static String generate(long timestamp)
+    {
+        final byte[] random = new byte[10];
+        RANDOM.nextBytes(random);
+
+        // 48 bits timestamp, 4 bits version, 12 bits random.
+        long mostSignificantBits = (timestamp & 0xffffffffffffL) << 16 | 0x7000L | (random[0] & 0x0fL) << 8
+                | (random[1] & 0xffL);
+
+        // 2 bits variant, 62 bits random.
+        long leastSignificantBits = 0;
+        for (int i = 2; i < random.length; i++)
+        {
+            leastSignificantBits = leastSignificantBits << 8 | (random[i] & 0xffL);
+        }
+        leastSignificantBits = leastSignificantBits & 0x3fffffffffffffffL | 0x8000000000000000L;
+
+        final char[] id = new char[32];
+        toHex(mostSignificantBits, id, 0);
+        toHex(leastSignificantBits, id, 16);
+        return new String(id);
+    }
+
+    private static void toHex(long value, char[] buffer, int offset)
+    {
+        for (int i = 15; i >= 0; i--)
+        {
+            buffer[offset + i] = HEX[(int) (value & 0x0f)];
+            value >>>= 4;
+        }
+    }
+}
@@ -0,0 +1,305 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.service;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.acrosafe.wallet.core.eth.TransactionStatus;
+import io.acrosafe.wallet.hot.eth.config.ApplicationProperties;
+import io.acrosafe.wallet.hot.eth.domain.TransactionArchivePayloadRecord;
+import io.acrosafe.wallet.hot.eth.domain.TransactionArchiveRecord;
+import io.acrosafe.wallet.hot.eth.domain.TransactionRecord;
+import io.acrosafe.wallet.hot.eth.repository.TransactionArchivePayloadRecordRepository;
+import io.acrosafe.wallet.hot.eth.repository.TransactionArchiveRecordRepository;
+import io.acrosafe.wallet.hot.eth.repository.TransactionRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves confirmed transactions older than the retention window out of transaction_record into compressed archive
+ * members. Every batch of one account and token becomes a gzip member stored in transaction_archive_payload and
+ * indexed in transaction_archive_record, so every wallet instance can read it. A batch is archived in one
+ * transaction under an advisory lock: the members are only committed together with the deletion of exactly the rows
+ * they hold.
+ */
+@Service
+public class TransactionArchiveService
+{
+    // Logger
+    private static final Logger logger = LoggerFactory.getLogger(TransactionArchiveService.class);
+
+    private static final String ARCHIVE_LOCK_KEY = "transaction_record";
+
+    public static final Comparator<TransactionRecord> KEYSET_ORDER = Comparator
+            .comparing(TransactionRecord::getCreatedDate).thenComparing(TransactionRecord::getId);
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private TransactionRecordRepository transactionRecordRepository;
+
+    @Autowired
+    private TransactionArchiveRecordRepository transactionArchiveRecordRepository;
+
+    @Autowired
+    private TransactionArchivePayloadRecordRepository transactionArchivePayloadRecordRepository;
+
+    @Autowired
+    private AdvisoryLockService advisoryLockService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Scheduled(fixedDelayString = "${application.archive-interval:3600000}")
+    public void archive()
+    {
+        final long retention = this.applicationProperties.getArchiveRetention();
+        if (retention <= 0)
+        {
+            return;
+        }
+
+        final Instant cutoff = Instant.now().minus(retention, ChronoUnit.DAYS);
+        final int batchSize = Math.max(1, this.applicationProperties.getArchiveBatchSize());
+        final TransactionTemplate transactionTemplate = new TransactionTemplate(this.transactionManager);
+        int archived = 0;
+        try
+        {
+            Integer count;
+            do
+            {
+                count = transactionTemplate.execute(status -> {
+                    if (!this.advisoryLockService.tryLock(AdvisoryLockService.TRANSACTION_ARCHIVE, ARCHIVE_LOCK_KEY))
+                    {
+                        logger.debug("transactions are archived by another instance.");
+                        return null;
+                    }
+
+                    List<TransactionRecord> batch = this.transactionRecordRepository
+                            .findArchivable(TransactionStatus.CONFIRMED, cutoff, PageRequest.of(0, batchSize));
+                    if (batch.isEmpty())
+                    {
+                        return 0;
+                    }
+
+                    final List<String> ids = batch.stream().map(TransactionRecord::getId).collect(Collectors.toList());
+                    archiveBatch(batch);
+                    final int deleted = this.transactionRecordRepository.deleteAllByIdIn(ids);
+                    if (deleted != ids.size())
+                    {
+                        // rows changed under the batch, archiving them now would lose or duplicate transactions.
+                        logger.warn("only {} of {} archived transactions were deleted, batch is rolled back.", deleted,
+                                ids.size());
+                        status.setRollbackOnly();
+                        return null;
+                    }
+
+                    return batch.size();
+                });
+
+                if (count != null)
+                {
+                    archived += count;
+                }
+            }
+            while (count != null && count == batchSize);
+        }
+        catch (Throwable t)
+        {
+            logger.error("failed to archive transactions, {} archived in this run.", archived, t);
+            return;
+        }
+
+        if (archived > 0)
+        {
+            logger.info("archived {} transactions created before {}.", archived, cutoff);
+        }
+    }
+
+    /**
+     * Returns the archived transactions of given account and token positioned after given cursor, ordered by
+     * (created_date, id). Every lookup runs in a short transaction of its own and members are decompressed outside of
+     * them.
+     *
+     * @param accountId
+     * @param token
+     * @param cursor
+     * @param limit
+     * @return
+     * @throws IOException
+     */
+    public List<TransactionRecord> getArchivedTransactions(String accountId, String token, PageCursor cursor, int limit)
+            throws IOException
+    {
+        List<TransactionArchiveRecord> archiveRecords = this.transactionArchiveRecordRepository
+                .findAllByAccountIdAndTokenAndLastCreatedDateGreaterThanEqualOrderByFirstCreatedDateAsc(accountId, token,
+                        cursor.getCreatedDate());
+
+        List<TransactionRecord> transactionRecords = new ArrayList<>();
+        for (int i = 0; i < archiveRecords.size(); i++)
+        {
+            for (TransactionRecord transactionRecord : readMember(archiveRecords.get(i)))
+            {
+                if (isAfter(transactionRecord, cursor))
+                {
+                    transactionRecords.add(transactionRecord);
+                }
+            }
+
+            // members of one account may overlap in time, stop once the next member starts after the page.
+            if (transactionRecords.size() >= limit && i + 1 < archiveRecords.size())
+            {
+                transactionRecords.sort(KEYSET_ORDER);
+                Instant last = transactionRecords.get(limit - 1).getCreatedDate();
+                if (archiveRecords.get(i + 1).getFirstCreatedDate().isAfter(last))
+                {
+                    break;
+                }
+            }
+        }
+
+        transactionRecords.sort(KEYSET_ORDER);
+        return transactionRecords.size() > limit ? transactionRecords.subList(0, limit) : transactionRecords;
+    }
+
+    /**
+     * Streams all archived transactions of given account and token, member by member.
+     *
+     * @param accountId
+     * @param token
+     * @param handler
+     * @return number of streamed transactions.
+     * @throws IOException
+     */
+    public long streamArchivedTransactions(String accountId, String token, TransactionRecordHandler handler)
+            throws IOException
+    {
+        long count = 0;
+        for (TransactionArchiveRecord archiveRecord : this.transactionArchiveRecordRepository
+                .findAllByAccountIdAndTokenOrderByFirstCreatedDateAsc(accountId, token))
+        {
+            for (TransactionRecord transactionRecord : readMember(archiveRecord))
+            {
+                handler.handle(transactionRecord);
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private void archiveBatch(List<TransactionRecord> batch)
+    {
+        Map<String, List<TransactionRecord>> members = batch.stream().collect(Collectors.groupingBy(
+                record -> record.getAccountId() + "/" + record.getToken(), LinkedHashMap::new, Collectors.toList()));
+
+        for (List<TransactionRecord> member : members.values())
+        {
+            TransactionArchiveRecord archiveRecord = new TransactionArchiveRecord();
+            archiveRecord.setAccountId(member.get(0).getAccountId());
+            archiveRecord.setToken(member.get(0).getToken());
+            archiveRecord.setRecordCount(member.size());
+            archiveRecord.setFirstCreatedDate(member.get(0).getCreatedDate());
+            archiveRecord.setLastCreatedDate(member.get(member.size() - 1).getCreatedDate());
+            archiveRecord = this.transactionArchiveRecordRepository.save(archiveRecord);
+
+            this.transactionArchivePayloadRecordRepository
+                    .save(new TransactionArchivePayloadRecord(archiveRecord.getId(), writeMember(member)));
+        }
+    }
+
+    private byte[] writeMember(List<TransactionRecord> member)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream output = new GZIPOutputStream(bytes))
+        {
+            for (TransactionRecord record : member)
+            {
+                output.write(this.objectMapper.writeValueAsBytes(record));
+                output.write('\n');
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private List<TransactionRecord> readMember(TransactionArchiveRecord archiveRecord) throws IOException
+    {
+        TransactionArchivePayloadRecord payloadRecord = this.transactionArchivePayloadRecordRepository
+                .findById(archiveRecord.getId())
+                .orElseThrow(() -> new IOException("payload of archive member " + archiveRecord.getId() + " is missing."));
+
+        List<TransactionRecord> records = new ArrayList<>(archiveRecord.getRecordCount());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(payloadRecord.getPayload())), StandardCharsets.UTF_8)))
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                records.add(this.objectMapper.readValue(line, TransactionRecord.class));
+            }
+        }
+
+        return records;
+    }
+
+    private static boolean isAfter(TransactionRecord record, PageCursor cursor)
+    {
+        int result = record.getCreatedDate().compareTo(cursor.getCreatedDate());
+        return result > 0 || (result == 0 && record.getId().compareTo(cursor.getId()) > 0);
+    }
+}
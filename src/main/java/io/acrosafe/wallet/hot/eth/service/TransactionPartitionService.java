@@ -0,0 +1,90 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.service;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import io.acrosafe.wallet.hot.eth.config.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Creates the monthly partitions of transaction_record ahead of time, so inserts never fall into the default
+ * partition. Old partitions can be detached with plain DDL, e.g.
+ * {@code alter table transaction_record detach partition transaction_record_2020_01}.
+ */
+@Service
+public class TransactionPartitionService
+{
+    // Logger
+    private static final Logger logger = LoggerFactory.getLogger(TransactionPartitionService.class);
+
+    private static final String TABLE_NAME = "transaction_record";
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private static final DateTimeFormatter PARTITION_BOUND = DateTimeFormatter.ofPattern("yyyy-MM-01 00:00:00");
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Scheduled(fixedDelayString = "${application.transaction-partition-check-interval:21600000}")
+    public void createUpcomingPartitions()
+    {
+        final YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        final int monthsAhead = Math.max(1, this.applicationProperties.getTransactionPartitionsAhead());
+        for (int i = 0; i <= monthsAhead; i++)
+        {
+            createPartition(current.plusMonths(i));
+        }
+    }
+
+    private void createPartition(YearMonth month)
+    {
+        final String partition = TABLE_NAME + "_" + month.format(PARTITION_SUFFIX);
+        try
+        {
+            // bounds are formatted from YearMonth, the statement cannot take them as bind parameters.
+            this.jdbcTemplate.execute("create table if not exists " + partition + " partition of " + TABLE_NAME
+                    + " for values from ('" + month.format(PARTITION_BOUND) + "') to ('"
+                    + month.plusMonths(1).format(PARTITION_BOUND) + "')");
+            logger.debug("transaction partition {} is ready.", partition);
+        }
+        catch (DataAccessException e)
+        {
+            // fails if the default partition already holds rows of this month; they need to be moved manually.
+            logger.error("failed to create transaction partition {}.", partition, e);
+        }
+    }
+}
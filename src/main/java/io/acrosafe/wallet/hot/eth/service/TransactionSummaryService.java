@@ -0,0 +1,159 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import io.acrosafe.wallet.core.eth.TransactionStatus;
+import io.acrosafe.wallet.core.eth.TransactionType;
+import io.acrosafe.wallet.hot.eth.domain.TransactionRecord;
+import io.acrosafe.wallet.hot.eth.domain.TransactionSummaryRecord;
+import io.acrosafe.wallet.hot.eth.repository.TransactionRecordRepository;
+import io.acrosafe.wallet.hot.eth.repository.TransactionSummaryRecordRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Keeps transaction_summary_record in step with transaction_record. Every save of a transaction record goes through
+ * this service so the record and its summary delta commit in the same transaction. The delta is applied with a single
+ * upsert, concurrent writers of the same account and day never lose an update. Counts, amounts and fees only cover
+ * confirmed transactions, a transaction is added when it becomes confirmed and taken out again if it leaves that
+ * state; any change still moves the last activity forward and takes a new change sequence.
+ */
+@Service
+public class TransactionSummaryService
+{
+    // the summary day is derived by the database, the same way the backfill changelog does it.
+    private static final String UPSERT_SQL = "insert into transaction_summary_record (account_id, token, summary_date, "
+            + "deposit_count, deposit_amount, withdrawal_count, withdrawal_amount, fee_amount, last_activity_date, "
+            + "change_sequence, changed_date) "
+            + "values (cast(:accountId as uuid), :token, cast(:createdDate as date), :depositCount, :depositAmount, "
+            + ":withdrawalCount, :withdrawalAmount, :feeAmount, :activityDate, "
+            + "nextval('transaction_summary_change_seq'), now()) "
+            + "on conflict (account_id, token, summary_date) do update set "
+            + "deposit_count = transaction_summary_record.deposit_count + excluded.deposit_count, "
+            + "deposit_amount = transaction_summary_record.deposit_amount + excluded.deposit_amount, "
+            + "withdrawal_count = transaction_summary_record.withdrawal_count + excluded.withdrawal_count, "
+            + "withdrawal_amount = transaction_summary_record.withdrawal_amount + excluded.withdrawal_amount, "
+            + "fee_amount = transaction_summary_record.fee_amount + excluded.fee_amount, "
+            + "last_activity_date = greatest(transaction_summary_record.last_activity_date, excluded.last_activity_date), "
+            + "change_sequence = excluded.change_sequence, changed_date = excluded.changed_date";
+
+    @Autowired
+    private TransactionRecordRepository transactionRecordRepository;
+
+    @Autowired
+    private TransactionSummaryRecordRepository transactionSummaryRecordRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Persists a new transaction record and adds it to the summary of its day if it is already confirmed.
+     *
+     * @param record
+     * @return
+     */
+    @Transactional
+    public TransactionRecord saveCreated(TransactionRecord record)
+    {
+        TransactionRecord saved = this.transactionRecordRepository.save(record);
+        applyChange(saved, saved.getCreatedDate(), null, BigInteger.ZERO);
+
+        return saved;
+    }
+
+    /**
+     * Persists changes of an existing transaction record. The status and the fee can change after creation, the
+     * summary moves by the difference between the previous and the new contribution of the record.
+     *
+     * @param record
+     * @param previousStatus
+     * @param previousFee
+     * @return
+     */
+    @Transactional
+    public TransactionRecord saveUpdated(TransactionRecord record, TransactionStatus previousStatus,
+            BigInteger previousFee)
+    {
+        TransactionRecord saved = this.transactionRecordRepository.save(record);
+        applyChange(saved, Instant.now(), previousStatus, previousFee);
+
+        return saved;
+    }
+
+    @Transactional(readOnly = true)
+    public List<TransactionSummaryRecord> getSummaries(String accountId, String token, LocalDate from, LocalDate to)
+    {
+        return this.transactionSummaryRecordRepository
+                .findAllByAccountIdAndTokenAndSummaryDateBetweenOrderBySummaryDateAsc(accountId, token, from, to);
+    }
+
+    private void applyChange(TransactionRecord record, Instant activityDate, TransactionStatus previousStatus,
+            BigInteger previousFee)
+    {
+        final boolean counted = record.getStatus() == TransactionStatus.CONFIRMED;
+        final boolean previouslyCounted = previousStatus == TransactionStatus.CONFIRMED;
+        final long count = (counted ? 1L : 0L) - (previouslyCounted ? 1L : 0L);
+        final BigInteger amount = record.getAmount().multiply(BigInteger.valueOf(count));
+        final BigInteger fee = (counted ? orZero(record.getFee()) : BigInteger.ZERO)
+                .subtract(previouslyCounted ? orZero(previousFee) : BigInteger.ZERO);
+
+        final boolean deposit = record.getTransactionType() == TransactionType.DEPOSIT;
+        final boolean withdrawal = record.getTransactionType() == TransactionType.WITHDRAWAL;
+        applyDelta(record, activityDate, deposit ? count : 0L, deposit ? amount : BigInteger.ZERO,
+                withdrawal ? count : 0L, withdrawal ? amount : BigInteger.ZERO, fee);
+    }
+
+    private static BigInteger orZero(BigInteger value)
+    {
+        return value == null ? BigInteger.ZERO : value;
+    }
+
+    private void applyDelta(TransactionRecord record, Instant activityDate, long depositCount, BigInteger depositAmount,
+            long withdrawalCount, BigInteger withdrawalAmount, BigInteger feeAmount)
+    {
+        // the upsert goes through plain JDBC on the same connection, a native JPA query would flush and evict the
+        // whole second-level cache.
+        MapSqlParameterSource parameters = new MapSqlParameterSource().addValue("accountId", record.getAccountId())
+                .addValue("token", record.getToken())
+                .addValue("createdDate", Timestamp.from(record.getCreatedDate()))
+                .addValue("depositCount", depositCount)
+                .addValue("depositAmount", new BigDecimal(depositAmount))
+                .addValue("withdrawalCount", withdrawalCount)
+                .addValue("withdrawalAmount", new BigDecimal(withdrawalAmount))
+                .addValue("feeAmount", feeAmount == null ? BigDecimal.ZERO : new BigDecimal(feeAmount))
+                .addValue("activityDate", Timestamp.from(activityDate));
+
+        this.jdbcTemplate.update(UPSERT_SQL, parameters);
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.service;
+
+import java.math.BigInteger;
+import java.time.Instant;
+
+import io.acrosafe.wallet.core.eth.TransactionStatus;
+import io.acrosafe.wallet.hot.eth.domain.TransactionRecord;
+
+/**
+ * A change of a wallet's transaction as recorded by BlockChainService. Instances are immutable, one instance is shared
+ * by all subscribers of the wallet.
+ */
+public class WalletEvent
+{
+    private final WalletEventType type;
+
+    private final String accountId;
+
+    private final String recordId;
+
+    private final String transactionId;
+
+    private final String token;
+
+    private final BigInteger amount;
+
+    private final BigInteger fee;
+
+    private final TransactionStatus status;
+
+    private final String destination;
+
+    private final Instant eventDate;
+
+    private WalletEvent(WalletEventType type, TransactionRecord record)
+    {
+        this.type = type;
+        this.accountId = record.getAccountId();
+        this.recordId = record.getId();
+        this.transactionId = record.getTransactionId();
+        this.token = record.getToken();
+        this.amount = record.getAmount();
+        this.fee = record.getFee();
+        this.status = record.getStatus();
+        this.destination = record.getDestination();
+        this.eventDate = Instant.now();
+    }
+
+    public static WalletEvent of(WalletEventType type, TransactionRecord record)
+    {
+        return new WalletEvent(type, record);
+    }
+
+    public WalletEventType getType()
+    {
+        return type;
+    }
+
+    public String getAccountId()
+    {
+        return accountId;
+    }
+
+    public String getRecordId()
+    {
+        return recordId;
+    }
+
+    public String getTransactionId()
+    {
+        return transactionId;
+    }
+
+    public String getToken()
+    {
+        return token;
+    }
+
+    public BigInteger getAmount()
+    {
+        return amount;
+    }
+
+    public BigInteger getFee()
+    {
+        return fee;
+    }
+
+    public TransactionStatus getStatus()
+    {
+        return status;
+    }
+
+    public String getDestination()
+    {
+        return destination;
+    }
+
+    public Instant getEventDate()
+    {
+        return eventDate;
+    }
+}
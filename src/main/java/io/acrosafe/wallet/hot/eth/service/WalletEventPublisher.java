@@ -0,0 +1,137 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.service;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+
+import io.acrosafe.wallet.hot.eth.config.ApplicationProperties;
+import io.acrosafe.wallet.hot.eth.config.AsyncConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-process fan-out of wallet events to the push endpoints. Events published inside a transaction are delivered after
+ * it commits, so subscribers never see a change that was rolled back. Webhook deliveries are queued in the publishing
+ * transaction itself, see {@link WebhookService}.
+ */
+@Service
+public class WalletEventPublisher
+{
+    // Logger
+    private static final Logger logger = LoggerFactory.getLogger(WalletEventPublisher.class);
+
+    private final ConcurrentMap<String, Set<WalletEventSubscription>> subscriptions = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private WebhookService webhookService;
+
+    @Autowired
+    private WalletVersionService walletVersionService;
+
+    @Autowired
+    @Qualifier(AsyncConfiguration.WALLET_EVENT_EXECUTOR)
+    private Executor executor;
+
+    /**
+     * Subscribes given sink to the events of given account. The caller closes the returned subscription when the
+     * subscriber goes away.
+     *
+     * @param accountId
+     * @param sink
+     * @return
+     */
+    public WalletEventSubscription subscribe(String accountId, WalletEventSink sink)
+    {
+        WalletEventSubscription subscription = new WalletEventSubscription(accountId, sink,
+                this.applicationProperties.getEventBufferSize(), this.applicationProperties.getEventSendTimeLimit(),
+                this.executor, this::unsubscribe);
+        this.subscriptions.compute(accountId, (key, accountSubscriptions) ->
+        {
+            Set<WalletEventSubscription> result =
+                    accountSubscriptions == null ? new CopyOnWriteArraySet<>() : accountSubscriptions;
+            result.add(subscription);
+            return result;
+        });
+        logger.debug("new event subscriber of wallet {}.", accountId);
+
+        return subscription;
+    }
+
+    public void publish(WalletEvent event)
+    {
+        this.webhookService.enqueue(event);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter()
+            {
+                @Override
+                public void afterCommit()
+                {
+                    dispatch(event);
+                }
+            });
+        }
+        else
+        {
+            dispatch(event);
+        }
+    }
+
+    private void dispatch(WalletEvent event)
+    {
+        this.walletVersionService.increment(event.getAccountId());
+
+        Set<WalletEventSubscription> accountSubscriptions = this.subscriptions.get(event.getAccountId());
+        if (accountSubscriptions != null)
+        {
+            for (WalletEventSubscription subscription : accountSubscriptions)
+            {
+                subscription.offer(event);
+            }
+        }
+    }
+
+    private void unsubscribe(WalletEventSubscription subscription)
+    {
+        this.subscriptions.computeIfPresent(subscription.getAccountId(), (key, accountSubscriptions) ->
+        {
+            accountSubscriptions.remove(subscription);
+            return accountSubscriptions.isEmpty() ? null : accountSubscriptions;
+        });
+        logger.debug("event subscriber of wallet {} is closed.", subscription.getAccountId());
+    }
+}
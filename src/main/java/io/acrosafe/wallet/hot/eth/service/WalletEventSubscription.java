@@ -0,0 +1,186 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One subscriber of a wallet's events. Events are buffered in a bounded queue and drained to the sink by at most one
+ * executor task at a time, so a slow sink never blocks the publisher or other subscribers. A subscriber whose buffer
+ * overflows, or whose sink is stuck in a send for longer than the send time limit, is dropped; it has to reconnect
+ * and catch up through the transaction history.
+ */
+public class WalletEventSubscription implements AutoCloseable
+{
+    // Logger
+    private static final Logger logger = LoggerFactory.getLogger(WalletEventSubscription.class);
+
+    private final String accountId;
+
+    private final WalletEventSink sink;
+
+    private final BlockingQueue<WalletEvent> buffer;
+
+    private final Executor executor;
+
+    private final Consumer<WalletEventSubscription> onClose;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private final long sendTimeLimit;
+
+    // start of the send in progress, 0 while the sink is idle.
+    private volatile long sendStarted;
+
+    WalletEventSubscription(String accountId, WalletEventSink sink, int bufferSize, long sendTimeLimit,
+            Executor executor, Consumer<WalletEventSubscription> onClose)
+    {
+        this.accountId = accountId;
+        this.sink = sink;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.sendTimeLimit = sendTimeLimit;
+        this.executor = executor;
+        this.onClose = onClose;
+    }
+
+    public String getAccountId()
+    {
+        return accountId;
+    }
+
+    public boolean isClosed()
+    {
+        return closed.get();
+    }
+
+    /**
+     * Closes the subscription, the sink is not notified. Used when the subscriber itself went away.
+     */
+    @Override
+    public void close()
+    {
+        if (closed.compareAndSet(false, true))
+        {
+            buffer.clear();
+            onClose.accept(this);
+        }
+    }
+
+    void offer(WalletEvent event)
+    {
+        if (closed.get())
+        {
+            return;
+        }
+        final long started = sendStarted;
+        if (started != 0 && System.currentTimeMillis() - started > sendTimeLimit)
+        {
+            logger.info("dropping stalled event subscriber of wallet {}, send in progress for {} ms.", accountId,
+                    System.currentTimeMillis() - started);
+            closeSink();
+            return;
+        }
+        if (!buffer.offer(event))
+        {
+            logger.info("dropping slow event subscriber of wallet {}, {} events buffered.", accountId, buffer.size());
+            closeSink();
+            return;
+        }
+        scheduleDrain();
+    }
+
+    private void scheduleDrain()
+    {
+        if (draining.compareAndSet(false, true))
+        {
+            try
+            {
+                executor.execute(this::drain);
+            }
+            catch (RejectedExecutionException e)
+            {
+                draining.set(false);
+                logger.warn("failed to dispatch events of wallet {}, dropping subscriber.", accountId, e);
+                closeSink();
+            }
+        }
+    }
+
+    private void drain()
+    {
+        try
+        {
+            WalletEvent event;
+            while (!closed.get() && (event = buffer.poll()) != null)
+            {
+                sendStarted = System.currentTimeMillis();
+                sink.send(event);
+                sendStarted = 0;
+            }
+        }
+        catch (Throwable t)
+        {
+            logger.debug("failed to deliver event to subscriber of wallet {}.", accountId, t);
+            closeSink();
+        }
+        finally
+        {
+            sendStarted = 0;
+            draining.set(false);
+        }
+
+        // an event offered after the last poll but before the flag was cleared would be stranded otherwise.
+        if (!closed.get() && !buffer.isEmpty())
+        {
+            scheduleDrain();
+        }
+    }
+
+    private void closeSink()
+    {
+        if (closed.compareAndSet(false, true))
+        {
+            buffer.clear();
+            onClose.accept(this);
+            try
+            {
+                sink.close();
+            }
+            catch (Throwable t)
+            {
+                logger.debug("failed to close event subscriber of wallet {}.", accountId, t);
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.acrosafe.wallet.hot.eth.config.ApplicationProperties;
+import io.acrosafe.wallet.hot.eth.domain.CompactUuidType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.web3j.protocol.Web3j;
+
+/**
+ * Tracks in memory when the data behind a wallet's balance and history last changed, so conditional GETs can be
+ * answered without touching the database or the node. A wallet's version is bumped when a change is committed on this
+ * instance and when the poller sees a change committed elsewhere; balance tags also carry the latest block number.
+ * Versions start over on every start, the random epoch keeps tags of another run or instance from matching.
+ */
+@Service
+public class WalletVersionService
+{
+    // Logger
+    private static final Logger logger = LoggerFactory.getLogger(WalletVersionService.class);
+
+    // every transaction record change gives its summary row a new change sequence and changed date.
+    private static final String CHANGED_ACCOUNTS_SQL = "select account_id, change_sequence, changed_date "
+            + "from transaction_summary_record where changed_date > :since";
+
+    private final String epoch = Long.toString(UUID.randomUUID().getMostSignificantBits() & Long.MAX_VALUE, 36);
+
+    private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    // change sequence -> changed date of the changes inside the overlap window that were applied already.
+    private final Map<Long, Instant> seenChanges = new HashMap<>();
+
+    private final AtomicLong blockNumber = new AtomicLong(-1L);
+
+    private volatile Instant lastPolledChangeDate = Instant.now();
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Web3j web3j;
+
+    /**
+     * Marks the data of given wallet as changed. Called after the change is committed, a response built before that
+     * carries the old tag and is refreshed by the client's next request.
+     *
+     * @param accountId
+     */
+    public void increment(String accountId)
+    {
+        this.versions.computeIfAbsent(accountId, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Returns the entity tag of a history response of given wallet. The variant holds the request parameters that
+     * select the representation.
+     *
+     * @param accountId
+     * @param variant
+     * @return
+     */
+    public String getHistoryTag(String accountId, Object... variant)
+    {
+        return "\"" + this.epoch + "-" + getVersion(accountId) + "-" + Integer.toHexString(Arrays.hashCode(variant))
+                + "\"";
+    }
+
+    /**
+     * Returns the entity tag of the balances of given wallet, or null as long as the latest block is not known.
+     *
+     * @param accountId
+     * @return
+     */
+    public String getBalanceTag(String accountId)
+    {
+        final long block = this.blockNumber.get();
+        return block < 0 ? null : "\"" + this.epoch + "-" + getVersion(accountId) + "-b" + block + "\"";
+    }
+
+    /**
+     * Picks up transaction changes committed by other wallet instances. The window reaches change-poll-overlap back so
+     * a change that committed after a later one is still seen. Wallets are bumped for every change sequence not seen
+     * before, whether or not it moved their last activity.
+     */
+    @Scheduled(fixedDelayString = "${application.change-poll-interval:1000}")
+    public void pollChanges()
+    {
+        final Instant since = this.lastPolledChangeDate.minusMillis(this.applicationProperties.getChangePollOverlap());
+        this.jdbcTemplate.query(CHANGED_ACCOUNTS_SQL, new MapSqlParameterSource("since", Timestamp.from(since)), rs ->
+        {
+            final String accountId = CompactUuidType.toCompactString(rs.getObject("account_id", UUID.class));
+            final long changeSequence = rs.getLong("change_sequence");
+            final Instant changedDate = rs.getTimestamp("changed_date").toInstant();
+
+            if (this.seenChanges.put(changeSequence, changedDate) == null)
+            {
+                increment(accountId);
+            }
+            if (changedDate.isAfter(this.lastPolledChangeDate))
+            {
+                this.lastPolledChangeDate = changedDate;
+            }
+        });
+
+        // changes that left the window are never read again.
+        this.seenChanges.values().removeIf(changedDate -> changedDate.isBefore(since));
+    }
+
+    @Scheduled(fixedDelayString = "${application.block-poll-interval:5000}")
+    public void pollBlockNumber()
+    {
+        this.web3j.ethBlockNumber().sendAsync().whenComplete((response, error) ->
+        {
+            if (error != null || response.hasError())
+            {
+                // balance tags keep the last known block, a node outage fails the balance request itself.
+                logger.debug("failed to get latest block number.", error);
+                return;
+            }
+            this.blockNumber.accumulateAndGet(response.getBlockNumber().longValue(), Math::max);
+        });
+    }
+
+    private long getVersion(String accountId)
+    {
+        final AtomicLong version = this.versions.get(accountId);
+        return version == null ? 0L : version.get();
+    }
+}
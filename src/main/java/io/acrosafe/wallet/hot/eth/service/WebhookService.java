@@ -0,0 +1,421 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.acrosafe.wallet.hot.eth.config.ApplicationProperties;
+import io.acrosafe.wallet.hot.eth.config.AsyncConfiguration;
+import io.acrosafe.wallet.hot.eth.domain.WebhookDeliveryRecord;
+import io.acrosafe.wallet.hot.eth.domain.WebhookDeliveryStatus;
+import io.acrosafe.wallet.hot.eth.repository.WebhookDeliveryRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Pushes wallet events to the configured webhook endpoints. Events are queued in webhook_delivery_record in the
+ * transaction that records them and sent at least once: a dispatcher claims due rows in batches, posts each batch as
+ * one JSON document and retries failed batches with exponential backoff until max-attempts is reached. Every endpoint
+ * has at most max-concurrency batches in flight.
+ */
+@Service
+public class WebhookService
+{
+    // Logger
+    private static final Logger logger = LoggerFactory.getLogger(WebhookService.class);
+
+    private static final String SIGNATURE_HEADER = "X-Wallet-Signature";
+
+    private static final String SIGNATURE_ALGORITHM = "HmacSHA256";
+
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private static final List<WebhookDeliveryStatus> OPEN_STATUSES =
+            Arrays.asList(WebhookDeliveryStatus.PENDING, WebhookDeliveryStatus.SENDING);
+
+    private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+
+    private final AtomicLong backlog = new AtomicLong();
+
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private WebhookDeliveryRecordRepository webhookDeliveryRecordRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RestTemplateBuilder restTemplateBuilder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier(AsyncConfiguration.WEBHOOK_EXECUTOR)
+    private Executor executor;
+
+    @PostConstruct
+    public void initialize()
+    {
+        final ApplicationProperties.Webhook webhook = this.applicationProperties.getWebhook();
+        this.restTemplate = this.restTemplateBuilder.setConnectTimeout(Duration.ofMillis(webhook.getConnectTimeout()))
+                .setReadTimeout(Duration.ofMillis(webhook.getReadTimeout())).build();
+
+        for (Map.Entry<String, ApplicationProperties.WebhookEndpoint> entry : getActiveEndpoints().entrySet())
+        {
+            final Semaphore endpointPermits = new Semaphore(Math.max(1, entry.getValue().getMaxConcurrency()));
+            this.permits.put(entry.getKey(), endpointPermits);
+            Gauge.builder("wallet.webhook.in.flight", endpointPermits,
+                    semaphore -> Math.max(1, entry.getValue().getMaxConcurrency()) - semaphore.availablePermits())
+                    .description("number of webhook batches being sent").tag("endpoint", entry.getKey())
+                    .register(this.meterRegistry);
+        }
+        Gauge.builder("wallet.webhook.backlog", this.backlog, AtomicLong::get)
+                .description("number of webhook deliveries waiting to be sent").register(this.meterRegistry);
+    }
+
+    /**
+     * Queues given event for every active endpoint. Joins the caller's transaction, so the delivery is only queued if
+     * the change behind the event commits.
+     *
+     * @param event
+     */
+    public void enqueue(WalletEvent event)
+    {
+        final Map<String, ApplicationProperties.WebhookEndpoint> endpoints = getActiveEndpoints();
+        if (endpoints.isEmpty())
+        {
+            return;
+        }
+
+        List<WebhookDeliveryRecord> records = new ArrayList<>(endpoints.size());
+        for (String endpoint : endpoints.keySet())
+        {
+            final String id = TimeOrderedIdGenerator.generate();
+            WebhookDeliveryRecord record = new WebhookDeliveryRecord();
+            record.setId(id);
+            record.setEndpoint(endpoint);
+            record.setAccountId(event.getAccountId());
+            record.setEventType(event.getType().name());
+            record.setPayload(createPayload(id, event));
+            records.add(record);
+        }
+        this.webhookDeliveryRecordRepository.saveAll(records);
+    }
+
+    @Scheduled(fixedDelayString = "${application.webhook.dispatch-interval:1000}")
+    public void dispatch()
+    {
+        for (Map.Entry<String, ApplicationProperties.WebhookEndpoint> entry : getActiveEndpoints().entrySet())
+        {
+            final String endpoint = entry.getKey();
+            final Semaphore endpointPermits = this.permits.get(endpoint);
+            if (endpointPermits == null)
+            {
+                // endpoints are read once at startup.
+                continue;
+            }
+
+            while (endpointPermits.tryAcquire())
+            {
+                List<WebhookDeliveryRecord> batch;
+                try
+                {
+                    batch = claim(endpoint);
+                }
+                catch (Throwable t)
+                {
+                    endpointPermits.release();
+                    logger.warn("failed to claim webhook deliveries of endpoint {}.", endpoint, t);
+                    break;
+                }
+
+                if (batch.isEmpty())
+                {
+                    endpointPermits.release();
+                    break;
+                }
+
+                try
+                {
+                    this.executor.execute(() ->
+                    {
+                        try
+                        {
+                            deliver(endpoint, entry.getValue(), batch);
+                        }
+                        finally
+                        {
+                            endpointPermits.release();
+                        }
+                    });
+                }
+                catch (RejectedExecutionException e)
+                {
+                    // the claimed rows are picked up again once their lease expires.
+                    endpointPermits.release();
+                    logger.warn("failed to submit webhook batch of endpoint {}.", endpoint, e);
+                    break;
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelay = 60000L)
+    public void purge()
+    {
+        final Instant createdDate =
+                Instant.now().minus(this.applicationProperties.getWebhook().getRetentionDays(), ChronoUnit.DAYS);
+        final Integer purged = new TransactionTemplate(this.transactionManager).execute(
+                status -> this.webhookDeliveryRecordRepository.deleteByStatusAndCreatedDateBefore(
+                        WebhookDeliveryStatus.DELIVERED, createdDate));
+        if (purged != null && purged > 0)
+        {
+            logger.info("purged {} delivered webhook deliveries.", purged);
+        }
+
+        this.backlog.set(this.webhookDeliveryRecordRepository.countByStatusIn(OPEN_STATUSES));
+    }
+
+    private List<WebhookDeliveryRecord> claim(String endpoint)
+    {
+        final ApplicationProperties.Webhook webhook = this.applicationProperties.getWebhook();
+        return new TransactionTemplate(this.transactionManager).execute(status -> {
+            final Instant now = Instant.now();
+            List<WebhookDeliveryRecord> records =
+                    this.webhookDeliveryRecordRepository.findClaimable(endpoint, now, webhook.getBatchSize());
+            for (WebhookDeliveryRecord record : records)
+            {
+                record.setStatus(WebhookDeliveryStatus.SENDING);
+                record.setNextAttemptDate(now.plusMillis(webhook.getLeaseTimeout()));
+            }
+            return this.webhookDeliveryRecordRepository.saveAll(records);
+        });
+    }
+
+    private void deliver(String endpoint, ApplicationProperties.WebhookEndpoint config,
+            List<WebhookDeliveryRecord> batch)
+    {
+        final String body = batch.stream().map(WebhookDeliveryRecord::getPayload)
+                .collect(Collectors.joining(",", "{\"events\":[", "]}"));
+
+        String error = null;
+        final long start = System.nanoTime();
+        try
+        {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            if (!StringUtils.isEmpty(config.getSecret()))
+            {
+                headers.set(SIGNATURE_HEADER, "sha256=" + sign(config.getSecret(), body));
+            }
+            this.restTemplate.postForEntity(config.getUrl(), new HttpEntity<>(body, headers), Void.class);
+        }
+        catch (Throwable t)
+        {
+            error = StringUtils.abbreviate(t.getMessage() == null ? t.getClass().getName() : t.getMessage(),
+                    MAX_ERROR_LENGTH);
+            logger.warn("failed to deliver {} webhook events to endpoint {}. error = {}", batch.size(), endpoint,
+                    error);
+        }
+        finally
+        {
+            Timer.builder("wallet.webhook.latency").description("time to post one webhook batch")
+                    .tag("endpoint", endpoint).tag("outcome", error == null ? "success" : "failure")
+                    .register(this.meterRegistry).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        try
+        {
+            complete(endpoint, batch, error);
+        }
+        catch (Throwable t)
+        {
+            // the rows stay SENDING and are retried once their lease expires, receivers have to be idempotent.
+            logger.error("failed to record outcome of webhook batch of endpoint {}.", endpoint, t);
+        }
+    }
+
+    void complete(String endpoint, List<WebhookDeliveryRecord> batch, String error)
+    {
+        final ApplicationProperties.Webhook webhook = this.applicationProperties.getWebhook();
+        final Instant now = Instant.now();
+        int exhausted = 0;
+        for (WebhookDeliveryRecord record : batch)
+        {
+            record.setAttempts(record.getAttempts() + 1);
+            record.setLastError(error);
+            if (error == null)
+            {
+                record.setStatus(WebhookDeliveryStatus.DELIVERED);
+                record.setDeliveredDate(now);
+            }
+            else if (record.getAttempts() >= webhook.getMaxAttempts())
+            {
+                record.setStatus(WebhookDeliveryStatus.FAILED);
+                exhausted++;
+            }
+            else
+            {
+                record.setStatus(WebhookDeliveryStatus.PENDING);
+                record.setNextAttemptDate(now.plusMillis(getBackoff(record.getAttempts())));
+            }
+        }
+        new TransactionTemplate(this.transactionManager)
+                .execute(status -> this.webhookDeliveryRecordRepository.saveAll(batch));
+
+        if (error == null)
+        {
+            counter("wallet.webhook.delivered", endpoint).increment(batch.size());
+        }
+        else
+        {
+            counter("wallet.webhook.retried", endpoint).increment(batch.size() - exhausted);
+            counter("wallet.webhook.failed", endpoint).increment(exhausted);
+            if (exhausted > 0)
+            {
+                logger.error("gave up {} webhook deliveries of endpoint {} after {} attempts.", exhausted, endpoint,
+                        webhook.getMaxAttempts());
+            }
+        }
+    }
+
+    /**
+     * Exponential backoff with +/-20% jitter, so batches that failed together do not retry in lockstep.
+     *
+     * @param attempts
+     * @return delay in milliseconds.
+     */
+    long getBackoff(int attempts)
+    {
+        final ApplicationProperties.Webhook webhook = this.applicationProperties.getWebhook();
+        final long delay = Math.min(webhook.getMaxBackoff(),
+                webhook.getInitialBackoff() << Math.min(attempts - 1, 30));
+        return (long) (delay * ThreadLocalRandom.current().nextDouble(0.8, 1.2));
+    }
+
+    private Counter counter(String name, String endpoint)
+    {
+        return Counter.builder(name).tag("endpoint", endpoint).register(this.meterRegistry);
+    }
+
+    private Map<String, ApplicationProperties.WebhookEndpoint> getActiveEndpoints()
+    {
+        Map<String, ApplicationProperties.WebhookEndpoint> endpoints = new LinkedHashMap<>();
+        for (Map.Entry<String, ApplicationProperties.WebhookEndpoint> entry : this.applicationProperties.getWebhook()
+                .getEndpoints().entrySet())
+        {
+            if (entry.getValue().isEnabled() && !StringUtils.isEmpty(entry.getValue().getUrl()))
+            {
+                endpoints.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return endpoints;
+    }
+
+    private String createPayload(String deliveryId, WalletEvent event)
+    {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("delivery_id", deliveryId);
+        payload.put("type", event.getType().name());
+        payload.put("wallet_id", event.getAccountId());
+        payload.put("id", event.getRecordId());
+        payload.put("transaction_id", event.getTransactionId());
+        payload.put("symbol", event.getToken());
+        payload.put("amount", event.getAmount() == null ? null : event.getAmount().toString());
+        payload.put("fee", event.getFee() == null ? null : event.getFee().toString());
+        payload.put("status", event.getStatus() == null ? null : event.getStatus().name());
+        payload.put("destination", event.getDestination());
+        payload.put("event_date", event.getEventDate().toString());
+        try
+        {
+            return this.objectMapper.writeValueAsString(payload);
+        }
+        catch (JsonProcessingException e)
+        {
+            throw new IllegalStateException("failed to serialize webhook payload.", e);
+        }
+    }
+
+    private static String sign(String secret, String body) throws NoSuchAlgorithmException, InvalidKeyException
+    {
+        Mac mac = Mac.getInstance(SIGNATURE_ALGORITHM);
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), SIGNATURE_ALGORITHM));
+        byte[] signature = mac.doFinal(body.getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder builder = new StringBuilder(signature.length * 2);
+        for (byte b : signature)
+        {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+}
@@ -23,58 +23,120 @@
  */
 package io.acrosafe.wallet.hot.eth.web.rest;
 
-import io.acrosafe.wallet.core.eth.exception.ContractCreationException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.acrosafe.wallet.core.eth.exception.WalletNotFoundException;
+import io.acrosafe.wallet.hot.eth.config.AdmissionControlled;
+import io.acrosafe.wallet.hot.eth.config.ApplicationProperties;
 import io.acrosafe.wallet.hot.eth.domain.AccountRecord;
+import io.acrosafe.wallet.hot.eth.domain.AddressRecord;
+import io.acrosafe.wallet.hot.eth.domain.TransactionRecord;
+import io.acrosafe.wallet.hot.eth.domain.TransactionSummaryRecord;
+import io.acrosafe.wallet.hot.eth.exception.InvalidAddressCountException;
 import io.acrosafe.wallet.hot.eth.exception.InvalidCoinSymbolException;
+import io.acrosafe.wallet.hot.eth.exception.InvalidContinuationTokenException;
+import io.acrosafe.wallet.hot.eth.exception.InvalidDateRangeException;
 import io.acrosafe.wallet.hot.eth.exception.ServiceNotReadyException;
+import io.acrosafe.wallet.hot.eth.exception.WithdrawalPendingException;
 import io.acrosafe.wallet.hot.eth.service.AccountService;
+import io.acrosafe.wallet.hot.eth.service.KeysetPage;
+import io.acrosafe.wallet.hot.eth.service.WalletEvent;
+import io.acrosafe.wallet.hot.eth.service.WalletEventPublisher;
+import io.acrosafe.wallet.hot.eth.service.WalletEventSink;
+import io.acrosafe.wallet.hot.eth.service.WalletEventSubscription;
+import io.acrosafe.wallet.hot.eth.service.WalletVersionService;
 import io.acrosafe.wallet.hot.eth.web.rest.request.CreateAccountRequest;
+import io.acrosafe.wallet.hot.eth.web.rest.request.CreateReceivingAddressesRequest;
 import io.acrosafe.wallet.hot.eth.web.rest.request.GetReceiveAddressRequest;
 import io.acrosafe.wallet.hot.eth.web.rest.request.SendCoinRequest;
 import io.acrosafe.wallet.hot.eth.web.rest.response.CreateAccountResponse;
+import io.acrosafe.wallet.hot.eth.web.rest.response.GetAccountListResponse;
+import io.acrosafe.wallet.hot.eth.web.rest.response.GetAddressListResponse;
 import io.acrosafe.wallet.hot.eth.web.rest.response.GetAddressResponse;
 import io.acrosafe.wallet.hot.eth.web.rest.response.GetAllTokenBalancesResponse;
 import io.acrosafe.wallet.hot.eth.web.rest.response.GetBalanceResponse;
+import io.acrosafe.wallet.hot.eth.web.rest.response.GetTransactionListResponse;
+import io.acrosafe.wallet.hot.eth.web.rest.response.GetTransactionResponse;
+import io.acrosafe.wallet.hot.eth.web.rest.response.GetTransactionSummaryResponse;
 import io.acrosafe.wallet.hot.eth.web.rest.response.Result;
+import io.acrosafe.wallet.hot.eth.web.rest.response.Response;
 import io.acrosafe.wallet.hot.eth.web.rest.response.SendCoinResponse;
+import io.acrosafe.wallet.hot.eth.web.rest.response.TransactionSummary;
+import io.acrosafe.wallet.hot.eth.web.rest.response.WalletEventResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import io.acrosafe.wallet.core.eth.exception.AccountNotFoundException;
 import io.acrosafe.wallet.core.eth.exception.CryptoException;
 
+import java.io.IOException;
 import java.math.BigInteger;
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 @Controller
+@Profile("!reactive")
 @RequestMapping("/api/v1/eth/wallet")
 public class AccountResources
 {
     // Logger
     private static final Logger logger = LoggerFactory.getLogger(AccountResources.class);
 
+    private static final int DEFAULT_SUMMARY_DAYS = 30;
+
+    // zero or less disables the servlet async timeout.
+    private static final long NO_TIMEOUT = 0L;
+
     @Autowired
     private AccountService service;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private WalletEventPublisher walletEventPublisher;
+
+    @Autowired
+    private WalletVersionService walletVersionService;
+
     @PostMapping("/{walletId}/address/new")
+    @AdmissionControlled("address-new")
     public ResponseEntity<GetAddressResponse> createReceivingAddress(@PathVariable String walletId,
             @RequestBody GetReceiveAddressRequest request)
     {
         GetAddressResponse response = new GetAddressResponse();
         try
         {
-            String id = this.service.createReceivingAddress(request.getSymbol(), request.getLabel(), walletId);
-            response.setId(id);
+            AddressRecord record = this.service.createReceivingAddress(request.getSymbol(), request.getLabel(), walletId);
+            response.setId(record.getId());
+            response.setAddress(record.getAddress());
+            response.setDeploymentStatus(record.getDeploymentStatus());
 
             return new ResponseEntity<>(response, HttpStatus.ACCEPTED);
         }
@@ -84,11 +146,11 @@ public class AccountResources
             response.setResult(Result.WALLET_NOT_FOUND);
             return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
         }
-        catch (ContractCreationException e)
+        catch (InvalidCoinSymbolException e)
         {
-            response.setResultCode(Result.CREATE_CONTRACT_FAILED.getCode());
-            response.setResult(Result.CREATE_CONTRACT_FAILED);
-            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+            response.setResultCode(Result.INVALID_COIN_SYMBOL.getCode());
+            response.setResult(Result.INVALID_COIN_SYMBOL);
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
         }
         catch (Throwable t)
         {
@@ -99,6 +161,52 @@ public class AccountResources
         }
     }
 
+    @PostMapping("/{walletId}/address/bulk")
+    @AdmissionControlled("address-bulk")
+    public ResponseEntity<GetAddressListResponse> createReceivingAddresses(@PathVariable String walletId,
+            @RequestBody CreateReceivingAddressesRequest request)
+    {
+        GetAddressListResponse response = new GetAddressListResponse();
+        try
+        {
+            List<AddressRecord> records = this.service.createReceivingAddresses(request.getSymbol(), request.getLabel(),
+                    request.getCount(), walletId);
+            response.setWalletId(walletId);
+            response.setSize(records.size());
+            for (AddressRecord record : records)
+            {
+                response.addAddress(record.getId(), record.getAddress(), record.getDeploymentStatus());
+            }
+
+            return new ResponseEntity<>(response, HttpStatus.ACCEPTED);
+        }
+        catch (AccountNotFoundException e)
+        {
+            response.setResultCode(Result.ACCOUNT_NOT_FOUND.getCode());
+            response.setResult(Result.WALLET_NOT_FOUND);
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
+        catch (InvalidCoinSymbolException e)
+        {
+            response.setResultCode(Result.INVALID_COIN_SYMBOL.getCode());
+            response.setResult(Result.INVALID_COIN_SYMBOL);
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
+        catch (InvalidAddressCountException e)
+        {
+            response.setResultCode(Result.INVALID_ADDRESS_COUNT.getCode());
+            response.setResult(Result.INVALID_ADDRESS_COUNT);
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
+        catch (Throwable t)
+        {
+            logger.error("failed to create new addresses.", t);
+            response.setResultCode(Result.UNKNOWN_ERROR.getCode());
+            response.setResult(Result.UNKNOWN_ERROR);
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @PostMapping("/new")
     public ResponseEntity<CreateAccountResponse> createAccount(@RequestBody CreateAccountRequest request)
     {
@@ -136,14 +244,19 @@ public class AccountResources
         }
     }
 
-    @GetMapping("/{walletId}/address")
-    public ResponseEntity<GetAddressResponse> getAccountAddress(@PathVariable String walletId)
+    @PostMapping("/{walletId}/disable")
+    public ResponseEntity<CreateAccountResponse> disableAccount(@PathVariable String walletId)
     {
-        GetAddressResponse response = new GetAddressResponse();
+        CreateAccountResponse response = new CreateAccountResponse();
         try
         {
-            String address = this.service.getAccountAddress(walletId);
-            response.setAddress(address);
+            AccountRecord record = service.disableAccount(walletId);
+
+            response.setAddress(record.getAddress());
+            response.setCreatedDate(record.getCreatedDate());
+            response.setEnabled(record.isEnabled());
+            response.setId(record.getId());
+            response.setLabel(record.getLabel());
 
             return new ResponseEntity<>(response, HttpStatus.OK);
         }
@@ -153,27 +266,68 @@ public class AccountResources
             response.setResult(Result.ACCOUNT_NOT_FOUND);
             return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
         }
-        catch (Throwable e)
+        catch (Throwable t)
         {
+            logger.error("failed to disable enterprise account.", t);
             response.setResultCode(Result.UNKNOWN_ERROR.getCode());
             response.setResult(Result.UNKNOWN_ERROR);
             return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
-    @GetMapping("/{walletId}/balances")
-    public ResponseEntity<GetAllTokenBalancesResponse> getAccountBalance(@PathVariable String walletId)
+    @GetMapping
+    public ResponseEntity<GetAccountListResponse> getAccounts(@RequestParam(required = false) String continuation,
+            @RequestParam(defaultValue = "50") int size)
     {
-        GetAllTokenBalancesResponse response = new GetAllTokenBalancesResponse();
+        GetAccountListResponse response = new GetAccountListResponse();
         try
         {
-            Map<String, BigInteger> balances = this.service.getBalances(walletId);
+            KeysetPage<AccountRecord> page = this.service.getAccounts(continuation, size);
+            for (AccountRecord record : page.getItems())
+            {
+                CreateAccountResponse output = new CreateAccountResponse();
+                output.setAddress(record.getAddress());
+                output.setCreatedDate(record.getCreatedDate());
+                output.setEnabled(record.isEnabled());
+                output.setId(record.getId());
+                output.setLabel(record.getLabel());
+                response.addWallet(output);
+            }
+            response.setSize(page.getItems().size());
+            response.setContinuation(page.getContinuation());
 
-            for (Map.Entry<String, BigInteger> entry : balances.entrySet())
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        }
+        catch (InvalidContinuationTokenException e)
+        {
+            response.setResultCode(Result.INVALID_CONTINUATION_TOKEN.getCode());
+            response.setResult(Result.INVALID_CONTINUATION_TOKEN);
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
+        catch (Throwable t)
+        {
+            logger.error("failed to get enterprise accounts.", t);
+            response.setResultCode(Result.UNKNOWN_ERROR.getCode());
+            response.setResult(Result.UNKNOWN_ERROR);
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping("/{walletId}/addresses")
+    public ResponseEntity<GetAddressListResponse> getReceivingAddresses(@PathVariable String walletId,
+            @RequestParam(required = false) String continuation, @RequestParam(defaultValue = "50") int size)
+    {
+        GetAddressListResponse response = new GetAddressListResponse();
+        try
+        {
+            KeysetPage<AddressRecord> page = this.service.getReceivingAddresses(walletId, continuation, size);
+            for (AddressRecord record : page.getItems())
             {
-                logger.debug("add {} to response. value = {}", entry.getKey(), entry.getValue());
-                response.addBalance(entry.getKey(), entry.getValue());
+                response.addAddress(record.getId(), record.getAddress(), record.getDeploymentStatus());
             }
+            response.setWalletId(walletId);
+            response.setSize(page.getItems().size());
+            response.setContinuation(page.getContinuation());
 
             return new ResponseEntity<>(response, HttpStatus.OK);
         }
@@ -183,27 +337,123 @@ public class AccountResources
             response.setResult(Result.ACCOUNT_NOT_FOUND);
             return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
         }
+        catch (InvalidContinuationTokenException e)
+        {
+            response.setResultCode(Result.INVALID_CONTINUATION_TOKEN.getCode());
+            response.setResult(Result.INVALID_CONTINUATION_TOKEN);
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
         catch (Throwable t)
         {
-            logger.error("failed to get enterprise account balance.", t);
+            logger.error("failed to get receiving addresses.", t);
             response.setResultCode(Result.UNKNOWN_ERROR.getCode());
             response.setResult(Result.UNKNOWN_ERROR);
             return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
-    @PostMapping("/{walletId}/send")
-    public ResponseEntity<SendCoinResponse> send(@PathVariable String walletId, @RequestBody SendCoinRequest request)
+    @GetMapping("/{walletId}/transactions")
+    public ResponseEntity<GetTransactionListResponse> getTransactions(@PathVariable String walletId,
+            @RequestParam(defaultValue = "ETH") String symbol, @RequestParam(required = false) String continuation,
+            @RequestParam(defaultValue = "50") int size, @RequestHeader HttpHeaders headers)
     {
-        SendCoinResponse response = new SendCoinResponse();
+        GetTransactionListResponse response = new GetTransactionListResponse();
+        try
+        {
+            // a wallet that is unknown or disabled by now gets its error rather than a 304.
+            this.service.validateTransactionQuery(symbol, walletId);
+            final String eTag =
+                    this.walletVersionService.getHistoryTag(walletId, "transactions", symbol, continuation, size);
+            if (ConditionalRequests.isNotModified(headers, eTag))
+            {
+                return ConditionalRequests.notModified(eTag);
+            }
 
+            KeysetPage<TransactionRecord> page = this.service.getTransactions(symbol, walletId, continuation, size);
+            for (TransactionRecord record : page.getItems())
+            {
+                response.addTransaction(toTransactionResponse(record));
+            }
+            response.setToken(symbol.toUpperCase());
+            response.setSize(page.getItems().size());
+            response.setContinuation(page.getContinuation());
+
+            return ConditionalRequests.ok(response, eTag);
+        }
+        catch (AccountNotFoundException e)
+        {
+            response.setResultCode(Result.ACCOUNT_NOT_FOUND.getCode());
+            response.setResult(Result.ACCOUNT_NOT_FOUND);
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
+        catch (InvalidCoinSymbolException e)
+        {
+            response.setResultCode(Result.INVALID_COIN_SYMBOL.getCode());
+            response.setResult(Result.INVALID_COIN_SYMBOL);
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
+        catch (InvalidContinuationTokenException e)
+        {
+            response.setResultCode(Result.INVALID_CONTINUATION_TOKEN.getCode());
+            response.setResult(Result.INVALID_CONTINUATION_TOKEN);
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
+        catch (Throwable t)
+        {
+            logger.error("failed to get transactions.", t);
+            response.setResultCode(Result.UNKNOWN_ERROR.getCode());
+            response.setResult(Result.UNKNOWN_ERROR);
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping("/{walletId}/summary")
+    public ResponseEntity<GetTransactionSummaryResponse> getTransactionSummary(@PathVariable String walletId,
+            @RequestParam(defaultValue = "ETH") String symbol,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestHeader HttpHeaders headers)
+    {
+        final LocalDate end = to == null ? LocalDate.now() : to;
+        final LocalDate start = from == null ? end.minusDays(DEFAULT_SUMMARY_DAYS - 1) : from;
+
+        GetTransactionSummaryResponse response = new GetTransactionSummaryResponse();
         try
         {
-            String id = service.send(request.getSymbol(), walletId, request.getAddress(), request.getAmount(), request.getInternalTransactionId());
+            this.service.validateTransactionQuery(symbol, walletId);
 
-            response.setTransactionId(id);
+            // keyed on the resolved range, a default range moves with the date.
+            final String eTag = this.walletVersionService.getHistoryTag(walletId, "summary", symbol, start, end);
+            if (ConditionalRequests.isNotModified(headers, eTag))
+            {
+                return ConditionalRequests.notModified(eTag);
+            }
 
-            return new ResponseEntity<>(response, HttpStatus.OK);
+            List<TransactionSummaryRecord> records = this.service.getTransactionSummaries(symbol, walletId, start, end);
+            for (TransactionSummaryRecord record : records)
+            {
+                TransactionSummary summary = new TransactionSummary();
+                summary.setDate(record.getSummaryDate().toString());
+                summary.setDepositCount(record.getDepositCount());
+                summary.setDepositAmount(record.getDepositAmount());
+                summary.setWithdrawalCount(record.getWithdrawalCount());
+                summary.setWithdrawalAmount(record.getWithdrawalAmount());
+                summary.setFeeAmount(record.getFeeAmount());
+                summary.setLastActivityDate(record.getLastActivityDate());
+                response.addSummary(summary);
+            }
+            response.setWalletId(walletId);
+            response.setToken(symbol.toUpperCase());
+            response.setFrom(start.toString());
+            response.setTo(end.toString());
+
+            return ConditionalRequests.ok(response, eTag);
+        }
+        catch (AccountNotFoundException e)
+        {
+            response.setResultCode(Result.ACCOUNT_NOT_FOUND.getCode());
+            response.setResult(Result.ACCOUNT_NOT_FOUND);
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
         }
         catch (InvalidCoinSymbolException e)
         {
@@ -211,13 +461,339 @@ public class AccountResources
             response.setResult(Result.INVALID_COIN_SYMBOL);
             return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
         }
-        catch (Throwable e)
+        catch (InvalidDateRangeException e)
+        {
+            response.setResultCode(Result.INVALID_DATE_RANGE.getCode());
+            response.setResult(Result.INVALID_DATE_RANGE);
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
+        catch (Throwable t)
         {
-            logger.error("failed to send coin.", e);
+            logger.error("failed to get transaction summary.", t);
             response.setResultCode(Result.UNKNOWN_ERROR.getCode());
             response.setResult(Result.UNKNOWN_ERROR);
             return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    @GetMapping(value = "/{walletId}/transactions/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportTransactions(@PathVariable String walletId,
+            @RequestParam(defaultValue = "ETH") String symbol)
+    {
+        GetTransactionListResponse response = new GetTransactionListResponse();
+        try
+        {
+            // checked up front, once the body starts streaming the status can no longer change.
+            this.service.validateTransactionQuery(symbol, walletId);
+
+            final String token = symbol.toUpperCase();
+            StreamingResponseBody body = outputStream -> {
+                JsonGenerator generator = this.objectMapper.getFactory().createGenerator(outputStream);
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+                generator.writeStartObject();
+                generator.writeStringField("wallet_id", walletId);
+                generator.writeStringField("token", token);
+                generator.writeArrayFieldStart("transactions");
+                try
+                {
+                    long size = this.service.streamTransactions(token, walletId,
+                            record -> generator.writeObject(toTransactionResponse(record)));
+                    generator.writeEndArray();
+                    generator.writeNumberField("size", size);
+                    generator.writeEndObject();
+                }
+                catch (AccountNotFoundException | InvalidCoinSymbolException e)
+                {
+                    throw new IllegalStateException("failed to export transactions.", e);
+                }
+                finally
+                {
+                    generator.close();
+                }
+            };
+
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        }
+        catch (AccountNotFoundException e)
+        {
+            response.setResultCode(Result.ACCOUNT_NOT_FOUND.getCode());
+            response.setResult(Result.ACCOUNT_NOT_FOUND);
+            return createStreamingResponse(response, HttpStatus.BAD_REQUEST);
+        }
+        catch (InvalidCoinSymbolException e)
+        {
+            response.setResultCode(Result.INVALID_COIN_SYMBOL.getCode());
+            response.setResult(Result.INVALID_COIN_SYMBOL);
+            return createStreamingResponse(response, HttpStatus.BAD_REQUEST);
+        }
+        catch (Throwable t)
+        {
+            logger.error("failed to export transactions.", t);
+            response.setResultCode(Result.UNKNOWN_ERROR.getCode());
+            response.setResult(Result.UNKNOWN_ERROR);
+            return createStreamingResponse(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping("/{walletId}/events")
+    public ResponseEntity<ResponseBodyEmitter> streamEvents(@PathVariable String walletId)
+    {
+        GetAddressResponse response = new GetAddressResponse();
+        try
+        {
+            this.service.getAccountAddress(walletId);
+
+            SseEmitter emitter = new SseEmitter(this.applicationProperties.getEventStreamTimeout());
+            WalletEventSubscription subscription = this.walletEventPublisher.subscribe(walletId, new WalletEventSink()
+            {
+                @Override
+                public void send(WalletEvent event) throws IOException
+                {
+                    emitter.send(SseEmitter.event().id(event.getRecordId()).name(event.getType().name())
+                            .data(new WalletEventResponse(event), MediaType.APPLICATION_JSON));
+                }
+
+                @Override
+                public void close()
+                {
+                    emitter.complete();
+                }
+            });
+            emitter.onCompletion(subscription::close);
+            emitter.onTimeout(subscription::close);
+            emitter.onError(error -> subscription.close());
+
+            return ResponseEntity.ok().body(emitter);
+        }
+        catch (AccountNotFoundException e)
+        {
+            response.setResultCode(Result.ACCOUNT_NOT_FOUND.getCode());
+            response.setResult(Result.ACCOUNT_NOT_FOUND);
+            return createEmitterResponse(response, HttpStatus.BAD_REQUEST);
+        }
+        catch (Throwable t)
+        {
+            logger.error("failed to subscribe wallet events.", t);
+            response.setResultCode(Result.UNKNOWN_ERROR.getCode());
+            response.setResult(Result.UNKNOWN_ERROR);
+            return createEmitterResponse(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping("/{walletId}/address")
+    @AdmissionControlled("address")
+    public DeferredResult<ResponseEntity<GetAddressResponse>> getAccountAddress(@PathVariable String walletId)
+    {
+        DeferredResult<ResponseEntity<GetAddressResponse>> result = createDeferredResult(GetAddressResponse::new);
+        try
+        {
+            this.service.getAccountAddressAsync(walletId).whenComplete((address, error) ->
+            {
+                GetAddressResponse response = new GetAddressResponse();
+                if (error == null)
+                {
+                    response.setAddress(address);
+                    result.setResult(new ResponseEntity<>(response, HttpStatus.OK));
+                }
+                else if (unwrap(error) instanceof AccountNotFoundException)
+                {
+                    result.setResult(createErrorResponse(response, Result.ACCOUNT_NOT_FOUND, HttpStatus.BAD_REQUEST));
+                }
+                else
+                {
+                    logger.error("failed to get account address.", unwrap(error));
+                    result.setResult(createErrorResponse(response, Result.UNKNOWN_ERROR, HttpStatus.INTERNAL_SERVER_ERROR));
+                }
+            });
+        }
+        catch (TaskRejectedException e)
+        {
+            result.setResult(createErrorResponse(new GetAddressResponse(), Result.SERVICE_NOT_READY,
+                    HttpStatus.SERVICE_UNAVAILABLE));
+        }
+
+        return result;
+    }
+
+    @GetMapping("/{walletId}/balances")
+    @AdmissionControlled("balances")
+    public DeferredResult<ResponseEntity<GetAllTokenBalancesResponse>> getAccountBalance(@PathVariable String walletId,
+            @RequestHeader HttpHeaders headers)
+    {
+        DeferredResult<ResponseEntity<GetAllTokenBalancesResponse>> result =
+                createDeferredResult(GetAllTokenBalancesResponse::new);
+
+        try
+        {
+            // a wallet that is unknown or disabled by now gets its error rather than a 304.
+            this.service.validateAccount(walletId);
+        }
+        catch (AccountNotFoundException e)
+        {
+            result.setResult(createErrorResponse(new GetAllTokenBalancesResponse(), Result.ACCOUNT_NOT_FOUND,
+                    HttpStatus.BAD_REQUEST));
+            return result;
+        }
+
+        final String eTag = this.walletVersionService.getBalanceTag(walletId);
+        if (ConditionalRequests.isNotModified(headers, eTag))
+        {
+            result.setResult(ConditionalRequests.notModified(eTag));
+            return result;
+        }
+
+        this.service.getBalancesAsync(walletId).whenComplete((balances, error) ->
+        {
+            GetAllTokenBalancesResponse response = new GetAllTokenBalancesResponse();
+            if (error == null)
+            {
+                for (Map.Entry<String, BigInteger> entry : balances.entrySet())
+                {
+                    logger.debug("add {} to response. value = {}", entry.getKey(), entry.getValue());
+                    response.addBalance(entry.getKey(), entry.getValue());
+                }
+                result.setResult(ConditionalRequests.ok(response, eTag));
+            }
+            else if (unwrap(error) instanceof AccountNotFoundException)
+            {
+                result.setResult(createErrorResponse(response, Result.ACCOUNT_NOT_FOUND, HttpStatus.BAD_REQUEST));
+            }
+            else
+            {
+                logger.error("failed to get enterprise account balance.", unwrap(error));
+                result.setResult(createErrorResponse(response, Result.UNKNOWN_ERROR, HttpStatus.INTERNAL_SERVER_ERROR));
+            }
+        });
+
+        return result;
+    }
+
+    @PostMapping("/{walletId}/send")
+    @AdmissionControlled("send")
+    public DeferredResult<ResponseEntity<SendCoinResponse>> send(@PathVariable String walletId,
+            @RequestBody SendCoinRequest request)
+    {
+        // no node-call timeout here, a send that is still broadcasting must not be reported as failed.
+        DeferredResult<ResponseEntity<SendCoinResponse>> result = new DeferredResult<>(NO_TIMEOUT);
+        try
+        {
+            this.service.sendAsync(request.getSymbol(), walletId, request.getAddress(), request.getAmount(),
+                    request.getInternalTransactionId()).whenComplete((id, error) ->
+            {
+                SendCoinResponse response = new SendCoinResponse();
+                if (error == null)
+                {
+                    response.setTransactionId(id);
+                    result.setResult(new ResponseEntity<>(response, HttpStatus.OK));
+                }
+                else if (unwrap(error) instanceof InvalidCoinSymbolException)
+                {
+                    result.setResult(createErrorResponse(response, Result.INVALID_COIN_SYMBOL, HttpStatus.BAD_REQUEST));
+                }
+                else if (unwrap(error) instanceof AccountNotFoundException)
+                {
+                    result.setResult(createErrorResponse(response, Result.ACCOUNT_NOT_FOUND, HttpStatus.BAD_REQUEST));
+                }
+                else if (unwrap(error) instanceof WithdrawalPendingException)
+                {
+                    result.setResult(createErrorResponse(response, Result.WITHDRAWAL_PENDING, HttpStatus.CONFLICT));
+                }
+                else
+                {
+                    logger.error("failed to send coin.", unwrap(error));
+                    result.setResult(createErrorResponse(response, Result.UNKNOWN_ERROR, HttpStatus.INTERNAL_SERVER_ERROR));
+                }
+            });
+        }
+        catch (TaskRejectedException e)
+        {
+            logger.warn("node call executor is saturated, rejecting send request of wallet {}.", walletId);
+            result.setResult(createErrorResponse(new SendCoinResponse(), Result.SERVICE_NOT_READY,
+                    HttpStatus.SERVICE_UNAVAILABLE));
+        }
+        catch (Throwable t)
+        {
+            logger.error("failed to send coin.", t);
+            result.setResult(createErrorResponse(new SendCoinResponse(), Result.UNKNOWN_ERROR,
+                    HttpStatus.INTERNAL_SERVER_ERROR));
+        }
+
+        return result;
+    }
+
+    /**
+     * Creates the deferred result of a node bound request. The servlet thread is released as soon as the handler
+     * returns, if the node does not answer within node-call-timeout the request completes with SERVICE_NOT_READY.
+     * A late completion after the timeout is ignored by DeferredResult.
+     *
+     * @param responseFactory
+     * @param <T>
+     * @return
+     */
+    private <T extends Response> DeferredResult<ResponseEntity<T>> createDeferredResult(Supplier<T> responseFactory)
+    {
+        DeferredResult<ResponseEntity<T>> result = new DeferredResult<>(this.applicationProperties.getNodeCallTimeout());
+        result.onTimeout(() -> result.setResult(
+                createErrorResponse(responseFactory.get(), Result.SERVICE_NOT_READY, HttpStatus.SERVICE_UNAVAILABLE)));
+        return result;
+    }
+
+    private static <T extends Response> ResponseEntity<T> createErrorResponse(T response, Result result,
+            HttpStatus status)
+    {
+        response.setResultCode(result.getCode());
+        response.setResult(result);
+        return new ResponseEntity<>(response, status);
+    }
+
+    private static Throwable unwrap(Throwable error)
+    {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Builds the error response of a streaming endpoint, the declared body type has to stay StreamingResponseBody for
+     * Spring MVC to stream the success case.
+     *
+     * @param response
+     * @param status
+     * @return
+     */
+    private ResponseEntity<StreamingResponseBody> createStreamingResponse(Response response, HttpStatus status)
+    {
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> this.objectMapper.writeValue(outputStream, response));
+    }
+
+    private static ResponseEntity<ResponseBodyEmitter> createEmitterResponse(Response response, HttpStatus status)
+    {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+        try
+        {
+            // buffered until the emitter is attached to the response, the send itself cannot fail here.
+            emitter.send(response, MediaType.APPLICATION_JSON);
+            emitter.complete();
+        }
+        catch (IOException e)
+        {
+            emitter.completeWithError(e);
+        }
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(emitter);
+    }
+
+    static GetTransactionResponse toTransactionResponse(TransactionRecord record)
+    {
+        GetTransactionResponse output = new GetTransactionResponse();
+        output.setSymbol(record.getToken());
+        output.setTransactionId(record.getTransactionId());
+        output.setStatus(record.getStatus().name());
+        output.setAmount(record.getAmount().toString());
+        output.setFee(record.getFee().toString());
+        output.setWalletId(record.getAccountId());
+        output.setDestination(record.getDestination());
+        output.setCreatedDate(record.getCreatedDate());
+        output.setType(record.getTransactionType());
+        return output;
+    }
 }
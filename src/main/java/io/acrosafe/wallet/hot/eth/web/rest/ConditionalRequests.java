@@ -0,0 +1,83 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.web.rest;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * If-None-Match handling shared by the servlet and the reactive resources. Entity tags are only attached to
+ * successful responses, so an error is never revalidated into a 304.
+ */
+final class ConditionalRequests
+{
+    private ConditionalRequests()
+    {
+    }
+
+    /**
+     * Returns true if given request headers already hold given entity tag. Weak comparison is used, the tags describe
+     * the data and not the bytes of the response.
+     *
+     * @param headers
+     * @param eTag
+     * @return
+     */
+    static boolean isNotModified(HttpHeaders headers, String eTag)
+    {
+        if (eTag == null || !headers.containsKey(HttpHeaders.IF_NONE_MATCH))
+        {
+            return false;
+        }
+
+        try
+        {
+            for (String candidate : headers.getIfNoneMatch())
+            {
+                final String tag = candidate.startsWith("W/") ? candidate.substring(2) : candidate;
+                if ("*".equals(tag) || tag.equals(eTag))
+                {
+                    return true;
+                }
+            }
+        }
+        catch (IllegalArgumentException e)
+        {
+            // a malformed header is treated as absent.
+        }
+
+        return false;
+    }
+
+    static <T> ResponseEntity<T> notModified(String eTag)
+    {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+
+    static <T> ResponseEntity<T> ok(T body, String eTag)
+    {
+        return eTag == null ? new ResponseEntity<>(body, HttpStatus.OK) : ResponseEntity.ok().eTag(eTag).body(body);
+    }
+}
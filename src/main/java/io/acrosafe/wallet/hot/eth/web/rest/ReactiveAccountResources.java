@@ -0,0 +1,566 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.web.rest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.acrosafe.wallet.core.eth.exception.AccountNotFoundException;
+import io.acrosafe.wallet.core.eth.exception.CryptoException;
+import io.acrosafe.wallet.hot.eth.config.ApplicationProperties;
+import io.acrosafe.wallet.hot.eth.domain.AccountRecord;
+import io.acrosafe.wallet.hot.eth.domain.AddressRecord;
+import io.acrosafe.wallet.hot.eth.domain.TransactionRecord;
+import io.acrosafe.wallet.hot.eth.domain.TransactionSummaryRecord;
+import io.acrosafe.wallet.hot.eth.exception.InvalidAddressCountException;
+import io.acrosafe.wallet.hot.eth.exception.InvalidCoinSymbolException;
+import io.acrosafe.wallet.hot.eth.exception.InvalidContinuationTokenException;
+import io.acrosafe.wallet.hot.eth.exception.InvalidDateRangeException;
+import io.acrosafe.wallet.hot.eth.exception.WithdrawalPendingException;
+import io.acrosafe.wallet.hot.eth.service.AccountService;
+import io.acrosafe.wallet.hot.eth.service.KeysetPage;
+import io.acrosafe.wallet.hot.eth.service.WalletEvent;
+import io.acrosafe.wallet.hot.eth.service.WalletEventPublisher;
+import io.acrosafe.wallet.hot.eth.service.WalletEventSink;
+import io.acrosafe.wallet.hot.eth.service.WalletEventSubscription;
+import io.acrosafe.wallet.hot.eth.service.WalletVersionService;
+import io.acrosafe.wallet.hot.eth.web.rest.request.CreateAccountRequest;
+import io.acrosafe.wallet.hot.eth.web.rest.request.CreateReceivingAddressesRequest;
+import io.acrosafe.wallet.hot.eth.web.rest.request.GetReceiveAddressRequest;
+import io.acrosafe.wallet.hot.eth.web.rest.request.SendCoinRequest;
+import io.acrosafe.wallet.hot.eth.web.rest.response.CreateAccountResponse;
+import io.acrosafe.wallet.hot.eth.web.rest.response.GetAccountListResponse;
+import io.acrosafe.wallet.hot.eth.web.rest.response.GetAddressListResponse;
+import io.acrosafe.wallet.hot.eth.web.rest.response.GetAddressResponse;
+import io.acrosafe.wallet.hot.eth.web.rest.response.GetAllTokenBalancesResponse;
+import io.acrosafe.wallet.hot.eth.web.rest.response.GetTransactionListResponse;
+import io.acrosafe.wallet.hot.eth.web.rest.response.GetTransactionSummaryResponse;
+import io.acrosafe.wallet.hot.eth.web.rest.response.Response;
+import io.acrosafe.wallet.hot.eth.web.rest.response.Result;
+import io.acrosafe.wallet.hot.eth.web.rest.response.SendCoinResponse;
+import io.acrosafe.wallet.hot.eth.web.rest.response.TransactionSummary;
+import io.acrosafe.wallet.hot.eth.web.rest.response.WalletEventResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * WebFlux variant of {@link AccountResources}, active with the reactive profile. Routes, request and response bodies
+ * are the same. Balances are read with the non-blocking web3j client; JPA and signing calls are still blocking and
+ * run on the bounded elastic scheduler, so the event loop threads never wait for the database or the node.
+ * <p>
+ * That scheduler caps the concurrency of everything except balances and event streams: at most 10 threads per CPU
+ * core run blocking calls, further calls queue behind them, and each of those calls holds a connection of its pool
+ * while it runs. Idle connections, e.g. a history export waiting for a slow client, hold neither a thread nor a
+ * connection, but only that many history pages are read at the same time.
+ */
+@Controller
+@Profile("reactive")
+@RequestMapping("/api/v1/eth/wallet")
+public class ReactiveAccountResources
+{
+    // Logger
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveAccountResources.class);
+
+    private static final int DEFAULT_SUMMARY_DAYS = 30;
+
+    private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+    @Autowired
+    private AccountService service;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private WalletEventPublisher walletEventPublisher;
+
+    @Autowired
+    private WalletVersionService walletVersionService;
+
+    @PostMapping("/{walletId}/address/new")
+    public Mono<ResponseEntity<GetAddressResponse>> createReceivingAddress(@PathVariable String walletId,
+            @RequestBody GetReceiveAddressRequest request)
+    {
+        return blocking(() -> this.service.createReceivingAddress(request.getSymbol(), request.getLabel(), walletId))
+                .map(record ->
+                {
+                    GetAddressResponse response = new GetAddressResponse();
+                    response.setId(record.getId());
+                    response.setAddress(record.getAddress());
+                    response.setDeploymentStatus(record.getDeploymentStatus());
+                    return new ResponseEntity<>(response, HttpStatus.ACCEPTED);
+                })
+                .onErrorResume(error -> Mono.just(createErrorResponse(new GetAddressResponse(), error,
+                        "failed to create new address.")));
+    }
+
+    @PostMapping("/{walletId}/address/bulk")
+    public Mono<ResponseEntity<GetAddressListResponse>> createReceivingAddresses(@PathVariable String walletId,
+            @RequestBody CreateReceivingAddressesRequest request)
+    {
+        return blocking(() -> this.service.createReceivingAddresses(request.getSymbol(), request.getLabel(),
+                request.getCount(), walletId)).map(records ->
+                {
+                    GetAddressListResponse response = new GetAddressListResponse();
+                    response.setWalletId(walletId);
+                    response.setSize(records.size());
+                    for (AddressRecord record : records)
+                    {
+                        response.addAddress(record.getId(), record.getAddress(), record.getDeploymentStatus());
+                    }
+                    return new ResponseEntity<>(response, HttpStatus.ACCEPTED);
+                })
+                .onErrorResume(error -> Mono.just(createErrorResponse(new GetAddressListResponse(), error,
+                        "failed to create new addresses.")));
+    }
+
+    @PostMapping("/new")
+    public Mono<ResponseEntity<CreateAccountResponse>> createAccount(@RequestBody CreateAccountRequest request)
+    {
+        return blocking(() -> this.service.createAccount(request.getSymbol(), request.getLabel(), request.getEnabled()))
+                .map(record -> new ResponseEntity<>(toAccountResponse(record), HttpStatus.OK))
+                .onErrorResume(error -> Mono.just(createErrorResponse(new CreateAccountResponse(), error,
+                        "failed to create new enterprise account.")));
+    }
+
+    @PostMapping("/{walletId}/disable")
+    public Mono<ResponseEntity<CreateAccountResponse>> disableAccount(@PathVariable String walletId)
+    {
+        return blocking(() -> this.service.disableAccount(walletId))
+                .map(record -> new ResponseEntity<>(toAccountResponse(record), HttpStatus.OK))
+                .onErrorResume(error -> Mono.just(createErrorResponse(new CreateAccountResponse(), error,
+                        "failed to disable enterprise account.")));
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<GetAccountListResponse>> getAccounts(@RequestParam(required = false) String continuation,
+            @RequestParam(defaultValue = "50") int size)
+    {
+        return blocking(() -> this.service.getAccounts(continuation, size)).map(page ->
+        {
+            GetAccountListResponse response = new GetAccountListResponse();
+            for (AccountRecord record : page.getItems())
+            {
+                response.addWallet(toAccountResponse(record));
+            }
+            response.setSize(page.getItems().size());
+            response.setContinuation(page.getContinuation());
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        }).onErrorResume(error -> Mono.just(createErrorResponse(new GetAccountListResponse(), error,
+                "failed to get enterprise accounts.")));
+    }
+
+    @GetMapping("/{walletId}/addresses")
+    public Mono<ResponseEntity<GetAddressListResponse>> getReceivingAddresses(@PathVariable String walletId,
+            @RequestParam(required = false) String continuation, @RequestParam(defaultValue = "50") int size)
+    {
+        return blocking(() -> this.service.getReceivingAddresses(walletId, continuation, size)).map(page ->
+        {
+            GetAddressListResponse response = new GetAddressListResponse();
+            for (AddressRecord record : page.getItems())
+            {
+                response.addAddress(record.getId(), record.getAddress(), record.getDeploymentStatus());
+            }
+            response.setWalletId(walletId);
+            response.setSize(page.getItems().size());
+            response.setContinuation(page.getContinuation());
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        }).onErrorResume(error -> Mono.just(createErrorResponse(new GetAddressListResponse(), error,
+                "failed to get receiving addresses.")));
+    }
+
+    @GetMapping("/{walletId}/transactions")
+    public Mono<ResponseEntity<GetTransactionListResponse>> getTransactions(@PathVariable String walletId,
+            @RequestParam(defaultValue = "ETH") String symbol, @RequestParam(required = false) String continuation,
+            @RequestParam(defaultValue = "50") int size, @RequestHeader HttpHeaders headers)
+    {
+        // a wallet that is unknown or disabled by now gets its error rather than a 304.
+        return blocking(() ->
+        {
+            this.service.validateTransactionQuery(symbol, walletId);
+            return this.walletVersionService.getHistoryTag(walletId, "transactions", symbol, continuation, size);
+        }).flatMap(eTag ->
+        {
+            if (ConditionalRequests.isNotModified(headers, eTag))
+            {
+                return Mono.just(ConditionalRequests.<GetTransactionListResponse> notModified(eTag));
+            }
+
+            return blocking(() -> this.service.getTransactions(symbol, walletId, continuation, size)).map(page ->
+            {
+                GetTransactionListResponse response = new GetTransactionListResponse();
+                for (TransactionRecord record : page.getItems())
+                {
+                    response.addTransaction(AccountResources.toTransactionResponse(record));
+                }
+                response.setToken(symbol.toUpperCase());
+                response.setSize(page.getItems().size());
+                response.setContinuation(page.getContinuation());
+                return ConditionalRequests.ok(response, eTag);
+            });
+        }).onErrorResume(error -> Mono.just(createErrorResponse(new GetTransactionListResponse(), error,
+                "failed to get transactions.")));
+    }
+
+    @GetMapping("/{walletId}/summary")
+    public Mono<ResponseEntity<GetTransactionSummaryResponse>> getTransactionSummary(@PathVariable String walletId,
+            @RequestParam(defaultValue = "ETH") String symbol,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestHeader HttpHeaders headers)
+    {
+        final LocalDate end = to == null ? LocalDate.now() : to;
+        final LocalDate start = from == null ? end.minusDays(DEFAULT_SUMMARY_DAYS - 1) : from;
+
+        return blocking(() ->
+        {
+            this.service.validateTransactionQuery(symbol, walletId);
+            return this.walletVersionService.getHistoryTag(walletId, "summary", symbol, start, end);
+        }).flatMap(eTag ->
+        {
+            if (ConditionalRequests.isNotModified(headers, eTag))
+            {
+                return Mono.just(ConditionalRequests.<GetTransactionSummaryResponse> notModified(eTag));
+            }
+
+            return blocking(() -> this.service.getTransactionSummaries(symbol, walletId, start, end)).map(records ->
+            {
+                GetTransactionSummaryResponse response = new GetTransactionSummaryResponse();
+                for (TransactionSummaryRecord record : records)
+                {
+                    TransactionSummary summary = new TransactionSummary();
+                    summary.setDate(record.getSummaryDate().toString());
+                    summary.setDepositCount(record.getDepositCount());
+                    summary.setDepositAmount(record.getDepositAmount());
+                    summary.setWithdrawalCount(record.getWithdrawalCount());
+                    summary.setWithdrawalAmount(record.getWithdrawalAmount());
+                    summary.setFeeAmount(record.getFeeAmount());
+                    summary.setLastActivityDate(record.getLastActivityDate());
+                    response.addSummary(summary);
+                }
+                response.setWalletId(walletId);
+                response.setToken(symbol.toUpperCase());
+                response.setFrom(start.toString());
+                response.setTo(end.toString());
+                return ConditionalRequests.ok(response, eTag);
+            });
+        }).onErrorResume(error -> Mono.just(createErrorResponse(new GetTransactionSummaryResponse(), error,
+                "failed to get transaction summary.")));
+    }
+
+    @GetMapping(value = "/{walletId}/transactions/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<?>> exportTransactions(@PathVariable String walletId,
+            @RequestParam(defaultValue = "ETH") String symbol)
+    {
+        final String token = symbol.toUpperCase();
+
+        // checked up front, once the body starts streaming the status can no longer change.
+        return blocking(() ->
+        {
+            this.service.validateTransactionQuery(symbol, walletId);
+            return token;
+        }).<ResponseEntity<?>> map(ignored -> ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .body(streamTransactions(walletId, token)))
+                .onErrorResume(error -> Mono.just(createErrorResponse(new GetTransactionListResponse(), error,
+                        "failed to export transactions.")));
+    }
+
+    @GetMapping("/{walletId}/events")
+    public Mono<ResponseEntity<?>> streamEvents(@PathVariable String walletId)
+    {
+        return blocking(() -> this.service.getAccountAddress(walletId))
+                .<ResponseEntity<?>> map(ignored -> ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM)
+                        .body(subscribeEvents(walletId)))
+                .onErrorResume(error -> Mono.just(createErrorResponse(new GetAddressResponse(), error,
+                        "failed to subscribe wallet events.")));
+    }
+
+    @GetMapping("/{walletId}/address")
+    public Mono<ResponseEntity<GetAddressResponse>> getAccountAddress(@PathVariable String walletId)
+    {
+        return blocking(() -> this.service.getAccountAddress(walletId)).map(address ->
+        {
+            GetAddressResponse response = new GetAddressResponse();
+            response.setAddress(address);
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        }).timeout(getNodeCallTimeout()).onErrorResume(error -> Mono.just(createErrorResponse(new GetAddressResponse(),
+                error, "failed to get account address.")));
+    }
+
+    @GetMapping("/{walletId}/balances")
+    public Mono<ResponseEntity<GetAllTokenBalancesResponse>> getAccountBalance(@PathVariable String walletId,
+            @RequestHeader HttpHeaders headers)
+    {
+        // only the account lookup may block, the balance itself is read with the non-blocking web3j client. The
+        // account is checked first, an unknown or disabled wallet gets its error rather than a 304.
+        return blocking(() ->
+        {
+            this.service.validateAccount(walletId);
+            return walletId;
+        }).flatMap(ignored ->
+        {
+            final String eTag = this.walletVersionService.getBalanceTag(walletId);
+            if (ConditionalRequests.isNotModified(headers, eTag))
+            {
+                return Mono.just(ConditionalRequests.<GetAllTokenBalancesResponse> notModified(eTag));
+            }
+
+            return Mono.fromCompletionStage(this.service.getBalancesAsync(walletId)).map(balances ->
+            {
+                GetAllTokenBalancesResponse response = new GetAllTokenBalancesResponse();
+                for (Map.Entry<String, BigInteger> entry : balances.entrySet())
+                {
+                    response.addBalance(entry.getKey(), entry.getValue());
+                }
+                return ConditionalRequests.ok(response, eTag);
+            });
+        }).timeout(getNodeCallTimeout())
+                .onErrorResume(error -> Mono.just(createErrorResponse(new GetAllTokenBalancesResponse(), error,
+                        "failed to get enterprise account balance.")));
+    }
+
+    @PostMapping("/{walletId}/send")
+    public Mono<ResponseEntity<SendCoinResponse>> send(@PathVariable String walletId,
+            @RequestBody SendCoinRequest request)
+    {
+        // no node-call timeout here, cancelling would interrupt a send that may already be broadcasting. Retries
+        // with the same internal transaction id are safe, see AccountService#send.
+        return blocking(() -> this.service.send(request.getSymbol(), walletId, request.getAddress(),
+                request.getAmount(), request.getInternalTransactionId())).map(id ->
+                {
+                    SendCoinResponse response = new SendCoinResponse();
+                    response.setTransactionId(id);
+                    return new ResponseEntity<>(response, HttpStatus.OK);
+                })
+                .onErrorResume(error -> Mono.just(createErrorResponse(new SendCoinResponse(), error,
+                        "failed to send coin.")));
+    }
+
+    /**
+     * Streams the export document. Transactions are read page by page with the keyset query of the history endpoint,
+     * and the next page is only read once the client has taken the previous one. No thread waits for the client and no
+     * database cursor stays open in between, so a slow reader costs one buffered page.
+     *
+     * @param walletId
+     * @param token
+     * @return
+     */
+    private Flux<DataBuffer> streamTransactions(String walletId, String token)
+    {
+        final int pageSize = this.applicationProperties.getMaxPageSize();
+        final AtomicLong size = new AtomicLong();
+        Flux<DataBuffer> transactions = readTransactions(walletId, token, null, pageSize)
+                .expand(page -> page.getContinuation() == null ? Mono.empty()
+                        : readTransactions(walletId, token, page.getContinuation(), pageSize))
+                .concatMapIterable(KeysetPage::getItems, 1)
+                .map(record -> toBuffer(record, size.getAndIncrement() > 0));
+
+        return Flux.concat(
+                Mono.fromCallable(() -> wrap("{\"wallet_id\":" + this.objectMapper.writeValueAsString(walletId)
+                        + ",\"token\":" + this.objectMapper.writeValueAsString(token) + ",\"transactions\":[")),
+                transactions, Mono.fromCallable(() -> wrap("],\"size\":" + size.get() + "}")))
+                .doOnError(t -> logger.error("failed to export transactions.", t));
+    }
+
+    private Mono<KeysetPage<TransactionRecord>> readTransactions(String walletId, String token, String continuation,
+            int pageSize)
+    {
+        return blocking(() -> this.service.getTransactions(token, walletId, continuation, pageSize));
+    }
+
+    private DataBuffer toBuffer(TransactionRecord record, boolean separator)
+    {
+        try
+        {
+            byte[] json = this.objectMapper.writeValueAsBytes(AccountResources.toTransactionResponse(record));
+            DataBuffer buffer = this.bufferFactory.allocateBuffer(json.length + 1);
+            if (separator)
+            {
+                buffer.write((byte) ',');
+            }
+            return buffer.write(json);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Bridges a publisher subscription to the response. Events the client has not requested yet wait in a bounded
+     * buffer, a client that stops reading fails the stream once it is full and its subscription is closed.
+     *
+     * @param walletId
+     * @return
+     */
+    private Flux<ServerSentEvent<WalletEventResponse>> subscribeEvents(String walletId)
+    {
+        return Flux.<ServerSentEvent<WalletEventResponse>> create(sink ->
+        {
+            WalletEventSubscription subscription = this.walletEventPublisher.subscribe(walletId, new WalletEventSink()
+            {
+                @Override
+                public void send(WalletEvent event)
+                {
+                    sink.next(ServerSentEvent.builder(new WalletEventResponse(event)).id(event.getRecordId())
+                            .event(event.getType().name()).build());
+                }
+
+                @Override
+                public void close()
+                {
+                    sink.complete();
+                }
+            });
+            sink.onDispose(subscription::close);
+        }).onBackpressureBuffer(this.applicationProperties.getEventBufferSize())
+                .take(Duration.ofMillis(this.applicationProperties.getEventStreamTimeout()));
+    }
+
+    private DataBuffer wrap(String value)
+    {
+        return this.bufferFactory.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Duration getNodeCallTimeout()
+    {
+        return Duration.ofMillis(this.applicationProperties.getNodeCallTimeout());
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call)
+    {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static CreateAccountResponse toAccountResponse(AccountRecord record)
+    {
+        CreateAccountResponse response = new CreateAccountResponse();
+        response.setAddress(record.getAddress());
+        response.setCreatedDate(record.getCreatedDate());
+        response.setEnabled(record.isEnabled());
+        response.setId(record.getId());
+        response.setLabel(record.getLabel());
+        return response;
+    }
+
+    /**
+     * Maps a failed call to the same result codes {@link AccountResources} uses for the exception.
+     *
+     * @param response
+     * @param error
+     * @param message
+     * @param <T>
+     * @return
+     */
+    private static <T extends Response> ResponseEntity<T> createErrorResponse(T response, Throwable error,
+            String message)
+    {
+        final Result result;
+        final HttpStatus status;
+        if (error instanceof AccountNotFoundException)
+        {
+            result = Result.ACCOUNT_NOT_FOUND;
+            status = HttpStatus.BAD_REQUEST;
+        }
+        else if (error instanceof InvalidCoinSymbolException)
+        {
+            result = Result.INVALID_COIN_SYMBOL;
+            status = HttpStatus.BAD_REQUEST;
+        }
+        else if (error instanceof InvalidAddressCountException)
+        {
+            result = Result.INVALID_ADDRESS_COUNT;
+            status = HttpStatus.BAD_REQUEST;
+        }
+        else if (error instanceof InvalidContinuationTokenException)
+        {
+            result = Result.INVALID_CONTINUATION_TOKEN;
+            status = HttpStatus.BAD_REQUEST;
+        }
+        else if (error instanceof InvalidDateRangeException)
+        {
+            result = Result.INVALID_DATE_RANGE;
+            status = HttpStatus.BAD_REQUEST;
+        }
+        else if (error instanceof WithdrawalPendingException)
+        {
+            result = Result.WITHDRAWAL_PENDING;
+            status = HttpStatus.CONFLICT;
+        }
+        else if (error instanceof CryptoException)
+        {
+            result = Result.INVALID_CRYPTO_OPERATION;
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+        else if (error instanceof TimeoutException || error instanceof TaskRejectedException)
+        {
+            result = Result.SERVICE_NOT_READY;
+            status = HttpStatus.SERVICE_UNAVAILABLE;
+        }
+        else
+        {
+            logger.error(message, error);
+            result = Result.UNKNOWN_ERROR;
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+
+        response.setResultCode(result.getCode());
+        response.setResult(result);
+        return new ResponseEntity<>(response, status);
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.web.rest.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GetAccountListResponse extends Response
+{
+    @JsonProperty("size")
+    private Integer size;
+
+    @JsonProperty("wallets")
+    private List<CreateAccountResponse> wallets;
+
+    @JsonProperty("continuation")
+    private String continuation;
+
+    public Integer getSize()
+    {
+        return size;
+    }
+
+    public void setSize(Integer size)
+    {
+        this.size = size;
+    }
+
+    public List<CreateAccountResponse> getWallets()
+    {
+        return wallets;
+    }
+
+    public void setWallets(List<CreateAccountResponse> wallets)
+    {
+        this.wallets = wallets;
+    }
+
+    public void addWallet(CreateAccountResponse output)
+    {
+        if (wallets == null)
+        {
+            wallets = new ArrayList<>();
+        }
+
+        wallets.add(output);
+    }
+
+    public String getContinuation()
+    {
+        return continuation;
+    }
+
+    public void setContinuation(String continuation)
+    {
+        this.continuation = continuation;
+    }
+}
@@ -26,6 +26,8 @@ package io.acrosafe.wallet.hot.eth.web.rest.response;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import io.acrosafe.wallet.hot.eth.domain.DeploymentStatus;
+
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class GetAddressResponse extends Response
 {
@@ -35,6 +37,9 @@ public class GetAddressResponse extends Response
     @JsonProperty("address")
     private String address;
 
+    @JsonProperty("deployment_status")
+    private DeploymentStatus deploymentStatus;
+
     public String getAddress()
     {
         return address;
@@ -54,4 +59,14 @@ public class GetAddressResponse extends Response
     {
         this.id = id;
     }
+
+    public DeploymentStatus getDeploymentStatus()
+    {
+        return deploymentStatus;
+    }
+
+    public void setDeploymentStatus(DeploymentStatus deploymentStatus)
+    {
+        this.deploymentStatus = deploymentStatus;
+    }
 }
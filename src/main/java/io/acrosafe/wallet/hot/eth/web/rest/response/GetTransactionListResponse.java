@@ -26,12 +26,14 @@ package io.acrosafe.wallet.hot.eth.web.rest.response;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
  * This class represents a list of transactions.
  *
  */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class GetTransactionListResponse extends Response
 {
     @JsonProperty("token")
@@ -43,6 +45,9 @@ public class GetTransactionListResponse extends Response
     @JsonProperty("transactions")
     private List<GetTransactionResponse> transactions;
 
+    @JsonProperty("continuation")
+    private String continuation;
+
     public List<GetTransactionResponse> getTransactions()
     {
         return transactions;
@@ -82,4 +87,14 @@ public class GetTransactionListResponse extends Response
     {
         this.token = token;
     }
+
+    public String getContinuation()
+    {
+        return continuation;
+    }
+
+    public void setContinuation(String continuation)
+    {
+        this.continuation = continuation;
+    }
 }
@@ -0,0 +1,113 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.web.rest.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * This class represents the daily transaction summaries of a wallet.
+ *
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GetTransactionSummaryResponse extends Response
+{
+    @JsonProperty("wallet_id")
+    private String walletId;
+
+    @JsonProperty("token")
+    private String token;
+
+    @JsonProperty("from")
+    private String from;
+
+    @JsonProperty("to")
+    private String to;
+
+    @JsonProperty("summaries")
+    private List<TransactionSummary> summaries;
+
+    public String getWalletId()
+    {
+        return walletId;
+    }
+
+    public void setWalletId(String walletId)
+    {
+        this.walletId = walletId;
+    }
+
+    public String getToken()
+    {
+        return token;
+    }
+
+    public void setToken(String token)
+    {
+        this.token = token;
+    }
+
+    public String getFrom()
+    {
+        return from;
+    }
+
+    public void setFrom(String from)
+    {
+        this.from = from;
+    }
+
+    public String getTo()
+    {
+        return to;
+    }
+
+    public void setTo(String to)
+    {
+        this.to = to;
+    }
+
+    public List<TransactionSummary> getSummaries()
+    {
+        return summaries;
+    }
+
+    public void setSummaries(List<TransactionSummary> summaries)
+    {
+        this.summaries = summaries;
+    }
+
+    public void addSummary(TransactionSummary summary)
+    {
+        if (summaries == null)
+        {
+            summaries = new ArrayList<>();
+        }
+
+        summaries.add(summary);
+    }
+}
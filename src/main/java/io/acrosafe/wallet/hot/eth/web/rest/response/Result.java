@@ -35,6 +35,11 @@ public enum Result
     INVALID_COIN_SYMBOL(4005),
     INVALID_ENTERPRISE_ACCOUNT(4006),
     WALLET_NOT_FOUND(4007),
+    INVALID_ADDRESS_COUNT(4008),
+    INVALID_CONTINUATION_TOKEN(4009),
+    INVALID_DATE_RANGE(4010),
+    TOO_MANY_REQUESTS(4011),
+    WITHDRAWAL_PENDING(4012),
 
     // HTTP 5xx error
     UNKNOWN_ERROR(5000),
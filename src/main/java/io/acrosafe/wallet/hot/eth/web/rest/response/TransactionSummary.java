@@ -0,0 +1,129 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.web.rest.response;
+
+import java.math.BigInteger;
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * This class represents the transaction totals of one day.
+ *
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransactionSummary
+{
+    @JsonProperty("date")
+    private String date;
+
+    @JsonProperty("deposit_count")
+    private Long depositCount;
+
+    @JsonProperty("deposit_amount")
+    private BigInteger depositAmount;
+
+    @JsonProperty("withdrawal_count")
+    private Long withdrawalCount;
+
+    @JsonProperty("withdrawal_amount")
+    private BigInteger withdrawalAmount;
+
+    @JsonProperty("fee_amount")
+    private BigInteger feeAmount;
+
+    @JsonProperty("last_activity_date")
+    private Instant lastActivityDate;
+
+    public String getDate()
+    {
+        return date;
+    }
+
+    public void setDate(String date)
+    {
+        this.date = date;
+    }
+
+    public Long getDepositCount()
+    {
+        return depositCount;
+    }
+
+    public void setDepositCount(Long depositCount)
+    {
+        this.depositCount = depositCount;
+    }
+
+    public BigInteger getDepositAmount()
+    {
+        return depositAmount;
+    }
+
+    public void setDepositAmount(BigInteger depositAmount)
+    {
+        this.depositAmount = depositAmount;
+    }
+
+    public Long getWithdrawalCount()
+    {
+        return withdrawalCount;
+    }
+
+    public void setWithdrawalCount(Long withdrawalCount)
+    {
+        this.withdrawalCount = withdrawalCount;
+    }
+
+    public BigInteger getWithdrawalAmount()
+    {
+        return withdrawalAmount;
+    }
+
+    public void setWithdrawalAmount(BigInteger withdrawalAmount)
+    {
+        this.withdrawalAmount = withdrawalAmount;
+    }
+
+    public BigInteger getFeeAmount()
+    {
+        return feeAmount;
+    }
+
+    public void setFeeAmount(BigInteger feeAmount)
+    {
+        this.feeAmount = feeAmount;
+    }
+
+    public Instant getLastActivityDate()
+    {
+        return lastActivityDate;
+    }
+
+    public void setLastActivityDate(Instant lastActivityDate)
+    {
+        this.lastActivityDate = lastActivityDate;
+    }
+}
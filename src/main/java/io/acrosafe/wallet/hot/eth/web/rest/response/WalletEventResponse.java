@@ -0,0 +1,132 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.web.rest.response;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.acrosafe.wallet.hot.eth.service.WalletEvent;
+
+/**
+ * This class represents one wallet event pushed over SSE or WebSocket.
+ *
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WalletEventResponse
+{
+    @JsonProperty("type")
+    private String type;
+
+    @JsonProperty("wallet_id")
+    private String walletId;
+
+    @JsonProperty("id")
+    private String id;
+
+    @JsonProperty("transaction_id")
+    private String transactionId;
+
+    @JsonProperty("symbol")
+    private String symbol;
+
+    @JsonProperty("amount")
+    private String amount;
+
+    @JsonProperty("fee")
+    private String fee;
+
+    @JsonProperty("status")
+    private String status;
+
+    @JsonProperty("destination")
+    private String destination;
+
+    @JsonProperty("event_date")
+    private Instant eventDate;
+
+    public WalletEventResponse(WalletEvent event)
+    {
+        this.type = event.getType().name();
+        this.walletId = event.getAccountId();
+        this.id = event.getRecordId();
+        this.transactionId = event.getTransactionId();
+        this.symbol = event.getToken();
+        this.amount = event.getAmount() == null ? null : event.getAmount().toString();
+        this.fee = event.getFee() == null ? null : event.getFee().toString();
+        this.status = event.getStatus() == null ? null : event.getStatus().name();
+        this.destination = event.getDestination();
+        this.eventDate = event.getEventDate();
+    }
+
+    public String getType()
+    {
+        return type;
+    }
+
+    public String getWalletId()
+    {
+        return walletId;
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public String getTransactionId()
+    {
+        return transactionId;
+    }
+
+    public String getSymbol()
+    {
+        return symbol;
+    }
+
+    public String getAmount()
+    {
+        return amount;
+    }
+
+    public String getFee()
+    {
+        return fee;
+    }
+
+    public String getStatus()
+    {
+        return status;
+    }
+
+    public String getDestination()
+    {
+        return destination;
+    }
+
+    public Instant getEventDate()
+    {
+        return eventDate;
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.web.websocket;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.acrosafe.wallet.core.eth.exception.AccountNotFoundException;
+import io.acrosafe.wallet.hot.eth.config.ApplicationProperties;
+import io.acrosafe.wallet.hot.eth.service.AccountService;
+import io.acrosafe.wallet.hot.eth.service.WalletEvent;
+import io.acrosafe.wallet.hot.eth.service.WalletEventPublisher;
+import io.acrosafe.wallet.hot.eth.service.WalletEventSink;
+import io.acrosafe.wallet.hot.eth.service.WalletEventSubscription;
+import io.acrosafe.wallet.hot.eth.web.rest.response.WalletEventResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+/**
+ * Pushes the events of one wallet to a WebSocket session, the wallet id is taken from the request path. Messages are
+ * the same JSON documents the SSE endpoint sends, inbound messages are ignored. Sends go through a
+ * {@link ConcurrentWebSocketSessionDecorator}, a client that stops reading is closed once it exceeds the send time or
+ * buffer limit.
+ */
+@Component
+@Profile("!reactive")
+public class WalletEventWebSocketHandler extends TextWebSocketHandler
+{
+    // Logger
+    private static final Logger logger = LoggerFactory.getLogger(WalletEventWebSocketHandler.class);
+
+    public static final String PATH = "/api/v1/eth/wallet/{walletId}/events/ws";
+
+    private static final String SUBSCRIPTION_ATTRIBUTE = "walletEventSubscription";
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private WalletEventPublisher walletEventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception
+    {
+        final String walletId = getWalletId(session);
+        try
+        {
+            this.accountService.getAccountAddress(walletId);
+        }
+        catch (AccountNotFoundException e)
+        {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("wallet not found."));
+            return;
+        }
+
+        final WebSocketSession decoratedSession = new ConcurrentWebSocketSessionDecorator(session,
+                Math.toIntExact(this.applicationProperties.getEventSendTimeLimit()),
+                this.applicationProperties.getEventSendBufferLimit());
+        WalletEventSubscription subscription = this.walletEventPublisher.subscribe(walletId, new WalletEventSink()
+        {
+            @Override
+            public void send(WalletEvent event) throws IOException
+            {
+                decoratedSession.sendMessage(
+                        new TextMessage(objectMapper.writeValueAsString(new WalletEventResponse(event))));
+            }
+
+            @Override
+            public void close()
+            {
+                try
+                {
+                    decoratedSession.close(CloseStatus.SERVICE_OVERLOAD.withReason("subscriber is too slow."));
+                }
+                catch (IOException e)
+                {
+                    logger.debug("failed to close event session of wallet {}.", walletId, e);
+                }
+            }
+        });
+        session.getAttributes().put(SUBSCRIPTION_ATTRIBUTE, subscription);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status)
+    {
+        Object subscription = session.getAttributes().remove(SUBSCRIPTION_ATTRIBUTE);
+        if (subscription instanceof WalletEventSubscription)
+        {
+            ((WalletEventSubscription) subscription).close();
+        }
+    }
+
+    private String getWalletId(WebSocketSession session)
+    {
+        Map<String, String> variables =
+                this.pathMatcher.extractUriTemplateVariables(PATH, session.getUri().getPath());
+        return variables.get("walletId");
+    }
+}
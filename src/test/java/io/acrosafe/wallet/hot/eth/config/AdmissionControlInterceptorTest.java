@@ -0,0 +1,172 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import javax.servlet.DispatcherType;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.acrosafe.wallet.hot.eth.service.AccountCacheService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AdmissionControlInterceptorTest
+{
+    private static final String WALLET_ID = "017f22e279b07a4c8d3e5f60718293a4";
+
+    private static final String UNKNOWN_WALLET_ID = "017f22e279b07a4c8d3e5f60718293a5";
+
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    private final AccountCacheService accountCacheService = mock(AccountCacheService.class);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AdmissionControlInterceptor interceptor;
+
+    private HandlerMethod handler;
+
+    @BeforeEach
+    void setUp() throws Exception
+    {
+        final ApplicationProperties.Admission admission = this.applicationProperties.getAdmission();
+        admission.setWalletRate(0);
+        admission.setWalletConcurrency(1);
+        admission.setGlobalRate(0);
+        admission.setGlobalConcurrency(10);
+        when(this.accountCacheService.isCached(WALLET_ID)).thenReturn(true);
+
+        AdmissionController admissionController = new AdmissionController();
+        ReflectionTestUtils.setField(admissionController, "applicationProperties", this.applicationProperties);
+        ReflectionTestUtils.setField(admissionController, "accountCacheService", this.accountCacheService);
+        ReflectionTestUtils.setField(admissionController, "meterRegistry", this.meterRegistry);
+        admissionController.initialize();
+
+        this.interceptor = new AdmissionControlInterceptor();
+        ReflectionTestUtils.setField(this.interceptor, "admissionController", admissionController);
+        ReflectionTestUtils.setField(this.interceptor, "objectMapper", new ObjectMapper());
+
+        this.handler = new HandlerMethod(new Handlers(), Handlers.class.getMethod("send"));
+    }
+
+    @Test
+    void holdsPermitUntilAsyncRequestCompletes() throws Exception
+    {
+        MockHttpServletRequest request = createRequest(WALLET_ID);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(this.interceptor.preHandle(request, response, this.handler));
+
+        request.startAsync();
+        this.interceptor.afterConcurrentHandlingStarted(request, response, this.handler);
+        assertRejected(WALLET_ID);
+
+        // the async dispatch that writes the result neither takes nor releases a permit, the listener does.
+        request.setDispatcherType(DispatcherType.ASYNC);
+        assertTrue(this.interceptor.preHandle(request, response, this.handler));
+        this.interceptor.afterCompletion(request, response, this.handler, null);
+        assertRejected(WALLET_ID);
+
+        request.getAsyncContext().complete();
+        assertAdmitted(WALLET_ID);
+    }
+
+    @Test
+    void releasesPermitOfSynchronousRequest() throws Exception
+    {
+        MockHttpServletRequest request = createRequest(WALLET_ID);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(this.interceptor.preHandle(request, response, this.handler));
+        assertRejected(WALLET_ID);
+
+        this.interceptor.afterCompletion(request, response, this.handler, null);
+        assertAdmitted(WALLET_ID);
+    }
+
+    @Test
+    void checksGlobalLimitBeforeWallet() throws Exception
+    {
+        final ApplicationProperties.Admission admission = this.applicationProperties.getAdmission();
+        admission.setGlobalRate(1);
+        admission.setGlobalBurst(1);
+
+        assertAdmitted(UNKNOWN_WALLET_ID);
+        assertRejected(WALLET_ID);
+
+        // unknown wallets only count against the global limit and never get a limiter of their own.
+        verify(this.accountCacheService).isCached(UNKNOWN_WALLET_ID);
+        verify(this.accountCacheService, never()).isCached(WALLET_ID);
+        assertEquals(0.0, this.meterRegistry.get("wallet.admission.limiters").gauge().value());
+    }
+
+    private void assertAdmitted(String walletId) throws Exception
+    {
+        MockHttpServletRequest request = createRequest(walletId);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(this.interceptor.preHandle(request, response, this.handler));
+        this.interceptor.afterCompletion(request, response, this.handler, null);
+    }
+
+    private void assertRejected(String walletId) throws Exception
+    {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(this.interceptor.preHandle(createRequest(walletId), response, this.handler));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+    }
+
+    private static MockHttpServletRequest createRequest(String walletId)
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/eth/wallet/" + walletId + "/send");
+        request.setAsyncSupported(true);
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE,
+                Collections.singletonMap("walletId", walletId));
+        return request;
+    }
+
+    static class Handlers
+    {
+        @AdmissionControlled("send")
+        public void send()
+        {
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.config;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.task.TaskExecutionProperties;
+
+class AsyncConfigurationTest
+{
+    @Test
+    void runsTasksOnVirtualThreadsWhenEnabled() throws Exception
+    {
+        assumeTrue(VirtualThreads.isSupported(), "virtual threads need Java 21 or later");
+
+        assertTrue(VirtualThreads.isVirtual(runOn(createAsyncExecutor(true))));
+        assertTrue(VirtualThreads.isVirtual(runOn(VirtualThreads.newExecutor("grpc-"))));
+    }
+
+    @Test
+    void runsTasksOnPlatformThreadsWhenDisabled() throws Exception
+    {
+        assertFalse(VirtualThreads.isVirtual(runOn(createAsyncExecutor(false))));
+    }
+
+    private static Executor createAsyncExecutor(boolean virtualThreads) throws Exception
+    {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.setVirtualThreads(virtualThreads);
+        Executor executor = new AsyncConfiguration(new TaskExecutionProperties(), applicationProperties)
+                .getAsyncExecutor();
+        if (executor instanceof InitializingBean)
+        {
+            ((InitializingBean) executor).afterPropertiesSet();
+        }
+        return executor;
+    }
+
+    private static Thread runOn(Executor executor) throws Exception
+    {
+        try
+        {
+            CompletableFuture<Thread> thread = new CompletableFuture<>();
+            executor.execute(() -> thread.complete(Thread.currentThread()));
+            return thread.get(10, TimeUnit.SECONDS);
+        }
+        finally
+        {
+            if (executor instanceof DisposableBean)
+            {
+                ((DisposableBean) executor).destroy();
+            }
+        }
+    }
+}
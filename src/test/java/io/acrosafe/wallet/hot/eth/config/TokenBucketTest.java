@@ -0,0 +1,75 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest
+{
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void admitsBurstThenRejects()
+    {
+        final long now = 1000 * SECOND;
+        TokenBucket bucket = new TokenBucket(10, 5, now);
+
+        for (int i = 0; i < 5; i++)
+        {
+            assertEquals(0L, bucket.tryAcquire(now));
+        }
+        assertEquals(SECOND / 10, bucket.tryAcquire(now));
+        assertFalse(bucket.isFull(now));
+    }
+
+    @Test
+    void refillsAtRate()
+    {
+        final long now = 1000 * SECOND;
+        TokenBucket bucket = new TokenBucket(10, 1, now);
+
+        assertEquals(0L, bucket.tryAcquire(now));
+        assertTrue(bucket.tryAcquire(now + SECOND / 20) > 0);
+        assertEquals(0L, bucket.tryAcquire(now + SECOND / 10));
+    }
+
+    @Test
+    void neverExceedsBurstAfterIdle()
+    {
+        final long now = 1000 * SECOND;
+        TokenBucket bucket = new TokenBucket(10, 2, now);
+        final long later = now + 60 * SECOND;
+
+        assertTrue(bucket.isFull(later));
+        assertEquals(0L, bucket.tryAcquire(later));
+        assertEquals(0L, bucket.tryAcquire(later));
+        assertTrue(bucket.tryAcquire(later) > 0);
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.config;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.task.TaskExecutionProperties;
+
+/**
+ * Runs blocking calls, standing in for node and database round trips, on the async executor with the default bounded
+ * pool and with application.virtual-threads enabled. Only runs on a JVM with virtual threads.
+ */
+class VirtualThreadsLoadTest
+{
+    private static final int TASKS = 2000;
+
+    private static final long LATENCY_MILLIS = 20;
+
+    @Test
+    void virtualThreadsOutrunBoundedPoolOnBlockingCalls() throws Exception
+    {
+        assumeTrue(VirtualThreads.isSupported(), "virtual threads need Java 21 or later");
+
+        final long platformNanos = run(createAsyncExecutor(false));
+        final long virtualNanos = run(createAsyncExecutor(true));
+
+        // 2000 x 20ms on the 8 pooled threads take 5s, on virtual threads all calls wait at the same time.
+        assertTrue(virtualNanos * 5 < platformNanos,
+                "virtual: " + throughput(virtualNanos) + " calls/s, pooled: " + throughput(platformNanos) + " calls/s");
+    }
+
+    private static Executor createAsyncExecutor(boolean virtualThreads) throws Exception
+    {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.setVirtualThreads(virtualThreads);
+        Executor executor = new AsyncConfiguration(new TaskExecutionProperties(), applicationProperties)
+                .getAsyncExecutor();
+        if (executor instanceof InitializingBean)
+        {
+            ((InitializingBean) executor).afterPropertiesSet();
+        }
+        return executor;
+    }
+
+    private static long run(Executor executor) throws Exception
+    {
+        try
+        {
+            CountDownLatch done = new CountDownLatch(TASKS);
+            final long start = System.nanoTime();
+            for (int i = 0; i < TASKS; i++)
+            {
+                executor.execute(() ->
+                {
+                    try
+                    {
+                        Thread.sleep(LATENCY_MILLIS);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                    finally
+                    {
+                        done.countDown();
+                    }
+                });
+            }
+            assertTrue(done.await(1, TimeUnit.MINUTES));
+            return System.nanoTime() - start;
+        }
+        finally
+        {
+            if (executor instanceof DisposableBean)
+            {
+                ((DisposableBean) executor).destroy();
+            }
+        }
+    }
+
+    private static long throughput(long nanos)
+    {
+        return TASKS * TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+}
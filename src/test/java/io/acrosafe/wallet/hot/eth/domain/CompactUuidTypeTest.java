@@ -0,0 +1,95 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class CompactUuidTypeTest
+{
+    private static final String ID = "017f22e279b07a4c8d3e5f60718293a4";
+
+    private static final UUID UUID_VALUE = UUID.fromString("017f22e2-79b0-7a4c-8d3e-5f60718293a4");
+
+    private final CompactUuidType type = new CompactUuidType();
+
+    @Test
+    void convertsToUuidAndBack()
+    {
+        assertEquals(UUID_VALUE, CompactUuidType.toUuid(ID));
+        assertEquals(ID, CompactUuidType.toCompactString(UUID_VALUE));
+    }
+
+    @Test
+    void storesAndReadsUuidColumn() throws Exception
+    {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        this.type.nullSafeSet(statement, ID, 1, null);
+        verify(statement).setObject(1, UUID_VALUE, Types.OTHER);
+
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getObject("id")).thenReturn(UUID_VALUE);
+        assertEquals(ID, this.type.nullSafeGet(resultSet, new String[] { "id" }, null, null));
+    }
+
+    @Test
+    void storesAndReadsNull() throws Exception
+    {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        this.type.nullSafeSet(statement, null, 1, null);
+        verify(statement).setNull(1, Types.OTHER);
+
+        ResultSet resultSet = mock(ResultSet.class);
+        assertNull(this.type.nullSafeGet(resultSet, new String[] { "id" }, null, null));
+    }
+
+    @Test
+    void rejectsInvalidIds()
+    {
+        assertTrue(CompactUuidType.isValid(ID));
+        assertFalse(CompactUuidType.isValid(null));
+        assertFalse(CompactUuidType.isValid(ID.toUpperCase()));
+        assertFalse(CompactUuidType.isValid(UUID_VALUE.toString()));
+        assertFalse(CompactUuidType.isValid(ID.substring(1)));
+        assertFalse(CompactUuidType.isValid(ID + "0"));
+        assertFalse(CompactUuidType.isValid(ID.substring(1) + "g"));
+
+        assertThrows(IllegalArgumentException.class, () -> CompactUuidType.toUuid("not-an-id"));
+        assertThrows(IllegalArgumentException.class,
+                () -> this.type.nullSafeSet(mock(PreparedStatement.class), ID.toUpperCase(), 1, null));
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.web3j.crypto.Hash;
+import org.web3j.utils.Numeric;
+
+class Create2AddressCalculatorTest
+{
+    private static final String ZERO_SALT = "0x0000000000000000000000000000000000000000000000000000000000000000";
+
+    private static final String FACTORY = "0x5a443704dd4b594b382c22a083e2bd3090a6fef3";
+
+    private static final String PARENT = "0x8a54d4afe8b9b1e57ae81dd2295f99f0d539877d";
+
+    @Test
+    void computesEip1014Examples()
+    {
+        assertAddress("0x4D1A2e2bB4F88F0250f26Ffff098B0b30B26BF38", "0x0000000000000000000000000000000000000000", ZERO_SALT,
+                "0x00");
+        assertAddress("0xB928f69Bb1D91Cd65274e3c79d8986362984fDA3", "0xdeadbeef00000000000000000000000000000000", ZERO_SALT,
+                "0x00");
+        assertAddress("0xD04116cDd17beBE565EB2422F2497E06cC1C9833", "0xdeadbeef00000000000000000000000000000000",
+                "0x000000000000000000000000feed000000000000000000000000000000000000", "0x00");
+        assertAddress("0x70f2b2914A2a4b783FaEFb75f459A580616Fcb5e", "0x0000000000000000000000000000000000000000", ZERO_SALT,
+                "0xdeadbeef");
+    }
+
+    @Test
+    void computesForwarderAddressPerAddressRecord()
+    {
+        final byte[] initCodeHash = Hash.sha3(Numeric.hexStringToByteArray("0xdeadbeef"));
+
+        final String address = Create2AddressCalculator.computeForwarderAddress(FACTORY, initCodeHash, PARENT,
+                "c45812ee95a24e0fa4c2b06281dd4248");
+        assertEquals("0x40549a837d0f6e71bde39d4345b6614aa1f887f2", address.toLowerCase());
+
+        final String otherAddress = Create2AddressCalculator.computeForwarderAddress(FACTORY, initCodeHash, PARENT,
+                "c45812ee95a24e0fa4c2b06281dd4249");
+        assertNotEquals(address, otherAddress);
+    }
+
+    @Test
+    void rejectsMalformedInput()
+    {
+        assertThrows(IllegalArgumentException.class,
+                () -> Create2AddressCalculator.computeAddress("0x00", new byte[32], new byte[32]));
+        assertThrows(IllegalArgumentException.class,
+                () -> Create2AddressCalculator.computeAddress(FACTORY, new byte[31], new byte[32]));
+    }
+
+    private static void assertAddress(String expected, String deployer, String salt, String initCode)
+    {
+        final String address = Create2AddressCalculator.computeAddress(deployer,
+                Numeric.hexStringToByteArray(salt), Hash.sha3(Numeric.hexStringToByteArray(initCode)));
+        assertEquals(expected.toLowerCase(), address.toLowerCase());
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+import io.acrosafe.wallet.hot.eth.exception.InvalidContinuationTokenException;
+
+class PageCursorTest
+{
+    private static final String ID = "017f22e279b07a4c8d3e5f60718293a4";
+
+    @Test
+    void decodesEncodedCursor() throws Exception
+    {
+        final Instant createdDate = Instant.parse("2020-10-19T10:15:30.123456Z");
+
+        PageCursor cursor = PageCursor.decode(new PageCursor(createdDate, ID).encode());
+
+        assertEquals(createdDate, cursor.getCreatedDate());
+        assertEquals(ID, cursor.getId());
+    }
+
+    @Test
+    void decodesEmptyTokenAsFirstPage() throws Exception
+    {
+        assertSame(PageCursor.first(), PageCursor.decode(null));
+        assertSame(PageCursor.first(), PageCursor.decode(""));
+    }
+
+    @Test
+    void rejectsMalformedTokens()
+    {
+        assertInvalid("not base64!");
+        assertInvalid(encode("2020-10-19T10:15:30Z"));
+        assertInvalid(encode("|" + ID));
+        assertInvalid(encode("yesterday|" + ID));
+        assertInvalid(encode("2020-10-19T10:15:30Z|" + ID.toUpperCase()));
+        assertInvalid(encode("2020-10-19T10:15:30Z|" + ID.substring(1)));
+        assertInvalid(encode("2020-10-19T10:15:30Z|" + ID + "|" + ID));
+    }
+
+    private static void assertInvalid(String token)
+    {
+        assertThrows(InvalidContinuationTokenException.class, () -> PageCursor.decode(token), token);
+    }
+
+    private static String encode(String value)
+    {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import io.acrosafe.wallet.hot.eth.domain.CompactUuidType;
+
+class TimeOrderedIdGeneratorTest
+{
+    @Test
+    void generatesVersion7Ids()
+    {
+        final String id = TimeOrderedIdGenerator.generate(0x017f22e279b0L);
+
+        assertTrue(CompactUuidType.isValid(id));
+        assertEquals("017f22e279b0", id.substring(0, 12));
+        assertEquals('7', id.charAt(12));
+        assertTrue("89ab".indexOf(id.charAt(16)) >= 0);
+        assertEquals(7, CompactUuidType.toUuid(id).version());
+        assertEquals(2, CompactUuidType.toUuid(id).variant());
+    }
+
+    @Test
+    void ordersIdsByCreationTime()
+    {
+        final String earlier = TimeOrderedIdGenerator.generate(1603101600000L);
+        final String later = TimeOrderedIdGenerator.generate(1603101600001L);
+
+        assertTrue(earlier.compareTo(later) < 0);
+        assertNotEquals(TimeOrderedIdGenerator.generate(1603101600000L), earlier);
+    }
+
+    @Test
+    void convertsToUuidAndBack()
+    {
+        final String id = TimeOrderedIdGenerator.generate();
+
+        assertEquals(id, CompactUuidType.toCompactString(CompactUuidType.toUuid(id)));
+    }
+}
@@ -0,0 +1,246 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.acrosafe.wallet.core.eth.TransactionStatus;
+import io.acrosafe.wallet.hot.eth.config.ApplicationProperties;
+import io.acrosafe.wallet.hot.eth.domain.TransactionArchivePayloadRecord;
+import io.acrosafe.wallet.hot.eth.domain.TransactionArchiveRecord;
+import io.acrosafe.wallet.hot.eth.domain.TransactionRecord;
+import io.acrosafe.wallet.hot.eth.domain.TransactionType;
+import io.acrosafe.wallet.hot.eth.repository.TransactionArchivePayloadRecordRepository;
+import io.acrosafe.wallet.hot.eth.repository.TransactionArchiveRecordRepository;
+import io.acrosafe.wallet.hot.eth.repository.TransactionRecordRepository;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionArchiveServiceTest
+{
+    private static final String ACCOUNT_ID = "017f22e279b07a4c8d3e5f60718293a4";
+
+    private static final String TOKEN = "ETH";
+
+    private static final Instant START = Instant.parse("2020-01-01T00:00:00Z");
+
+    @Spy
+    private ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    @Spy
+    private ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Mock
+    private TransactionRecordRepository transactionRecordRepository;
+
+    @Mock
+    private TransactionArchiveRecordRepository transactionArchiveRecordRepository;
+
+    @Mock
+    private TransactionArchivePayloadRecordRepository transactionArchivePayloadRecordRepository;
+
+    @Mock
+    private AdvisoryLockService advisoryLockService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private TransactionArchiveService transactionArchiveService;
+
+    // archive member id -> gzip payload
+    private final Map<Long, byte[]> payloads = new HashMap<>();
+
+    @Test
+    void archivesBatchAndReadsItBack() throws Exception
+    {
+        this.applicationProperties.setArchiveRetention(30L);
+        this.applicationProperties.setArchiveBatchSize(10);
+        final List<TransactionRecord> batch = Arrays.asList(createRecord(0), createRecord(1), createRecord(2));
+        final List<String> ids = batch.stream().map(TransactionRecord::getId).collect(Collectors.toList());
+
+        when(this.transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(this.advisoryLockService.tryLock(eq(AdvisoryLockService.TRANSACTION_ARCHIVE), anyString()))
+                .thenReturn(true);
+        when(this.transactionRecordRepository.findArchivable(eq(TransactionStatus.CONFIRMED), any(), any()))
+                .thenReturn(batch);
+        when(this.transactionRecordRepository.deleteAllByIdIn(ids)).thenReturn(ids.size());
+        when(this.transactionArchiveRecordRepository.save(any())).thenAnswer(invocation -> {
+            TransactionArchiveRecord archiveRecord = invocation.getArgument(0);
+            archiveRecord.setId(1L);
+            return archiveRecord;
+        });
+
+        this.transactionArchiveService.archive();
+
+        ArgumentCaptor<TransactionArchiveRecord> archiveRecord =
+                ArgumentCaptor.forClass(TransactionArchiveRecord.class);
+        verify(this.transactionArchiveRecordRepository).save(archiveRecord.capture());
+        assertEquals(3, archiveRecord.getValue().getRecordCount());
+        assertEquals(batch.get(0).getCreatedDate(), archiveRecord.getValue().getFirstCreatedDate());
+        assertEquals(batch.get(2).getCreatedDate(), archiveRecord.getValue().getLastCreatedDate());
+
+        ArgumentCaptor<TransactionArchivePayloadRecord> payloadRecord =
+                ArgumentCaptor.forClass(TransactionArchivePayloadRecord.class);
+        verify(this.transactionArchivePayloadRecordRepository).save(payloadRecord.capture());
+        assertEquals(1L, payloadRecord.getValue().getArchiveId());
+
+        when(this.transactionArchiveRecordRepository
+                .findAllByAccountIdAndTokenAndLastCreatedDateGreaterThanEqualOrderByFirstCreatedDateAsc(eq(ACCOUNT_ID),
+                        eq(TOKEN), any())).thenReturn(Collections.singletonList(archiveRecord.getValue()));
+        when(this.transactionArchivePayloadRecordRepository.findById(1L))
+                .thenReturn(Optional.of(payloadRecord.getValue()));
+
+        List<TransactionRecord> archived =
+                this.transactionArchiveService.getArchivedTransactions(ACCOUNT_ID, TOKEN, PageCursor.first(), 10);
+        assertEquals(ids, archived.stream().map(TransactionRecord::getId).collect(Collectors.toList()));
+        for (int i = 0; i < batch.size(); i++)
+        {
+            assertEquals(batch.get(i).getCreatedDate(), archived.get(i).getCreatedDate());
+            assertEquals(batch.get(i).getAmount(), archived.get(i).getAmount());
+            assertEquals(batch.get(i).getStatus(), archived.get(i).getStatus());
+            assertEquals(batch.get(i).getTransactionId(), archived.get(i).getTransactionId());
+        }
+    }
+
+    @Test
+    void returnsArchivedTransactionsAfterCursor() throws Exception
+    {
+        final List<TransactionRecord> records = Arrays.asList(createRecord(0), createRecord(1), createRecord(2));
+        final TransactionArchiveRecord member = createMember(1L, records);
+        mockMembers(Collections.singletonList(member), member);
+
+        final PageCursor cursor = new PageCursor(records.get(0).getCreatedDate(), records.get(0).getId());
+        List<TransactionRecord> archived =
+                this.transactionArchiveService.getArchivedTransactions(ACCOUNT_ID, TOKEN, cursor, 1);
+
+        assertEquals(1, archived.size());
+        assertEquals(records.get(1).getId(), archived.get(0).getId());
+    }
+
+    @Test
+    void stopsReadingMembersOncePageIsFull() throws Exception
+    {
+        final TransactionArchiveRecord first = createMember(1L, Arrays.asList(createRecord(0), createRecord(1)));
+        final TransactionArchiveRecord overlapping = createMember(2L, Arrays.asList(createRecord(1), createRecord(5)));
+        final TransactionArchiveRecord later = createMember(3L, Arrays.asList(createRecord(10), createRecord(11)));
+        mockMembers(Arrays.asList(first, overlapping, later), first, overlapping);
+
+        List<TransactionRecord> archived =
+                this.transactionArchiveService.getArchivedTransactions(ACCOUNT_ID, TOKEN, PageCursor.first(), 2);
+
+        // the second member starts within the page and has to be merged, the third one starts after it.
+        assertEquals(2, archived.size());
+        assertEquals(START, archived.get(0).getCreatedDate());
+        assertEquals(START.plusSeconds(1), archived.get(1).getCreatedDate());
+        assertTrue(archived.get(0).getId().compareTo(archived.get(1).getId()) < 0);
+        verify(this.transactionArchivePayloadRecordRepository, never()).findById(3L);
+    }
+
+    private void mockMembers(List<TransactionArchiveRecord> members, TransactionArchiveRecord... readMembers)
+    {
+        when(this.transactionArchiveRecordRepository
+                .findAllByAccountIdAndTokenAndLastCreatedDateGreaterThanEqualOrderByFirstCreatedDateAsc(eq(ACCOUNT_ID),
+                        eq(TOKEN), any())).thenReturn(members);
+        for (TransactionArchiveRecord member : readMembers)
+        {
+            final byte[] payload = this.payloads.get(member.getId());
+            when(this.transactionArchivePayloadRecordRepository.findById(member.getId()))
+                    .thenReturn(Optional.of(new TransactionArchivePayloadRecord(member.getId(), payload)));
+        }
+    }
+
+    private TransactionArchiveRecord createMember(Long id, List<TransactionRecord> records) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream output = new GZIPOutputStream(bytes))
+        {
+            for (TransactionRecord record : records)
+            {
+                output.write(this.objectMapper.writeValueAsBytes(record));
+                output.write('\n');
+            }
+        }
+
+        this.payloads.put(id, bytes.toByteArray());
+
+        TransactionArchiveRecord archiveRecord = new TransactionArchiveRecord();
+        archiveRecord.setId(id);
+        archiveRecord.setAccountId(ACCOUNT_ID);
+        archiveRecord.setToken(TOKEN);
+        archiveRecord.setRecordCount(records.size());
+        archiveRecord.setFirstCreatedDate(records.get(0).getCreatedDate());
+        archiveRecord.setLastCreatedDate(records.get(records.size() - 1).getCreatedDate());
+        return archiveRecord;
+    }
+
+    private static TransactionRecord createRecord(int second)
+    {
+        TransactionRecord record = new TransactionRecord();
+        record.setId(TimeOrderedIdGenerator.generate(START.plusSeconds(second).toEpochMilli()));
+        record.setAccountId(ACCOUNT_ID);
+        record.setToken(TOKEN);
+        record.setTransactionId("0x" + Integer.toHexString(second));
+        record.setTransactionType(TransactionType.DEPOSIT);
+        record.setStatus(TransactionStatus.CONFIRMED);
+        record.setAmount(BigInteger.valueOf(1000L + second));
+        record.setFee(BigInteger.ZERO);
+        record.setCreatedDate(START.plusSeconds(second));
+        record.setLastModifiedDate(START.plusSeconds(second));
+        return record;
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.acrosafe.wallet.core.eth.TransactionStatus;
+import io.acrosafe.wallet.hot.eth.domain.TransactionRecord;
+
+class WalletEventSubscriptionTest
+{
+    private static final String ACCOUNT_ID = "017f22e279b07000800000000000abcd";
+
+    private static final long SEND_TIME_LIMIT = 10000L;
+
+    @Test
+    void deliversEventsInOrder()
+    {
+        final List<WalletEvent> received = new ArrayList<>();
+        WalletEventSubscription subscription = new WalletEventSubscription(ACCOUNT_ID, received::add, 4,
+                SEND_TIME_LIMIT, Runnable::run, closed -> {});
+
+        subscription.offer(createEvent(TransactionStatus.SIGNED));
+        subscription.offer(createEvent(TransactionStatus.CONFIRMED));
+
+        assertEquals(2, received.size());
+        assertEquals(TransactionStatus.SIGNED, received.get(0).getStatus());
+        assertEquals(TransactionStatus.CONFIRMED, received.get(1).getStatus());
+        assertFalse(subscription.isClosed());
+    }
+
+    @Test
+    void dropsSubscriberWhenBufferOverflows()
+    {
+        final List<Runnable> pendingDrains = new ArrayList<>();
+        final AtomicBoolean sinkClosed = new AtomicBoolean();
+        final AtomicInteger unsubscribed = new AtomicInteger();
+        WalletEventSubscription subscription = new WalletEventSubscription(ACCOUNT_ID, new WalletEventSink()
+        {
+            @Override
+            public void send(WalletEvent event)
+            {
+            }
+
+            @Override
+            public void close()
+            {
+                sinkClosed.set(true);
+            }
+        }, 2, SEND_TIME_LIMIT, pendingDrains::add, closed -> unsubscribed.incrementAndGet());
+
+        subscription.offer(createEvent(TransactionStatus.SIGNED));
+        subscription.offer(createEvent(TransactionStatus.SIGNED));
+        subscription.offer(createEvent(TransactionStatus.SIGNED));
+
+        assertEquals(1, pendingDrains.size());
+        assertTrue(subscription.isClosed());
+        assertTrue(sinkClosed.get());
+        assertEquals(1, unsubscribed.get());
+    }
+
+    @Test
+    void closesSubscriptionWhenSinkFails()
+    {
+        final AtomicInteger unsubscribed = new AtomicInteger();
+        WalletEventSubscription subscription = new WalletEventSubscription(ACCOUNT_ID, event ->
+        {
+            throw new IOException("broken pipe");
+        }, 4, SEND_TIME_LIMIT, Runnable::run, closed -> unsubscribed.incrementAndGet());
+
+        subscription.offer(createEvent(TransactionStatus.SIGNED));
+        subscription.offer(createEvent(TransactionStatus.SIGNED));
+
+        assertTrue(subscription.isClosed());
+        assertEquals(1, unsubscribed.get());
+    }
+
+    @Test
+    void dropsSubscriberWhenSendStalls() throws InterruptedException
+    {
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicBoolean sinkClosed = new AtomicBoolean();
+        WalletEventSubscription subscription = new WalletEventSubscription(ACCOUNT_ID, new WalletEventSink()
+        {
+            @Override
+            public void send(WalletEvent event) throws IOException
+            {
+                sending.countDown();
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException e)
+                {
+                    throw new IOException(e);
+                }
+            }
+
+            @Override
+            public void close()
+            {
+                sinkClosed.set(true);
+            }
+        }, 4, 1L, task -> new Thread(task).start(), closed -> {});
+
+        subscription.offer(createEvent(TransactionStatus.SIGNED));
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        Thread.sleep(10);
+        subscription.offer(createEvent(TransactionStatus.CONFIRMED));
+        release.countDown();
+
+        assertTrue(subscription.isClosed());
+        assertTrue(sinkClosed.get());
+    }
+
+    private static WalletEvent createEvent(TransactionStatus status)
+    {
+        TransactionRecord record = new TransactionRecord();
+        record.setId(TimeOrderedIdGenerator.generate());
+        record.setAccountId(ACCOUNT_ID);
+        record.setToken("ETH");
+        record.setAmount(BigInteger.ONE);
+        record.setFee(BigInteger.ZERO);
+        record.setStatus(status);
+        return WalletEvent.of(WalletEventType.WITHDRAWAL_STATUS_CHANGED, record);
+    }
+}
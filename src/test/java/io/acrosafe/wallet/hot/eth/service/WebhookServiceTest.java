@@ -0,0 +1,169 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020 acrosafe technologies
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.acrosafe.wallet.hot.eth.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import io.acrosafe.wallet.hot.eth.config.ApplicationProperties;
+import io.acrosafe.wallet.hot.eth.domain.WebhookDeliveryRecord;
+import io.acrosafe.wallet.hot.eth.domain.WebhookDeliveryStatus;
+import io.acrosafe.wallet.hot.eth.repository.WebhookDeliveryRecordRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class WebhookServiceTest
+{
+    private static final String ENDPOINT = "ledger";
+
+    @Spy
+    private ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private WebhookDeliveryRecordRepository webhookDeliveryRecordRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private WebhookService webhookService;
+
+    @BeforeEach
+    void setUp()
+    {
+        final ApplicationProperties.Webhook webhook = this.applicationProperties.getWebhook();
+        webhook.setInitialBackoff(1000);
+        webhook.setMaxBackoff(10000);
+        webhook.setMaxAttempts(3);
+    }
+
+    @Test
+    void backsOffExponentiallyWithJitter()
+    {
+        assertBetween(800, 1200, this.webhookService.getBackoff(1));
+        assertBetween(1600, 2400, this.webhookService.getBackoff(2));
+        assertBetween(3200, 4800, this.webhookService.getBackoff(3));
+    }
+
+    @Test
+    void capsBackoffAtMaximum()
+    {
+        assertBetween(8000, 12000, this.webhookService.getBackoff(5));
+        assertBetween(8000, 12000, this.webhookService.getBackoff(100));
+    }
+
+    @Test
+    void marksBatchDelivered()
+    {
+        when(this.transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        final WebhookDeliveryRecord first = createRecord(0);
+        final WebhookDeliveryRecord second = createRecord(1);
+
+        this.webhookService.complete(ENDPOINT, Arrays.asList(first, second), null);
+
+        for (WebhookDeliveryRecord record : Arrays.asList(first, second))
+        {
+            assertEquals(WebhookDeliveryStatus.DELIVERED, record.getStatus());
+            assertNotNull(record.getDeliveredDate());
+            assertNull(record.getLastError());
+        }
+        assertEquals(1, first.getAttempts());
+        assertEquals(2, second.getAttempts());
+        verify(this.webhookDeliveryRecordRepository).saveAll(Arrays.asList(first, second));
+        assertEquals(2.0, this.meterRegistry.get("wallet.webhook.delivered").counter().count());
+    }
+
+    @Test
+    void schedulesRetryOfFailedBatch()
+    {
+        when(this.transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        final WebhookDeliveryRecord record = createRecord(1);
+        final Instant before = Instant.now();
+
+        this.webhookService.complete(ENDPOINT, Collections.singletonList(record), "connection refused");
+
+        assertEquals(WebhookDeliveryStatus.PENDING, record.getStatus());
+        assertEquals(2, record.getAttempts());
+        assertEquals("connection refused", record.getLastError());
+        assertNull(record.getDeliveredDate());
+        // second attempt failed, so the third one waits about twice the initial backoff.
+        assertTrue(!record.getNextAttemptDate().isBefore(before.plusMillis(1600)));
+        assertTrue(record.getNextAttemptDate().isBefore(Instant.now().plusMillis(2400)));
+        assertEquals(1.0, this.meterRegistry.get("wallet.webhook.retried").counter().count());
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts()
+    {
+        when(this.transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        final WebhookDeliveryRecord exhausted = createRecord(2);
+        final WebhookDeliveryRecord retried = createRecord(0);
+
+        this.webhookService.complete(ENDPOINT, Arrays.asList(exhausted, retried), "HTTP 500");
+
+        assertEquals(WebhookDeliveryStatus.FAILED, exhausted.getStatus());
+        assertEquals(3, exhausted.getAttempts());
+        assertEquals(WebhookDeliveryStatus.PENDING, retried.getStatus());
+        assertEquals(1.0, this.meterRegistry.get("wallet.webhook.failed").counter().count());
+        assertEquals(1.0, this.meterRegistry.get("wallet.webhook.retried").counter().count());
+    }
+
+    private static WebhookDeliveryRecord createRecord(int attempts)
+    {
+        WebhookDeliveryRecord record = new WebhookDeliveryRecord();
+        record.setId(TimeOrderedIdGenerator.generate());
+        record.setEndpoint(ENDPOINT);
+        record.setStatus(WebhookDeliveryStatus.SENDING);
+        record.setAttempts(attempts);
+        return record;
+    }
+
+    private static void assertBetween(long min, long max, long value)
+    {
+        assertTrue(value >= min && value < max, value + " is not within [" + min + ", " + max + ")");
+    }
+}